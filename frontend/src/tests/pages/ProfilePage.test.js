@@ -18,7 +18,7 @@ describe("ProfilePage tests", () => {
         axiosMock.onGet("/api/currentUser").reply(200, apiCurrentUserFixtures.userOnly);
         axiosMock.onGet("/api/systemInfo").reply(200, systemInfoFixtures.showingNeither);
 
-        const { getByText } = render(
+        const { getByText, getByAltText } = render(
             <QueryClientProvider client={queryClient}>
                 <MemoryRouter>
                     <ProfilePage />
@@ -28,6 +28,7 @@ describe("ProfilePage tests", () => {
 
         await waitFor( () => expect(getByText("Phillip Conrad")).toBeInTheDocument() );
         expect(getByText("pconrad.cis@gmail.com")).toBeInTheDocument();
+        expect(getByAltText("Profile")).toHaveAttribute("src", "/api/users/2/avatar?size=256");
     });
 
     test("renders correctly for admin user", async () => {
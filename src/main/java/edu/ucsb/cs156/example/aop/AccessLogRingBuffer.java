@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A fixed-size, multi-producer single-consumer ring of access log events.
+ *
+ * The slots are allocated up front and reused: a request thread claims the
+ * next sequence number with a CAS, fills in that slot's fields and publishes
+ * it; it never blocks, and when the consumer is a full ring behind, the
+ * event is dropped and counted instead. One drainer thread hands each
+ * published slot, in order, to a consumer, which must copy anything it
+ * keeps because the slot is then reused.
+ */
+public class AccessLogRingBuffer {
+
+  /** One reusable slot. Only the consumer may read it, only during accept. */
+  public static final class Event {
+    private volatile long published = -1;
+    long timeMillis;
+    String httpMethod;
+    String uri;
+    String controller;
+    String handler;
+
+    public long getTimeMillis() {
+      return timeMillis;
+    }
+
+    public String getHttpMethod() {
+      return httpMethod;
+    }
+
+    public String getUri() {
+      return uri;
+    }
+
+    public String getController() {
+      return controller;
+    }
+
+    public String getHandler() {
+      return handler;
+    }
+  }
+
+  private final Event[] slots;
+  private final int mask;
+  private final AtomicLong claimed = new AtomicLong();
+  private volatile long consumed = 0;
+  private final LongAdder dropped = new LongAdder();
+
+  public AccessLogRingBuffer(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    slots = new Event[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Event();
+    }
+    mask = capacity - 1;
+  }
+
+  /** Returns false (and counts a drop) if the ring is full. */
+  public boolean offer(long timeMillis, String httpMethod, String uri, String controller, String handler) {
+    long seq;
+    do {
+      seq = claimed.get();
+      if (seq - consumed >= slots.length) {
+        dropped.increment();
+        return false;
+      }
+    } while (!claimed.compareAndSet(seq, seq + 1));
+
+    Event event = slots[(int) (seq & mask)];
+    event.timeMillis = timeMillis;
+    event.httpMethod = httpMethod;
+    event.uri = uri;
+    event.controller = controller;
+    event.handler = handler;
+    event.published = seq;
+    return true;
+  }
+
+  /**
+   * Passes every published event to consumer, in order, and returns how many
+   * there were. Must only be called from one thread at a time.
+   */
+  public int drain(Consumer<Event> consumer) {
+    int n = 0;
+    long seq = consumed;
+    while (true) {
+      Event event = slots[(int) (seq & mask)];
+      if (event.published != seq) {
+        break;
+      }
+      try {
+        consumer.accept(event);
+      } finally {
+        event.uri = null;
+        seq++;
+        consumed = seq;
+      }
+      n++;
+    }
+    return n;
+  }
+
+  /**
+   * Drains until the thread is interrupted, parking for idleNanos whenever
+   * the ring is empty, then drains what is left.
+   */
+  public void drainUntilInterrupted(Consumer<Event> consumer, long idleNanos) {
+    while (!Thread.currentThread().isInterrupted()) {
+      if (drain(consumer) == 0) {
+        LockSupport.parkNanos(this, idleNanos);
+      }
+    }
+    drain(consumer);
+  }
+
+  public int size() {
+    return (int) (claimed.get() - consumed);
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+}
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.aop;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one controller handler call, emitted by JfrEventsAspect.
+ * Repository events on the same thread within its duration are the SQL it
+ * ran.
+ */
+@Name("edu.ucsb.cs156.example.ControllerCall")
+@Label("Controller Call")
+@Category({ "Application", "HTTP" })
+@Description("A controller handler call")
+@StackTrace(false)
+public class ControllerEvent extends jdk.jfr.Event {
+
+  @Label("Handler")
+  String handler;
+
+  @Label("HTTP Method")
+  String httpMethod;
+
+  @Label("URI Template")
+  String uri;
+
+  @Label("Status")
+  int status;
+
+  @Label("Exception")
+  String exception;
+}
@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every controller handler, tagged by controller and method:
+ *
+ * <ul>
+ * <li>app.controller.requests: latency histogram with p50/p95/p99, also
+ * tagged by status and exception</li>
+ * <li>app.controller.errors: handlers that threw, by exception</li>
+ * <li>app.controller.active: handlers currently running</li>
+ * </ul>
+ *
+ * These are exported at /actuator/prometheus. The status of a handler that
+ * threw is the one its exception will be mapped to.
+ */
+@Aspect
+@Component
+public class ControllerMetricsAspect {
+
+  private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+  private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private record Outcome(Method method, String status, String exception) {
+  }
+
+  private final Map<Method, Tags> handlerTags = new ConcurrentHashMap<>();
+  private final Map<Method, LongTaskTimer> activeTimers = new ConcurrentHashMap<>();
+  // meters for each handler and outcome, so that a request does not build and look up its own
+  private final Map<Outcome, Timer> requestTimers = new ConcurrentHashMap<>();
+  private final Map<Outcome, Counter> errorCounters = new ConcurrentHashMap<>();
+
+  @Around(LoggingAspect.pointcut)
+  public Object timeHandler(ProceedingJoinPoint joinPoint) throws Throwable {
+    Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+    Tags tags = handlerTags.computeIfAbsent(method, m -> Tags.of(
+        "controller", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+        "method", m.getName()));
+    LongTaskTimer.Sample active = activeTimers.computeIfAbsent(method, m -> LongTaskTimer
+        .builder("app.controller.active")
+        .description("Controller handlers currently running")
+        .tags(tags)
+        .register(meterRegistry)).start();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String status = "500";
+    String exception = "none";
+    try {
+      Object result = joinPoint.proceed();
+      status = statusOfResult(result);
+      return result;
+    } catch (Throwable t) {
+      status = statusOfException(t);
+      exception = t.getClass().getSimpleName();
+      errorCounters.computeIfAbsent(new Outcome(method, null, exception), o -> Counter
+          .builder("app.controller.errors")
+          .description("Controller handlers that threw an exception")
+          .tags(tags)
+          .tag("exception", o.exception())
+          .register(meterRegistry))
+          .increment();
+      throw t;
+    } finally {
+      active.stop();
+      sample.stop(requestTimers.computeIfAbsent(new Outcome(method, status, exception), o -> Timer
+          .builder("app.controller.requests")
+          .description("Controller handler latency")
+          .tags(tags)
+          .tag("status", o.status())
+          .tag("exception", o.exception())
+          .publishPercentiles(0.5, 0.95, 0.99)
+          .publishPercentileHistogram()
+          .minimumExpectedValue(MIN_EXPECTED)
+          .maximumExpectedValue(MAX_EXPECTED)
+          .register(meterRegistry)));
+    }
+  }
+
+  static String statusOfResult(Object result) {
+    if (result instanceof ResponseEntity<?> entity) {
+      return Integer.toString(entity.getStatusCodeValue());
+    }
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+        && attributes.getResponse() != null) {
+      return Integer.toString(attributes.getResponse().getStatus());
+    }
+    return "200";
+  }
+
+  static String statusOfException(Throwable t) {
+    if (t instanceof ResponseStatusException e) {
+      return Integer.toString(e.getRawStatusCode());
+    }
+    if (t instanceof AccessDeniedException) {
+      return "403";
+    }
+    if (t instanceof EntityNotFoundException) {
+      // see ApiController.handleGenericException
+      return "404";
+    }
+    ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(t.getClass(), ResponseStatus.class);
+    if (responseStatus != null) {
+      return Integer.toString(responseStatus.code().value());
+    }
+    return "500";
+  }
+}
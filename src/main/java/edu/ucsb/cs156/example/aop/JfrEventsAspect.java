@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.jdbc.SqlStats;
+
+/**
+ * Emits a ControllerEvent for every controller handler call and a
+ * RepositoryEvent for every repository method call, for JDK Flight
+ * Recorder (see JfrController). Events are only filled in and committed
+ * while a recording that enables them is running, so the cost otherwise is
+ * a timestamp per call.
+ */
+@Aspect
+@Component
+public class JfrEventsAspect {
+
+  private final Map<Class<?>, String> entityNames = new ConcurrentHashMap<>();
+
+  @Around(LoggingAspect.pointcut)
+  public Object controllerCall(ProceedingJoinPoint joinPoint) throws Throwable {
+    ControllerEvent event = new ControllerEvent();
+    event.begin();
+    try {
+      Object result = joinPoint.proceed();
+      event.end();
+      if (event.shouldCommit()) {
+        event.status = Integer.parseInt(ControllerMetricsAspect.statusOfResult(result));
+        commit(event, joinPoint);
+      }
+      return result;
+    } catch (Throwable t) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.status = Integer.parseInt(ControllerMetricsAspect.statusOfException(t));
+        event.exception = t.getClass().getSimpleName();
+        commit(event, joinPoint);
+      }
+      throw t;
+    }
+  }
+
+  private static void commit(ControllerEvent event, ProceedingJoinPoint joinPoint) {
+    event.handler = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+        + joinPoint.getSignature().getName();
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+      event.httpMethod = attributes.getRequest().getMethod();
+      Object pattern = attributes.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      event.uri = pattern != null ? pattern.toString() : attributes.getRequest().getRequestURI();
+    }
+    event.commit();
+  }
+
+  @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object repositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+    RepositoryEvent event = new RepositoryEvent();
+    SqlStats stats = SqlStats.current();
+    int statementsBefore = stats != null ? stats.getStatements() : 0;
+    event.begin();
+    try {
+      Object result = joinPoint.proceed();
+      event.end();
+      if (event.shouldCommit()) {
+        event.rows = rows(result);
+        commit(event, joinPoint, stats, statementsBefore);
+      }
+      return result;
+    } catch (Throwable t) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.rows = -1;
+        event.exception = t.getClass().getSimpleName();
+        commit(event, joinPoint, stats, statementsBefore);
+      }
+      throw t;
+    }
+  }
+
+  private void commit(RepositoryEvent event, ProceedingJoinPoint joinPoint, SqlStats stats, int statementsBefore) {
+    event.entity = entityNames.computeIfAbsent(joinPoint.getThis().getClass(),
+        c -> entityName(joinPoint.getThis()));
+    event.method = joinPoint.getSignature().getName();
+    event.statements = stats != null ? stats.getStatements() - statementsBefore : -1;
+    event.commit();
+  }
+
+  static String entityName(Object repository) {
+    for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(repository)) {
+      if (Repository.class.isAssignableFrom(type)) {
+        Class<?> entity = ResolvableType.forClass(type).as(Repository.class).resolveGeneric(0);
+        if (entity != null) {
+          return entity.getSimpleName();
+        }
+      }
+    }
+    return "?";
+  }
+
+  static long rows(Object result) {
+    if (result == null) {
+      return 0;
+    }
+    if (result instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (result instanceof Slice<?> slice) {
+      return slice.getNumberOfElements();
+    }
+    if (result instanceof Optional<?> optional) {
+      return optional.isPresent() ? 1 : 0;
+    }
+    if (result instanceof Number || result instanceof Boolean || result instanceof Iterable<?>) {
+      // counts, existsBy..., and iterables we should not walk
+      return -1;
+    }
+    return 1;
+  }
+}
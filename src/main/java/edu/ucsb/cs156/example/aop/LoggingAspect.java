@@ -2,25 +2,46 @@ package edu.ucsb.cs156.example.aop;
 
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Optional;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Writes one access log line per controller call to the "access" logger
+ * (logs/access.log, see logback-spring.xml).
+ *
+ * The request thread only looks up its handler (resolved once per handler
+ * method, including whether it is on app.accessLog.stoplist) and copies a
+ * few references into a preallocated AccessLogRingBuffer slot; a
+ * background thread formats and writes the lines. Only every
+ * app.accessLog.sampleEvery-th call of each handler is logged.
+ */
 @Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
   // language=PointcutExpression
-  private static final String pointcut = """
+  static final String pointcut = """
       @annotation(org.springframework.web.bind.annotation.RequestMapping) ||
       @annotation(org.springframework.web.bind.annotation.GetMapping) ||
       @annotation(org.springframework.web.bind.annotation.PostMapping) ||
@@ -29,25 +50,88 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist = new ArrayList<String>(Arrays.asList(
-      "edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  private static final Logger accessLog = LoggerFactory.getLogger("access");
+
+  static final class Handler {
+    final boolean logged;
+    final String controller;
+    final String name;
+    final AtomicLong calls = new AtomicLong();
+
+    Handler(boolean logged, String controller, String name) {
+      this.logged = logged;
+      this.controller = controller;
+      this.name = name;
+    }
+  }
+
+  @Value("${app.accessLog.stoplist:edu.ucsb.cs156.example.controllers.FrontendProxyController}")
+  List<String> stoplist = List.of("edu.ucsb.cs156.example.controllers.FrontendProxyController");
+
+  @Value("${app.accessLog.sampleEvery:1}")
+  long sampleEvery = 1;
+
+  @Value("${app.accessLog.bufferSize:8192}")
+  int bufferSize = 8192;
+
+  private final Map<Method, Handler> handlers = new ConcurrentHashMap<>();
+  private final StringBuilder line = new StringBuilder(256);
+  AccessLogRingBuffer ring;
+  private Thread drainer;
+
+  @PostConstruct
+  void start() {
+    ring = new AccessLogRingBuffer(Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1);
+    drainer = new Thread(() -> ring.drainUntilInterrupted(this::write, TimeUnit.MILLISECONDS.toNanos(10)),
+        "access-log");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    drainer.interrupt();
+    drainer.join(TimeUnit.SECONDS.toMillis(5));
+    if (ring.getDropped() > 0) {
+      log.warn("{} access log lines were dropped because the buffer was full", ring.getDropped());
+    }
+  }
 
   @Before(pointcut)
   public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest().ifPresent(
-        request -> {
-          String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-          if (!stoplist.contains(declaringTypeName)) {
-            log.info("===== %s %s handled by %s in %s".formatted(request.getMethod(), request.getRequestURI(),
-                joinPoint.getSignature().getName(), declaringTypeName));
-          }
-        });
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+      return;
+    }
+    Handler handler = handler(((MethodSignature) joinPoint.getSignature()).getMethod());
+    if (!handler.logged || handler.calls.getAndIncrement() % Math.max(sampleEvery, 1) != 0) {
+      return;
+    }
+    HttpServletRequest request = servletAttributes.getRequest();
+    ring.offer(System.currentTimeMillis(), request.getMethod(), request.getRequestURI(),
+        handler.controller, handler.name);
+  }
+
+  Handler handler(Method method) {
+    Handler handler = handlers.get(method);
+    if (handler == null) {
+      Class<?> type = method.getDeclaringClass();
+      handler = handlers.computeIfAbsent(method,
+          m -> new Handler(!stoplist.contains(type.getName()), type.getName(), m.getName()));
+    }
+    return handler;
   }
 
-  private static Optional<HttpServletRequest> getCurrentHttpRequest() {
-    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
-        .filter(ServletRequestAttributes.class::isInstance)
-        .map(ServletRequestAttributes.class::cast)
-        .map(ServletRequestAttributes::getRequest);
+  // only called on the drainer thread
+  private void write(AccessLogRingBuffer.Event event) {
+    if (!accessLog.isInfoEnabled()) {
+      return;
+    }
+    line.setLength(0);
+    DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.getTimeMillis()), line);
+    line.append(" method=").append(event.getHttpMethod())
+        .append(" uri=").append(event.getUri())
+        .append(" handler=").append(event.getController()).append('.').append(event.getHandler());
+    accessLog.info(line.toString());
   }
 }
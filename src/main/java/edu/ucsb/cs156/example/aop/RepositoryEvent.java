@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.aop;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one Spring Data repository method call, emitted by
+ * JfrEventsAspect.
+ */
+@Name("edu.ucsb.cs156.example.RepositoryCall")
+@Label("Repository Call")
+@Category({ "Application", "Database" })
+@Description("A Spring Data repository method call")
+@StackTrace(false)
+public class RepositoryEvent extends jdk.jfr.Event {
+
+  @Label("Entity")
+  String entity;
+
+  @Label("Method")
+  String method;
+
+  @Label("Rows")
+  @Description("Entities returned (1 for a single entity, 0 for empty), or -1 if the result is not entities")
+  long rows;
+
+  @Label("SQL Statements")
+  @Description("SQL statements run during the call, if counted (see SqlStats), otherwise -1")
+  int statements;
+
+  @Label("Exception")
+  String exception;
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import edu.ucsb.cs156.example.jdbc.SqlStats;
+import edu.ucsb.cs156.example.tracing.Span;
+
+/**
+ * Adds a span for every controller handler and repository call to the
+ * current request's trace (see TracingFilter). Outside a traced request
+ * these are no-ops.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+  private final Map<Class<?>, String> entityNames = new ConcurrentHashMap<>();
+
+  @Around(LoggingAspect.pointcut)
+  public Object controllerSpan(ProceedingJoinPoint joinPoint) throws Throwable {
+    Span span = Span.start(joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+        + joinPoint.getSignature().getName());
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable t) {
+      span.recordException(t);
+      throw t;
+    } finally {
+      span.end();
+    }
+  }
+
+  @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object repositorySpan(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (Span.current() == null) {
+      return joinPoint.proceed();
+    }
+    String entity = entityNames.computeIfAbsent(joinPoint.getThis().getClass(),
+        c -> JfrEventsAspect.entityName(joinPoint.getThis()));
+    Span span = Span.start(entity + "Repository." + joinPoint.getSignature().getName());
+    span.setAttribute("db.entity", entity);
+    span.setAttribute("db.operation", joinPoint.getSignature().getName());
+    SqlStats stats = SqlStats.current();
+    int statementsBefore = stats != null ? stats.getStatements() : 0;
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable t) {
+      span.recordException(t);
+      throw t;
+    } finally {
+      if (stats != null) {
+        span.setAttribute("db.statements", stats.getStatements() - statementsBefore);
+      }
+      span.end();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import edu.ucsb.cs156.example.diagnostics.AllocationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Measures the bytes allocated by each API request (see AllocationFilter).
+ * On by default; app.allocations=false turns it off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.allocations", havingValue = "true", matchIfMissing = true)
+public class AllocationProfilingConfig {
+
+  @Bean
+  public FilterRegistrationBean<AllocationFilter> allocationFilter(MeterRegistry meterRegistry) {
+    FilterRegistrationBean<AllocationFilter> registration = new FilterRegistrationBean<>(
+        new AllocationFilter(meterRegistry));
+    // the outermost of our filters, ahead of TracingFilter (HIGHEST_PRECEDENCE + 5), so that what
+    // the other filters, tracing included, allocate for a request counts too
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
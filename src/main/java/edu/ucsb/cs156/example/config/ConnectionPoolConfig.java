@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.config;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.jdbc.AdaptivePoolSizer;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Resizes the connection pool with load between app.db.pool.minSize and
+ * app.db.pool.maxSize (see AdaptivePoolSizer). Off unless
+ * app.db.pool.adaptive=true, which the production profile sets.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.pool.adaptive", havingValue = "true")
+public class ConnectionPoolConfig {
+
+  @Value("${app.db.pool.minSize:2}")
+  int minSize = 2;
+
+  @Value("${app.db.pool.maxSize:6}")
+  int maxSize = 6;
+
+  @Value("${app.db.pool.growRatio:0.5}")
+  double growRatio = 0.5;
+
+  @Value("${app.db.pool.shrinkAfter:30}")
+  int shrinkAfter = 30;
+
+  @Bean
+  public AdaptivePoolSizer adaptivePoolSizer(DataSource dataSource, MeterRegistry meterRegistry)
+      throws SQLException {
+    if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+      throw new IllegalStateException("app.db.pool.adaptive needs a Hikari connection pool, not " + dataSource);
+    }
+    HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+    // so that connections above minSize are closed once idle, after the pool shrinks
+    if (pool.getMinimumIdle() > minSize) {
+      pool.setMinimumIdle(minSize);
+    }
+    return new AdaptivePoolSizer(pool, meterRegistry, minSize, maxSize, growRatio, shrinkAfter);
+  }
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import edu.ucsb.cs156.example.health.DatabaseHealthIndicator;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Health checks for /actuator/health/readiness (see the
+ * management.endpoint.health properties). The bean name makes Boot use
+ * DatabaseHealthIndicator as "db" instead of its own.
+ */
+@Configuration
+public class HealthConfig {
+
+  @Value("${app.health.db.timeoutMillis:1000}")
+  long timeoutMillis = 1000;
+
+  @Value("${app.health.db.degradedMillis:500}")
+  long degradedMillis = 500;
+
+  @Bean
+  public DatabaseHealthIndicator dbHealthIndicator(DataSource dataSource, MeterRegistry meterRegistry) {
+    return new DatabaseHealthIndicator(dataSource, meterRegistry, timeoutMillis, degradedMillis);
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import edu.ucsb.cs156.example.scheduling.RequestClass;
+import edu.ucsb.cs156.example.scheduling.RequestClassifier;
+import edu.ucsb.cs156.example.scheduling.RequestScheduler;
+import edu.ucsb.cs156.example.scheduling.RequestSchedulingFilter;
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+
+/**
+ * Limits how many API requests of each RequestClass run at once, so that
+ * admin bulk work cannot starve page views (see RequestScheduler). On by
+ * default; app.requests.scheduling=false turns it off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.requests.scheduling", havingValue = "true", matchIfMissing = true)
+public class RequestSchedulingConfig {
+
+  @Value("${app.requests.totalConcurrency:150}")
+  int totalConcurrency = 150;
+
+  @Value("${app.requests.interactive.maxConcurrent:150}")
+  int interactiveMaxConcurrent = 150;
+
+  @Value("${app.requests.interactive.maxQueued:200}")
+  int interactiveMaxQueued = 200;
+
+  @Value("${app.requests.write.maxConcurrent:40}")
+  int writeMaxConcurrent = 40;
+
+  @Value("${app.requests.write.maxQueued:40}")
+  int writeMaxQueued = 40;
+
+  @Value("${app.requests.admin.maxConcurrent:4}")
+  int adminMaxConcurrent = 4;
+
+  @Value("${app.requests.admin.maxQueued:16}")
+  int adminMaxQueued = 16;
+
+  @Value("${app.requests.maxWaitMillis:10000}")
+  long maxWaitMillis = 10000;
+
+  @Bean
+  public RequestScheduler requestScheduler() {
+    return new RequestScheduler(totalConcurrency, Map.of(
+        RequestClass.INTERACTIVE, new RequestScheduler.Limits(interactiveMaxConcurrent, interactiveMaxQueued),
+        RequestClass.WRITE, new RequestScheduler.Limits(writeMaxConcurrent, writeMaxQueued),
+        RequestClass.ADMIN, new RequestScheduler.Limits(adminMaxConcurrent, adminMaxQueued)),
+        Duration.ofMillis(maxWaitMillis));
+  }
+
+  @Bean
+  public FilterRegistrationBean<RequestSchedulingFilter> requestSchedulingFilter(
+      RequestScheduler requestScheduler, GrantedAuthoritiesService grantedAuthoritiesService) {
+    FilterRegistrationBean<RequestSchedulingFilter> registration = new FilterRegistrationBean<>(
+        new RequestSchedulingFilter(new RequestClassifier(grantedAuthoritiesService), requestScheduler));
+    // after springSecurityFilterChain, so roles are known, and after
+    // slowRequestFilter
+    registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 2);
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
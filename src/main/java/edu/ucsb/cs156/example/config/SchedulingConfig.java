@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled methods, which run background work such as the
+ * write-behind flush in UserProfileWriter.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -4,11 +4,9 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -22,17 +20,25 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
-import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.security.SessionTokenCodec;
+import edu.ucsb.cs156.example.security.SessionTokenFilter;
+import edu.ucsb.cs156.example.security.SessionTokenSuccessHandler;
+import edu.ucsb.cs156.example.security.SignedCookieAuthorizationRequestRepository;
+import edu.ucsb.cs156.example.services.AdminResolutionService;
+import edu.ucsb.cs156.example.services.AuthEventLogger;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import lombok.extern.slf4j.Slf4j;
 
 @Configuration
@@ -41,15 +47,42 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  AdminResolutionService adminResolution;
+
+  @Autowired
+  CurrentUserService currentUserService;
+
+  @Autowired
+  AuthEventLogger authEventLogger;
 
   @Autowired
-  UserRepository userRepository;
+  GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @Value("${app.auth.stateless:false}")
+  boolean stateless = false;
+
+  @Value("${app.auth.tokenSecret:}")
+  String tokenSecret = "";
+
+  @Value("${app.auth.tokenTtlSeconds:28800}")
+  long tokenTtlSeconds = 28800;
+
+  @Value("${app.auth.tokenMaxLifetimeSeconds:604800}")
+  long tokenMaxLifetimeSeconds = 604800;
+
+  @Value("${server.port:8080}")
+  int serverPort = 8080;
+
+  @Value("${management.server.port:-1}")
+  int managementPort = -1;
 
   @Override
   protected void configure(HttpSecurity http) throws Exception {
     http.authorizeRequests(authorize -> authorize
+        .antMatchers("/actuator/health", "/actuator/health/**").permitAll()
+        .requestMatchers(this::onPrivateManagementPort).permitAll()
+        .antMatchers("/actuator/**").hasRole("ADMIN")
         .anyRequest().permitAll())
         .exceptionHandling(handlingConfigurer -> handlingConfigurer
             .authenticationEntryPoint(new Http403ForbiddenEntryPoint()))
@@ -60,6 +93,40 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .logout(logout -> logout
             .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
             .logoutSuccessUrl("/"));
+    if (stateless) {
+      configureStatelessSessions(http);
+    }
+  }
+
+  /**
+   * Replaces the HttpSession with signed cookies (see the security package):
+   * one for the logged-in user, and one for the OAuth authorization request
+   * while a login is in progress. Any node holding AUTH_TOKEN_SECRET can
+   * then serve any request.
+   */
+  private void configureStatelessSessions(HttpSecurity http) throws Exception {
+    SessionTokenCodec codec = new SessionTokenCodec(tokenSecret);
+    Duration ttl = Duration.ofSeconds(tokenTtlSeconds);
+    Duration maxLifetime = Duration.ofSeconds(tokenMaxLifetimeSeconds);
+    http.sessionManagement(session -> session
+        .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .oauth2Login(oauth2 -> oauth2
+            .authorizationEndpoint(endpoint -> endpoint
+                .authorizationRequestRepository(new SignedCookieAuthorizationRequestRepository(codec)))
+            .successHandler(new SessionTokenSuccessHandler(codec, ttl, maxLifetime, currentUserService)))
+        .addFilterAfter(new SessionTokenFilter(codec, ttl, maxLifetime, grantedAuthoritiesService), SecurityContextPersistenceFilter.class)
+        .logout(logout -> logout
+            .deleteCookies(SessionTokenFilter.COOKIE_NAME));
+    log.info("stateless sessions enabled; session tokens are valid for {}, renewed for at most {}", ttl, maxLifetime);
+  }
+
+  /**
+   * Whether the request came in on management.server.port, when that is set
+   * apart from server.port; it is meant to be reachable only by the scraper,
+   * so actuator endpoints there do not require a login.
+   */
+  private boolean onPrivateManagementPort(HttpServletRequest request) {
+    return managementPort > 0 && managementPort != serverPort && request.getLocalPort() == managementPort;
   }
 
   @Override
@@ -72,13 +139,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
       Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
 
       authorities.forEach(authority -> {
-        log.info("********** authority={}", authority);
         mappedAuthorities.add(authority);
         if (OAuth2UserAuthority.class.isInstance(authority)) {
           OAuth2UserAuthority oauth2UserAuthority = (OAuth2UserAuthority) authority;
 
           Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-          log.info("********** userAttributes={}", userAttributes);
 
           String email = (String) userAttributes.get("email");
           if (getAdmin(email)) {
@@ -91,15 +156,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         }
 
       });
+      authEventLogger.event(AuthEventLogger.OAUTH_AUTHORITIES, () -> Map.of("authorities", mappedAuthorities));
       return mappedAuthorities;
     };
   }
 
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return adminResolution.isAdmin(email);
   }
 }
\ No newline at end of file
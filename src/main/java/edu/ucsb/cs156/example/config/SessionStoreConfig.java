@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import edu.ucsb.cs156.example.security.DatabaseSessionRepository;
+
+/**
+ * With app.session.store=database (SESSION_STORE=database), HttpSession
+ * state is kept in the application database instead of each node's heap,
+ * so the load balancer needs no sticky sessions and a node restart does not
+ * log anyone out. Otherwise the servlet container's sessions are used.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.session.store", havingValue = "database")
+@EnableSpringHttpSession
+public class SessionStoreConfig {
+
+  @Bean
+  public DatabaseSessionRepository sessionRepository() {
+    return new DatabaseSessionRepository();
+  }
+}
@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import edu.ucsb.cs156.example.diagnostics.SlowRequestFilter;
+import edu.ucsb.cs156.example.diagnostics.SlowRequestJournal;
+
+/**
+ * Records slow API requests in SlowRequestJournal (see
+ * /api/admin/slowRequests). On by default; app.slowRequests=false turns it
+ * off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.slowRequests", havingValue = "true", matchIfMissing = true)
+public class SlowRequestConfig {
+
+  @Value("${app.slowRequests.redact:password,token,secret,code,state,key,credential}")
+  List<String> redact = List.of("password", "token", "secret", "code", "state", "key", "credential");
+
+  @Bean
+  public FilterRegistrationBean<SlowRequestFilter> slowRequestFilter(SlowRequestJournal slowRequestJournal) {
+    FilterRegistrationBean<SlowRequestFilter> registration = new FilterRegistrationBean<>(
+        new SlowRequestFilter(slowRequestJournal, redact));
+    // after springSecurityFilterChain, so the caller is known, and before
+    // requestSchedulingFilter, so time spent waiting to be admitted counts
+    registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
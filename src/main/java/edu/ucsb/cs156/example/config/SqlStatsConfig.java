@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import edu.ucsb.cs156.example.jdbc.CountingDataSource;
+import edu.ucsb.cs156.example.jdbc.SqlStatsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts SQL statements, rows and JDBC time per request (see
+ * SqlStatsFilter). On by default; app.sql.stats=false turns it off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql.stats", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+  @Value("${app.sql.headers:false}")
+  boolean headers = false;
+
+  @Value("${app.sql.statementBudget:20}")
+  int statementBudget = 20;
+
+  @Value("${app.sql.repeatThreshold:5}")
+  int repeatThreshold = 5;
+
+  @Bean
+  public static BeanPostProcessor countingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+          return new CountingDataSource(dataSource);
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(MeterRegistry meterRegistry) {
+    FilterRegistrationBean<SqlStatsFilter> registration = new FilterRegistrationBean<>(
+        new SqlStatsFilter(meterRegistry, headers, statementBudget, repeatThreshold));
+    // early, so that the user lookups done during authentication are counted too
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+    return registration;
+  }
+}
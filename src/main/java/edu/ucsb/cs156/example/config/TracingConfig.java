@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.tracing.JsonLinesSpanExporter;
+import edu.ucsb.cs156.example.tracing.SpanExporter;
+import edu.ucsb.cs156.example.tracing.Tracer;
+import edu.ucsb.cs156.example.tracing.TracingFilter;
+
+/**
+ * Traces requests (see TracingFilter and TracingAspect) and, unless
+ * another SpanExporter bean is defined, writes the spans to
+ * logs/traces.jsonl. On by default; app.tracing=false turns it off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.tracing", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+  @Value("${app.tracing.serviceName:team02}")
+  String serviceName = "team02";
+
+  @Value("${app.tracing.sampleRatio:1.0}")
+  double sampleRatio = 1.0;
+
+  private Map<String, String> resource;
+
+  private synchronized Map<String, String> resource() {
+    if (resource != null) {
+      return resource;
+    }
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "unknown";
+    }
+    // on Heroku, DYNO tells the app nodes apart ("web.1", "web.2")
+    String instance = System.getenv().getOrDefault("DYNO", host);
+    resource = Map.of("service.name", serviceName, "host.name", host, "service.instance.id", instance);
+    return resource;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(SpanExporter.class)
+  public SpanExporter jsonLinesSpanExporter(ObjectMapper mapper) {
+    return new JsonLinesSpanExporter(mapper, resource());
+  }
+
+  @Bean
+  public Tracer tracer(SpanExporter spanExporter) {
+    return new Tracer(spanExporter, sampleRatio);
+  }
+
+  @Bean
+  public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+    FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+    // outside every filter but AllocationFilter (see AllocationProfilingConfig), so the server span
+    // covers the rest of the request, including the SQL statistics, security and scheduling filters
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+    return registration;
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.services.FlightRecorderService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+@Api(description="JDK Flight Recorder recordings (admin only)")
+@RequestMapping("/api/admin/jfr")
+@RestController
+public class JfrController extends ApiController {
+
+    @Autowired
+    FlightRecorderService flightRecorderService;
+
+    @ApiOperation(value = "Get the state of the recording")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public ResponseEntity<Object> status() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    @ApiOperation(value = "Start a recording")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/start")
+    public ResponseEntity<Object> start(
+            @ApiParam("JFR settings: default (low overhead) or profile") @RequestParam(defaultValue = "default") String settings)
+            throws IOException, ParseException {
+        if (!FlightRecorderService.SETTINGS.contains(settings)) {
+            return ResponseEntity.badRequest()
+                    .body(genericMessage("settings must be one of %s".formatted(FlightRecorderService.SETTINGS)));
+        }
+        try {
+            return ResponseEntity.ok(flightRecorderService.start(settings));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(genericMessage(e.getMessage()));
+        }
+    }
+
+    @ApiOperation(value = "Stop the recording")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/stop")
+    public ResponseEntity<Object> stop() throws IOException {
+        try {
+            return ResponseEntity.ok(flightRecorderService.stop());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(genericMessage(e.getMessage()));
+        }
+    }
+
+    @ApiOperation(value = "Download the last recording, or a snapshot of the running one, as a .jfr file")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/recording")
+    public ResponseEntity<Resource> recording() throws IOException {
+        Path file = flightRecorderService.recordingFile();
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+}
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Major;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.MajorRepository;
+import edu.ucsb.cs156.example.services.MajorTreeService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -10,6 +11,8 @@ import io.swagger.annotations.ApiParam;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -30,6 +33,9 @@ public class MajorsController extends ApiController {
     @Autowired
     MajorRepository MajorRepository;
 
+    @Autowired
+    MajorTreeService majorTree;
+
     @ApiOperation(value = "List all majors")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -38,6 +44,16 @@ public class MajorsController extends ApiController {
         return majors;
     }
 
+    @ApiOperation(value = "List majors grouped by department and then by degree pursued")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/tree")
+    public ResponseEntity<byte[]> tree()
+            throws JsonProcessingException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(majorTree.treeJson());
+    }
+
     @ApiOperation(value = "Get a single major")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -64,6 +80,7 @@ public class MajorsController extends ApiController {
         Major.setDegreePursued(degreePursued);
 
         Major savedMajor = MajorRepository.save(Major);
+        majorTree.invalidate();
 
         return savedMajor;
     }
@@ -77,6 +94,7 @@ public class MajorsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(Major.class, id));
 
         MajorRepository.delete(Major);
+        majorTree.invalidate();
         return genericMessage("Major with id %s deleted".formatted(id));
     }
 
@@ -95,6 +113,7 @@ public class MajorsController extends ApiController {
         Major.setDegreePursued(incoming.getDegreePursued());
 
         MajorRepository.save(Major);
+        majorTree.invalidate();
 
         return Major;
     }
@@ -2,7 +2,10 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.RoachCounterPoint;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.RestaurantLeaderboardService;
+import edu.ucsb.cs156.example.services.RoachCounterHistoryService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -11,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +27,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.time.Instant;
+import java.util.List;
+
 
 @Api(description = "Restaurants")
 @RequestMapping("/api/restaurants")
@@ -33,6 +40,12 @@ public class RestaurantsController extends ApiController {
     @Autowired
     RestaurantRepository restaurantRepository;
 
+    @Autowired
+    RestaurantLeaderboardService restaurantLeaderboard;
+
+    @Autowired
+    RoachCounterHistoryService roachCounterHistory;
+
     @ApiOperation(value = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -41,6 +54,26 @@ public class RestaurantsController extends ApiController {
         return restaurants;
     }
 
+    @ApiOperation(value = "List the restaurants with the most roaches, optionally for a single cuisine")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/leaderboard")
+    public List<Restaurant> leaderboard(
+            @ApiParam("number of restaurants to return (at most 100)") @RequestParam(defaultValue = "20") int n,
+            @ApiParam("cuisine (optional)") @RequestParam(required = false) String cuisine) {
+        return restaurantLeaderboard.top(n, cuisine);
+    }
+
+    @ApiOperation(value = "Get the history of a restaurant's roach counter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/history")
+    public List<RoachCounterPoint> history(
+            @ApiParam("id") @RequestParam Long id,
+            @ApiParam("start (in iso format, e.g. 2022-01-03T00:00:00Z; optional)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @ApiParam("end (in iso format, e.g. 2022-01-03T00:00:00Z; optional)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @ApiParam("resample to one point per this many seconds (optional)") @RequestParam(defaultValue = "0") long step) {
+        return roachCounterHistory.history(id, from, to, step);
+    }
+
     @ApiOperation(value = "Get a single restaurant")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -72,6 +105,8 @@ public class RestaurantsController extends ApiController {
         restaurant.setRoachCounter(roachCounter);
 
         Restaurant savedrestaurant = restaurantRepository.save(restaurant);
+        restaurantLeaderboard.update(savedrestaurant);
+        roachCounterHistory.record(savedrestaurant.getId(), savedrestaurant.getRoachCounter());
 
         return savedrestaurant;
     }
@@ -85,6 +120,8 @@ public class RestaurantsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
         restaurantRepository.delete(restaurant);
+        restaurantLeaderboard.remove(id);
+        roachCounterHistory.forget(id);
         return genericMessage("Restaurant with id %s deleted".formatted(id));
     }
 
@@ -98,11 +135,17 @@ public class RestaurantsController extends ApiController {
         Restaurant restaurant = restaurantRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
+        boolean roachCounterChanged = restaurant.getRoachCounter() != incoming.getRoachCounter();
+
         restaurant.setName(incoming.getName());
         restaurant.setCuisine(incoming.getCuisine());
         restaurant.setRoachCounter(incoming.getRoachCounter());
 
         restaurantRepository.save(restaurant);
+        restaurantLeaderboard.update(restaurant);
+        if (roachCounterChanged) {
+            roachCounterHistory.record(id, restaurant.getRoachCounter());
+        }
 
         return restaurant;
     }
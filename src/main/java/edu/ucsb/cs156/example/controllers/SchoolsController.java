@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Schools;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.SchoolsRepository;
+import edu.ucsb.cs156.example.services.SchoolsIndexService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -23,6 +24,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.Map;
+
 
 @Api(description = "Schools")
 @RequestMapping("/api/schools")
@@ -33,6 +37,9 @@ public class SchoolsController extends ApiController {
     @Autowired
     SchoolsRepository schoolsRepository;
 
+    @Autowired
+    SchoolsIndexService schoolsIndex;
+
     @ApiOperation(value = "List all schools")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -41,6 +48,30 @@ public class SchoolsController extends ApiController {
         return schools;
     }
 
+    @ApiOperation(value = "List the schools whose grade range includes a grade, optionally in one district")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/servingGrade")
+    public List<Schools> servingGrade(
+            @ApiParam("grade (kindergarten is 0, pre-kindergarten is -1)") @RequestParam int grade,
+            @ApiParam("district (optional)") @RequestParam(required = false) String district) {
+        return schoolsIndex.servingGrade(grade, district);
+    }
+
+    @ApiOperation(value = "List the schools in a district")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/byDistrict")
+    public List<Schools> byDistrict(
+            @ApiParam("district") @RequestParam String district) {
+        return schoolsIndex.byDistrict(district);
+    }
+
+    @ApiOperation(value = "Count the schools in each district")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/districts")
+    public Map<String, Integer> districts() {
+        return schoolsIndex.districtCounts();
+    }
+
     @ApiOperation(value = "Get a single school")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -68,6 +99,7 @@ public class SchoolsController extends ApiController {
         school.setGradeRange(gradeRange);
 
         Schools savedSchools = schoolsRepository.save(school);
+        schoolsIndex.update(savedSchools);
 
         return savedSchools;
     }
@@ -81,6 +113,7 @@ public class SchoolsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(Schools.class, id));
 
         schoolsRepository.delete(school);
+        schoolsIndex.remove(id);
         return genericMessage("School with id %s deleted".formatted(id));
     }
 
@@ -99,6 +132,7 @@ public class SchoolsController extends ApiController {
         school.setGradeRange(incoming.getGradeRange());
 
         schoolsRepository.save(school);
+        schoolsIndex.update(school);
 
         return school;
     }
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.diagnostics.SlowRequestJournal;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+@Api(description = "Slow requests (admin only)")
+@RequestMapping("/api/admin/slowRequests")
+@RestController
+public class SlowRequestsController extends ApiController {
+
+    @Autowired
+    SlowRequestJournal slowRequestJournal;
+
+    @ApiOperation(value = "Get the slowest requests since startup, and recent requests over the threshold (newest first)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public Map<String, Object> slowRequests() {
+        return Map.of(
+            "thresholdMillis", slowRequestJournal.getThresholdMillis(),
+            "slowest", slowRequestJournal.getSlowest(),
+            "recent", slowRequestJournal.getRecent());
+    }
+}
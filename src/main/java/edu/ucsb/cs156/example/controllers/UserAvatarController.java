@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.Avatar;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AvatarService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import lombok.extern.slf4j.Slf4j;
+
+@Api(description="User profile pictures")
+@RequestMapping("/api/users")
+@RestController
+@Slf4j
+public class UserAvatarController extends ApiController {
+
+    static final CacheControl AVATAR_CACHE_CONTROL = CacheControl.maxAge(7, TimeUnit.DAYS).cachePrivate();
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    AvatarService avatarService;
+
+    @ApiOperation(value = "Get a user's profile picture as a PNG, resized to 32, 96 or 256 pixels")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/{id}/avatar")
+    public ResponseEntity<byte[]> avatar(
+            @ApiParam("id of the user") @PathVariable long id,
+            @ApiParam("size in pixels (rounded up to 32, 96 or 256)") @RequestParam(defaultValue = "96") int size,
+            WebRequest request) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(User.class, id));
+        if (user.getPictureUrl() == null || user.getPictureUrl().isBlank()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Avatar avatar;
+        try {
+            avatar = avatarService.getAvatar(user.getPictureUrl(), size);
+        } catch (IOException e) {
+            log.warn("could not fetch picture for user {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+
+        String etag = "\"" + avatar.getHash() + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(AVATAR_CACHE_CONTROL)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(AVATAR_CACHE_CONTROL)
+                .contentType(MediaType.IMAGE_PNG)
+                .body(avatar.getBytes());
+    }
+}
@@ -8,12 +8,16 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSearchResults;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserSearchService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
 
 @Api(description="User information (admin only)")
 @RequestMapping("/api/admin/users")
@@ -25,6 +29,9 @@ public class UsersController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
+    @Autowired
+    UserSearchService userSearchService;
+
     @ApiOperation(value = "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("")
@@ -34,4 +41,14 @@ public class UsersController extends ApiController {
         String body = mapper.writeValueAsString(users);
         return ResponseEntity.ok().body(body);
     }
+
+    @ApiOperation(value = "Search users by prefix of email, full name or family name")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/search")
+    public UserSearchResults search(
+            @ApiParam("prefix to search for (case and accents are ignored)") @RequestParam(defaultValue = "") String q,
+            @ApiParam("maximum number of users to return (at most 100)") @RequestParam(defaultValue = "20") int limit,
+            @ApiParam("next from the previous page") @RequestParam(required = false) String after) {
+        return userSearchService.search(q, limit, after);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records the bytes each API request allocated on its thread in
+ * app.controller.allocations, tagged by controller and method like
+ * app.controller.requests. Unlike the controller aspects, it sees the whole
+ * request: filters, argument binding, and writing the response body, which
+ * for handlers returning entity lists is usually most of it.
+ */
+public class AllocationFilter extends OncePerRequestFilter {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+  public AllocationFilter(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    long start = ThreadAllocations.current();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      long allocated = ThreadAllocations.current() - start;
+      if (start >= 0
+          && request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+        summary(handler).record(allocated);
+      }
+    }
+  }
+
+  private DistributionSummary summary(HandlerMethod handler) {
+    return summaries.computeIfAbsent(handler.getMethod(), method -> DistributionSummary
+        .builder("app.controller.allocations")
+        .description("Bytes allocated by the request thread while handling a request")
+        .baseUnit("bytes")
+        .tag("controller", handler.getBeanType().getSimpleName())
+        .tag("method", method.getName())
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry));
+  }
+}
@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.jdbc.SqlStats;
+import edu.ucsb.cs156.example.models.SlowRequest;
+
+/**
+ * Times each API request and hands the ones SlowRequestJournal wants to
+ * keep to it, with their handler, parameters, caller role and SQL time.
+ * Must run after the Spring Security filter chain (so the caller is known)
+ * and inside SqlStatsFilter.
+ *
+ * Query and path parameters whose name contains one of redactedNames are
+ * replaced by "[redacted]"; other values are cut to MAX_VALUE_LENGTH.
+ */
+public class SlowRequestFilter extends OncePerRequestFilter {
+
+  static final int MAX_VALUE_LENGTH = 64;
+  static final String REDACTED = "[redacted]";
+
+  private final SlowRequestJournal journal;
+  private final List<String> redactedNames;
+
+  public SlowRequestFilter(SlowRequestJournal journal, List<String> redactedNames) {
+    this.journal = journal;
+    this.redactedNames = redactedNames.stream().map(name -> name.toLowerCase(Locale.ROOT)).toList();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } finally {
+      long totalNanos = System.nanoTime() - start;
+      if (journal.wouldKeep(totalNanos)) {
+        SqlStats stats = SqlStats.current();
+        journal.record(SlowRequest.builder()
+            .time(Instant.now())
+            .method(request.getMethod())
+            .uri(request.getRequestURI())
+            .handler(handler(request))
+            .parameters(parameters(request))
+            .role(role())
+            .status(failed ? 500 : response.getStatus())
+            .totalMillis(TimeUnit.NANOSECONDS.toMillis(totalNanos))
+            .dbMillis(stats != null ? stats.getMillis() : 0)
+            .statements(stats != null ? stats.getStatements() : 0)
+            .build());
+      }
+    }
+  }
+
+  private static String handler(HttpServletRequest request) {
+    if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method) {
+      return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+    }
+    return null;
+  }
+
+  Map<String, String> parameters(HttpServletRequest request) {
+    Map<String, String> parameters = new TreeMap<>();
+    if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables) {
+      variables.forEach((name, value) -> parameters.put(name.toString(), redact(name.toString(), value.toString())));
+    }
+    request.getParameterMap().forEach((name, values) -> parameters.put(name, redact(name, String.join(",", values))));
+    return parameters;
+  }
+
+  private String redact(String name, String value) {
+    String lowerCase = name.toLowerCase(Locale.ROOT);
+    for (String redacted : redactedNames) {
+      if (lowerCase.contains(redacted)) {
+        return REDACTED;
+      }
+    }
+    return value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) + "..." : value;
+  }
+
+  private static String role() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !authentication.isAuthenticated()) {
+      return "ANONYMOUS";
+    }
+    String role = "ANONYMOUS";
+    for (GrantedAuthority authority : authentication.getAuthorities()) {
+      if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+        return "ADMIN";
+      }
+      if ("ROLE_USER".equals(authority.getAuthority())) {
+        role = "USER";
+      }
+    }
+    return role;
+  }
+}
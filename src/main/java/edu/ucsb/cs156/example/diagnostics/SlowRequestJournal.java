@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.ucsb.cs156.example.models.SlowRequest;
+
+/**
+ * Keeps, without locks, the app.slowRequests.slowest slowest requests
+ * since startup, and the last app.slowRequests.recent requests that took
+ * longer than app.slowRequests.thresholdMillis (older ones are
+ * overwritten).
+ *
+ * Callers check wouldKeep() before building a SlowRequest, so fast
+ * requests cost one volatile read once the slowest table is full.
+ */
+@Component
+public class SlowRequestJournal {
+
+  @Value("${app.slowRequests.thresholdMillis:1000}")
+  long thresholdMillis = 1000;
+
+  @Value("${app.slowRequests.slowest:20}")
+  int slowestSize = 20;
+
+  @Value("${app.slowRequests.recent:256}")
+  int recentSize = 256;
+
+  // slots are only ever replaced by slower requests, so a floor computed
+  // from any snapshot is never above the real one
+  private AtomicReferenceArray<SlowRequest> slowest;
+  // the shortest totalMillis in slowest, or -1 while it has free slots
+  private volatile long slowestFloor = -1;
+
+  private AtomicReferenceArray<SlowRequest> recent;
+  private final AtomicLong recentCount = new AtomicLong();
+
+  @PostConstruct
+  public void init() {
+    slowest = new AtomicReferenceArray<>(slowestSize);
+    recent = new AtomicReferenceArray<>(Math.max(1, recentSize));
+  }
+
+  public long getThresholdMillis() {
+    return thresholdMillis;
+  }
+
+  public boolean wouldKeep(long totalNanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    return millis > slowestFloor || millis >= thresholdMillis;
+  }
+
+  public void record(SlowRequest request) {
+    if (request.getTotalMillis() >= thresholdMillis) {
+      long index = recentCount.getAndIncrement();
+      recent.set((int) (index % recent.length()), request);
+    }
+    while (request.getTotalMillis() > slowestFloor) {
+      int shortest = -1;
+      SlowRequest shortestRequest = null;
+      for (int i = 0; i < slowest.length(); i++) {
+        SlowRequest slot = slowest.get(i);
+        if (slot == null) {
+          shortest = i;
+          shortestRequest = null;
+          break;
+        }
+        if (shortestRequest == null || slot.getTotalMillis() < shortestRequest.getTotalMillis()) {
+          shortest = i;
+          shortestRequest = slot;
+        }
+      }
+      if (shortest < 0) {
+        return;
+      }
+      if (shortestRequest != null && request.getTotalMillis() <= shortestRequest.getTotalMillis()) {
+        // slowestFloor was stale
+        updateFloor();
+        return;
+      }
+      if (slowest.compareAndSet(shortest, shortestRequest, request)) {
+        updateFloor();
+        return;
+      }
+      // another thread changed the slot; look again
+    }
+  }
+
+  private void updateFloor() {
+    long floor = Long.MAX_VALUE;
+    for (int i = 0; i < slowest.length(); i++) {
+      SlowRequest slot = slowest.get(i);
+      if (slot == null) {
+        slowestFloor = -1;
+        return;
+      }
+      floor = Math.min(floor, slot.getTotalMillis());
+    }
+    slowestFloor = floor;
+  }
+
+  /** The slowest requests, slowest first. */
+  public List<SlowRequest> getSlowest() {
+    List<SlowRequest> requests = new ArrayList<>();
+    for (int i = 0; i < slowest.length(); i++) {
+      SlowRequest slot = slowest.get(i);
+      if (slot != null) {
+        requests.add(slot);
+      }
+    }
+    requests.sort(Comparator.comparingLong(SlowRequest::getTotalMillis).reversed());
+    return requests;
+  }
+
+  /** The requests over the threshold, newest first. */
+  public List<SlowRequest> getRecent() {
+    long count = recentCount.get();
+    int size = (int) Math.min(count, recent.length());
+    List<SlowRequest> requests = new ArrayList<>(size);
+    for (long index = count - 1; index >= count - size; index--) {
+      SlowRequest slot = recent.get((int) (index % recent.length()));
+      if (slot != null) {
+        requests.add(slot);
+      }
+    }
+    return requests;
+  }
+}
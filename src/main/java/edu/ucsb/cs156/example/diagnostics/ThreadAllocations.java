@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Reads the JVM's count of bytes allocated by the current thread, which
+ * HotSpot keeps anyway (it is the sum of the thread's allocation buffers),
+ * so reading it costs a few nanoseconds. The difference between two reads
+ * on the same thread is what the code in between allocated.
+ */
+public final class ThreadAllocations {
+
+  private static final ThreadMXBean THREADS = threads();
+
+  private ThreadAllocations() {
+  }
+
+  private static ThreadMXBean threads() {
+    if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()) {
+      if (!threads.isThreadAllocatedMemoryEnabled()) {
+        threads.setThreadAllocatedMemoryEnabled(true);
+      }
+      return threads;
+    }
+    return null;
+  }
+
+  public static boolean isSupported() {
+    return THREADS != null;
+  }
+
+  /** Bytes allocated by the current thread since it started, or -1 if the JVM does not count them. */
+  public static long current() {
+    return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+  }
+}
@@ -5,6 +5,8 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +18,7 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "schools")
+@Table(indexes = @Index(name = "schools_district_idx", columnList = "district"))
 public class Schools {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
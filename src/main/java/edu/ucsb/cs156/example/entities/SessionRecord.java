@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One HttpSession, stored by DatabaseSessionRepository when
+ * app.session.store=database. Times are epoch milliseconds; attributeBytes
+ * holds the deflated, Java-serialized attribute map.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "http_sessions")
+@Table(indexes = {
+    @Index(name = "http_sessions_session_id_idx", columnList = "sessionId", unique = true),
+    @Index(name = "http_sessions_expiry_time_idx", columnList = "expiryTime") })
+public class SessionRecord {
+  @Id
+  private String primaryId;
+  private String sessionId;
+  private long creationTime;
+  private long lastAccessedTime;
+  private int maxInactiveSeconds;
+  private long expiryTime;
+  @Column(length = 1048576)
+  private byte[] attributeBytes;
+}
@@ -9,12 +9,17 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import java.time.Instant;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Builder
 @Entity(name = "users")
+@Table(indexes = @Index(name = "users_email_idx", columnList = "email", unique = true))
 public class User {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,4 +34,5 @@ public class User {
   private String locale;
   private String hostedDomain;
   private boolean admin;
+  private Instant lastLogin;
 }
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.health;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import edu.ucsb.cs156.example.services.MajorTreeService;
+import edu.ucsb.cs156.example.services.SchoolsIndexService;
+import edu.ucsb.cs156.example.services.UserSearchService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the in-memory indexes that would otherwise be loaded by the first
+ * request to use them, once the application has started, and reports
+ * OUT_OF_SERVICE until that is done (it is part of the readiness group).
+ *
+ * A cache that fails to load is reported in the details but does not keep
+ * the node out of service: it is loaded on first use as before, and the
+ * "db" indicator shows why the database could not be read.
+ */
+@Slf4j
+@Component
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+  @Autowired
+  UserSearchService userSearch;
+
+  @Autowired
+  SchoolsIndexService schoolsIndex;
+
+  @Autowired
+  MajorTreeService majorTree;
+
+  private volatile Map<String, String> caches;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    long start = System.nanoTime();
+    Map<String, String> caches = new LinkedHashMap<>();
+    warmUp(caches, "userSearch", userSearch::warmUp);
+    warmUp(caches, "schoolsIndex", schoolsIndex::warmUp);
+    warmUp(caches, "majorTree", majorTree::treeJson);
+    this.caches = caches;
+    log.info("caches warmed up in {} ms: {}", (System.nanoTime() - start) / 1_000_000, caches);
+  }
+
+  private interface Loader {
+    void load() throws Exception;
+  }
+
+  private static void warmUp(Map<String, String> caches, String name, Loader loader) {
+    try {
+      loader.load();
+      caches.put(name, "loaded");
+    } catch (Exception e) {
+      log.warn("could not warm up {}: {}", name, e.toString());
+      caches.put(name, "failed: " + e);
+    }
+  }
+
+  @Override
+  public Health health() {
+    Map<String, String> caches = this.caches;
+    if (caches == null) {
+      return Health.outOfService().withDetail("reason", "caches not warmed up yet").build();
+    }
+    return Health.up().withDetails(caches).build();
+  }
+}
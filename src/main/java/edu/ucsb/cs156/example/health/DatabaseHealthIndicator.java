@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.health;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replaces Boot's "db" health indicator with one suited to a readiness
+ * probe. The database is
+ *
+ * <ul>
+ * <li>DOWN if a connection could not be checked out and validated by the
+ * database (Connection.isValid) within timeoutMillis;</li>
+ * <li>DEGRADED if every pooled connection is busy and requests are waiting
+ * for one (the check is then skipped, rather than queue behind them), or if
+ * the 99th percentile of these round trips, or of the time requests waited
+ * for a connection (hikaricp.connections.acquire), is over
+ * degradedMillis;</li>
+ * <li>UP otherwise.</li>
+ * </ul>
+ *
+ * The round trip runs on its own thread so that a hung database cannot hang
+ * the probe; while it has not returned, later checks wait for it rather
+ * than start another.
+ */
+@Slf4j
+public class DatabaseHealthIndicator extends AbstractHealthIndicator {
+
+  public static final Status DEGRADED = new Status("DEGRADED");
+
+  private final DataSource dataSource;
+  private final MeterRegistry meterRegistry;
+  private final long timeoutMillis;
+  private final long degradedMillis;
+  private final Timer roundTrips;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "db-health");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private Future<Long> pending;
+
+  public DatabaseHealthIndicator(DataSource dataSource, MeterRegistry meterRegistry, long timeoutMillis,
+      long degradedMillis) {
+    super("Database health check failed");
+    this.dataSource = dataSource;
+    this.meterRegistry = meterRegistry;
+    this.timeoutMillis = timeoutMillis;
+    this.degradedMillis = degradedMillis;
+    this.roundTrips = Timer.builder("app.db.roundtrip")
+        .description("Time to check out a connection and validate it with the database, from the health check")
+        .publishPercentiles(0.99)
+        .register(meterRegistry);
+  }
+
+  @Override
+  protected synchronized void doHealthCheck(Health.Builder builder) throws Exception {
+    HikariDataSource pool = pool();
+    HikariPoolMXBean poolBean = pool == null ? null : pool.getHikariPoolMXBean();
+    if (poolBean != null) {
+      int active = poolBean.getActiveConnections();
+      int waiting = poolBean.getThreadsAwaitingConnection();
+      builder.withDetail("pool", Map.of(
+          "active", active,
+          "idle", poolBean.getIdleConnections(),
+          "waiting", waiting,
+          "max", pool.getMaximumPoolSize()));
+      if (waiting > 0 && active >= pool.getMaximumPoolSize()) {
+        builder.status(DEGRADED).withDetail("reason", "connection pool saturated");
+        return;
+      }
+    }
+
+    if (pending == null || pending.isDone()) {
+      pending = executor.submit(this::roundTrip);
+    }
+    long nanos;
+    try {
+      nanos = pending.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      builder.down().withDetail("reason", "no answer within " + timeoutMillis + " ms");
+      return;
+    } catch (ExecutionException e) {
+      builder.down(e.getCause());
+      return;
+    }
+
+    double p99 = Math.max(p99Millis(roundTrips), p99Millis(pool == null ? null
+        : meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.getPoolName()).timer()));
+    builder.withDetail("roundTripMillis", TimeUnit.NANOSECONDS.toMillis(nanos))
+        .withDetail("p99Millis", Math.round(p99));
+    if (p99 > degradedMillis) {
+      builder.status(DEGRADED).withDetail("reason", "99th percentile latency over " + degradedMillis + " ms");
+    } else {
+      builder.up();
+    }
+  }
+
+  private long roundTrip() throws SQLException {
+    long start = System.nanoTime();
+    try (Connection connection = dataSource.getConnection()) {
+      if (!connection.isValid((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)))) {
+        throw new SQLException("connection failed validation");
+      }
+    }
+    long nanos = System.nanoTime() - start;
+    roundTrips.record(nanos, TimeUnit.NANOSECONDS);
+    return nanos;
+  }
+
+  static double p99Millis(Timer timer) {
+    if (timer != null) {
+      for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+        if (value.percentile() == 0.99) {
+          return value.value(TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+    return 0;
+  }
+
+  private HikariDataSource pool() {
+    try {
+      // CountingDataSource passes unwrap through to the pool
+      return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+    } catch (SQLException e) {
+      log.debug("could not unwrap {}: {}", dataSource, e.getMessage());
+      return null;
+    }
+  }
+}
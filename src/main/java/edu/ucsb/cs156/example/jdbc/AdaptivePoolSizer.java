@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resizes a Hikari pool between minSize and maxSize according to how long
+ * requests wait for a connection compared to how long they then hold it
+ * (both from Hikari's hikaricp.connections.acquire and .usage timers).
+ *
+ * Every interval, the pool grows by a quarter (at least one connection)
+ * if an acquire timed out, or if threads are waiting and the mean wait was
+ * more than growRatio times the mean hold time: more connections would
+ * have served them sooner. It shrinks by one connection once nobody has
+ * waited and at most half the pool was busy for shrinkAfter intervals in a
+ * row, so a quarter-start spike is followed by a slow decay rather than
+ * oscillation.
+ */
+@Slf4j
+public class AdaptivePoolSizer {
+
+  private final HikariDataSource pool;
+  private final MeterRegistry meterRegistry;
+  private final int minSize;
+  private final int maxSize;
+  private final double growRatio;
+  private final int shrinkAfter;
+
+  private double lastAcquireNanos;
+  private long lastAcquireCount;
+  private double lastUsageNanos;
+  private long lastUsageCount;
+  private double lastTimeouts;
+  private int quietIntervals;
+
+  public AdaptivePoolSizer(HikariDataSource pool, MeterRegistry meterRegistry, int minSize, int maxSize,
+      double growRatio, int shrinkAfter) {
+    if (minSize < 1 || maxSize < minSize) {
+      throw new IllegalArgumentException("need 1 <= minSize <= maxSize, got " + minSize + ", " + maxSize);
+    }
+    this.pool = pool;
+    this.meterRegistry = meterRegistry;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.growRatio = growRatio;
+    this.shrinkAfter = shrinkAfter;
+  }
+
+  @Scheduled(fixedDelayString = "${app.db.pool.intervalMillis:10000}")
+  public synchronized void adjust() {
+    HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+    if (bean == null) {
+      // pool not started yet
+      return;
+    }
+
+    Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.getPoolName()).timer();
+    Timer usage = meterRegistry.find("hikaricp.connections.usage").tag("pool", pool.getPoolName()).timer();
+    Counter timeouts = meterRegistry.find("hikaricp.connections.timeout").tag("pool", pool.getPoolName()).counter();
+    if (acquire == null || usage == null) {
+      return;
+    }
+    double acquireNanos = acquire.totalTime(TimeUnit.NANOSECONDS);
+    long acquireCount = acquire.count();
+    double usageNanos = usage.totalTime(TimeUnit.NANOSECONDS);
+    long usageCount = usage.count();
+    double timeoutCount = timeouts == null ? 0 : timeouts.count();
+
+    double meanWait = mean(acquireNanos - lastAcquireNanos, acquireCount - lastAcquireCount);
+    double meanHold = mean(usageNanos - lastUsageNanos, usageCount - lastUsageCount);
+    boolean timedOut = timeoutCount > lastTimeouts;
+    lastAcquireNanos = acquireNanos;
+    lastAcquireCount = acquireCount;
+    lastUsageNanos = usageNanos;
+    lastUsageCount = usageCount;
+    lastTimeouts = timeoutCount;
+
+    int size = pool.getMaximumPoolSize();
+    int waiting = bean.getThreadsAwaitingConnection();
+    int target = size;
+    if (timedOut || (waiting > 0 && meanWait > growRatio * meanHold)) {
+      quietIntervals = 0;
+      target = Math.min(maxSize, size + Math.max(1, size / 4));
+    } else if (waiting == 0 && bean.getActiveConnections() <= size / 2) {
+      if (++quietIntervals >= shrinkAfter) {
+        quietIntervals = 0;
+        target = Math.max(minSize, size - 1);
+      }
+    } else {
+      quietIntervals = 0;
+    }
+    // also brings a pool configured outside the bounds back within them
+    target = Math.max(minSize, Math.min(maxSize, target));
+
+    if (target != size) {
+      log.info("resizing pool {} from {} to {} connections (waiting {}, mean wait {} ms, mean hold {} ms{})",
+          pool.getPoolName(), size, target, waiting,
+          Math.round(meanWait / 1e6), Math.round(meanHold / 1e6), timedOut ? ", timeouts" : "");
+      pool.setMaximumPoolSize(target);
+    }
+  }
+
+  private static double mean(double totalNanos, long count) {
+    return count > 0 ? totalNanos / count : 0;
+  }
+}
@@ -0,0 +1,147 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps a DataSource so that the statements, rows and JDBC time of each
+ * request are added to SqlStats.current(). When there is no current
+ * request, connections are handed out unwrapped.
+ *
+ * Rows are update counts plus rows read through ResultSet.next(); time is
+ * spent in the execute* calls. unwrap() still reaches the pool underneath
+ * (e.g. HikariDataSource for its metrics).
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+  private static final Set<String> EXECUTE = Set.of(
+      "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+  public CountingDataSource(DataSource target) {
+    super(target);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(super.getConnection(username, password));
+  }
+
+  private static Connection wrap(Connection connection) {
+    if (SqlStats.current() == null) {
+      return connection;
+    }
+    return proxy(Connection.class, connection, (target, method, args) -> {
+      Object result = invoke(target, method, args);
+      if (result instanceof CallableStatement statement) {
+        return wrapStatement(CallableStatement.class, statement, sqlArgument(method, args));
+      }
+      if (result instanceof PreparedStatement statement) {
+        return wrapStatement(PreparedStatement.class, statement, sqlArgument(method, args));
+      }
+      if (result instanceof Statement statement) {
+        return wrapStatement(Statement.class, statement, null);
+      }
+      return result;
+    });
+  }
+
+  private static String sqlArgument(Method method, Object[] args) {
+    return args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+  }
+
+  private static <S extends Statement> S wrapStatement(Class<S> type, S statement, String preparedSql) {
+    return proxy(type, statement, (target, method, args) -> {
+      if (!EXECUTE.contains(method.getName())) {
+        Object result = invoke(target, method, args);
+        return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+      }
+      String sql = preparedSql != null ? preparedSql : sqlArgument(method, args);
+      long start = System.nanoTime();
+      Object result;
+      try {
+        result = invoke(target, method, args);
+      } finally {
+        SqlStats stats = SqlStats.current();
+        if (stats != null) {
+          stats.statement(sql, System.nanoTime() - start);
+        }
+      }
+      SqlStats stats = SqlStats.current();
+      if (stats != null) {
+        if (result instanceof Integer count) {
+          stats.rows(count);
+        } else if (result instanceof Long count) {
+          stats.rows(count);
+        } else if (result instanceof int[] counts) {
+          for (int count : counts) {
+            stats.rows(count);
+          }
+        }
+      }
+      return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+    });
+  }
+
+  private static ResultSet wrapResultSet(ResultSet resultSet) {
+    return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+      Object result = invoke(target, method, args);
+      if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+        SqlStats stats = SqlStats.current();
+        if (stats != null) {
+          stats.rows(1);
+        }
+      }
+      return result;
+    });
+  }
+
+  private interface Handler<T> {
+    Object invoke(T target, Method method, Object[] args) throws Throwable;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+    InvocationHandler invocationHandler = (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "equals":
+          // Hibernate keeps statements in hash maps
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "unwrap":
+        case "isWrapperFor":
+          return invoke(target, method, args);
+        default:
+          return handler.invoke(target, method, args);
+      }
+    };
+    return (T) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[] { type },
+        invocationHandler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
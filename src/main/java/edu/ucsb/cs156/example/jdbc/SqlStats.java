@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL statements, rows and JDBC time for the current request.
+ *
+ * SqlStatsFilter calls begin() and end() around each request; in between,
+ * CountingDataSource adds to current(). Outside a request there is no
+ * current() and nothing is counted. Statements are also counted by SQL
+ * text, so that one query repeated for every row of another (N+1) stands
+ * out.
+ */
+public class SqlStats {
+
+  private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private long rows;
+  private long nanos;
+  private final Map<String, Integer> bySql = new HashMap<>();
+
+  public static SqlStats begin() {
+    SqlStats stats = new SqlStats();
+    CURRENT.set(stats);
+    return stats;
+  }
+
+  public static SqlStats current() {
+    return CURRENT.get();
+  }
+
+  public static void end() {
+    CURRENT.remove();
+  }
+
+  void statement(String sql, long elapsedNanos) {
+    statements++;
+    nanos += elapsedNanos;
+    if (sql != null) {
+      bySql.merge(sql, 1, Integer::sum);
+    }
+  }
+
+  void rows(long n) {
+    if (n > 0) {
+      rows += n;
+    }
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  public long getMillis() {
+    return nanos / 1_000_000;
+  }
+
+  /** The SQL executed most often, or null if none was executed. */
+  public Map.Entry<String, Integer> mostRepeated() {
+    return bySql.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+  }
+}
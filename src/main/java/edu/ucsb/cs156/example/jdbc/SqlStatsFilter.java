@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects SqlStats for each request, then:
+ *
+ * <ul>
+ * <li>records app.sql.statements, app.sql.rows and app.sql.time, tagged with
+ * the handler's URI pattern;</li>
+ * <li>if headers is set (non-production profiles), adds X-SQL-Statements,
+ * X-SQL-Rows and X-SQL-Millis to the response;</li>
+ * <li>logs a warning when the request ran more than statementBudget
+ * statements, or ran one SQL statement more than repeatThreshold times
+ * (likely N+1 queries).</li>
+ * </ul>
+ */
+@Slf4j
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+  public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+  public static final String ROWS_HEADER = "X-SQL-Rows";
+  public static final String MILLIS_HEADER = "X-SQL-Millis";
+
+  private record SqlMeters(DistributionSummary statements, DistributionSummary rows, Timer time) {
+  }
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, SqlMeters> meters = new ConcurrentHashMap<>();
+  private final boolean headers;
+  private final int statementBudget;
+  private final int repeatThreshold;
+
+  public SqlStatsFilter(MeterRegistry meterRegistry, boolean headers, int statementBudget, int repeatThreshold) {
+    this.meterRegistry = meterRegistry;
+    this.headers = headers;
+    this.statementBudget = statementBudget;
+    this.repeatThreshold = repeatThreshold;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    SqlStats stats = SqlStats.begin();
+    HttpServletResponse wrapped = response;
+    if (headers) {
+      wrapped = new OnCommittedResponseWrapper(response) {
+        @Override
+        protected void onResponseCommitted() {
+          addHeaders(response, stats);
+        }
+      };
+    }
+    try {
+      chain.doFilter(request, wrapped);
+    } finally {
+      SqlStats.end();
+      if (headers && !response.isCommitted()) {
+        addHeaders(response, stats);
+      }
+      if (stats.getStatements() > 0) {
+        record(request, stats);
+      }
+    }
+  }
+
+  private static void addHeaders(HttpServletResponse response, SqlStats stats) {
+    response.setHeader(STATEMENTS_HEADER, Integer.toString(stats.getStatements()));
+    response.setHeader(ROWS_HEADER, Long.toString(stats.getRows()));
+    response.setHeader(MILLIS_HEADER, Long.toString(stats.getMillis()));
+  }
+
+  private void record(HttpServletRequest request, SqlStats stats) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+    SqlMeters sqlMeters = meters(uri);
+    sqlMeters.statements().record(stats.getStatements());
+    sqlMeters.rows().record(stats.getRows());
+    sqlMeters.time().record(stats.getNanos(), TimeUnit.NANOSECONDS);
+
+    Map.Entry<String, Integer> repeated = stats.mostRepeated();
+    if (stats.getStatements() > statementBudget) {
+      log.warn("{} {} ({}) ran {} SQL statements, over the budget of {}{}",
+          request.getMethod(), request.getRequestURI(), uri, stats.getStatements(), statementBudget,
+          repeated == null ? "" : "; most repeated (%dx): %s".formatted(repeated.getValue(), repeated.getKey()));
+    } else if (repeated != null && repeated.getValue() > repeatThreshold) {
+      log.warn("{} {} ({}) ran the same SQL {} times, possibly N+1 queries: {}",
+          request.getMethod(), request.getRequestURI(), uri, repeated.getValue(), repeated.getKey());
+    }
+  }
+
+  private SqlMeters meters(String uri) {
+    return meters.computeIfAbsent(uri, u -> new SqlMeters(
+        DistributionSummary.builder("app.sql.statements")
+            .description("SQL statements per request")
+            .tag("uri", u)
+            .register(meterRegistry),
+        DistributionSummary.builder("app.sql.rows")
+            .description("Rows read or written per request")
+            .tag("uri", u)
+            .register(meterRegistry),
+        Timer.builder("app.sql.time")
+            .description("Time spent executing SQL per request")
+            .tag("uri", u)
+            .register(meterRegistry)));
+  }
+}
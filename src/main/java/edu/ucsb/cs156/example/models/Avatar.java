@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+
+/**
+ * A resized profile picture (PNG) and the hash of its content, which
+ * serves as its ETag.
+ */
+@Data
+@AllArgsConstructor
+public class Avatar {
+  private byte[] bytes;
+  private String hash;
+}
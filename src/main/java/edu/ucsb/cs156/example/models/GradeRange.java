@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Numeric bounds of a school's free-form gradeRange, e.g. "K-5" or "9-12".
+ * Pre-kindergarten (PK, TK, Pre-K) is grade -1 and kindergarten is grade 0.
+ */
+@Data
+@AllArgsConstructor
+public class GradeRange {
+  public static final int PRE_KINDERGARTEN = -1;
+  public static final int KINDERGARTEN = 0;
+
+  private static final String GRADE = "(PRE-?K|PK|TK|K|\\d{1,2})(?:ST|ND|RD|TH)?";
+  private static final Pattern RANGE = Pattern.compile(
+      "^(?:GRADES?\\s*)?" + GRADE + "(?:\\s*(?:-|–|—|TO|THROUGH)\\s*" + GRADE + ")?$");
+
+  private int low;
+  private int high;
+
+  public boolean contains(int grade) {
+    return low <= grade && grade <= high;
+  }
+
+  public static Optional<GradeRange> parse(String gradeRange) {
+    if (gradeRange == null) {
+      return Optional.empty();
+    }
+    Matcher m = RANGE.matcher(gradeRange.trim().toUpperCase(Locale.ROOT));
+    if (!m.matches()) {
+      return Optional.empty();
+    }
+    int low = grade(m.group(1));
+    int high = m.group(2) == null ? low : grade(m.group(2));
+    if (low > high || high > 12) {
+      return Optional.empty();
+    }
+    return Optional.of(new GradeRange(low, high));
+  }
+
+  private static int grade(String token) {
+    switch (token) {
+      case "K":
+        return KINDERGARTEN;
+      case "PK":
+      case "TK":
+      case "PREK":
+      case "PRE-K":
+        return PRE_KINDERGARTEN;
+      default:
+        return Integer.parseInt(token);
+    }
+  }
+}
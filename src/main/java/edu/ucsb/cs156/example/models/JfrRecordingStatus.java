@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.Instant;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The state of the Flight Recorder recording managed by
+ * FlightRecorderService. downloadable means GET /api/admin/jfr/recording
+ * will return a file.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JfrRecordingStatus {
+  private boolean running;
+  private String settings;
+  private Instant startTime;
+  private Instant stopTime;
+  private boolean downloadable;
+}
@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A sample of the app's runtime health, taken in the background by
+ * RuntimeInfoCollector and served as part of SystemInfo. GC and cache
+ * numbers are totals since startup; requestsPerSecond is the rate since
+ * the previous sample. The database pool fields are null when the pool is
+ * not Hikari or has not started.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RuntimeInfo {
+
+  @Data
+  @AllArgsConstructor
+  public static class GarbageCollector {
+    private String name;
+    private long collections;
+    private long totalMillis;
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class CacheStats {
+    private long hits;
+    private long misses;
+    private double hitRate;
+  }
+
+  private Instant sampledAt;
+  private long uptimeSeconds;
+
+  private long heapUsedBytes;
+  private long heapCommittedBytes;
+  private long heapMaxBytes;
+  private long nonHeapUsedBytes;
+  private long nonHeapCommittedBytes;
+
+  private List<GarbageCollector> garbageCollectors;
+
+  private int liveThreads;
+  private int daemonThreads;
+  private int peakThreads;
+
+  private Integer dbActiveConnections;
+  private Integer dbIdleConnections;
+  private Integer dbWaitingThreads;
+  private Integer dbTotalConnections;
+
+  private Map<String, CacheStats> caches;
+
+  private long requestsTotal;
+  private double requestsPerSecond;
+}
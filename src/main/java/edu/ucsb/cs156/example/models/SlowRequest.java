@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.Instant;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One request kept by SlowRequestJournal. Sensitive parameter values are
+ * redacted and the others truncated; dbMillis and statements are 0 when
+ * SQL statistics are turned off.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SlowRequest {
+  private Instant time;
+  private String method;
+  private String uri;
+  private String handler;
+  private Map<String, String> parameters;
+  private String role;
+  private int status;
+  private long totalMillis;
+  private long dbMillis;
+  private int statements;
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import edu.ucsb.cs156.example.entities.User;
+
+import java.util.List;
+
+/**
+ * One page of user search results. next is the value to pass as "after"
+ * to get the following page, or null if this is the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSearchResults {
+  private List<User> users;
+  private String next;
+}
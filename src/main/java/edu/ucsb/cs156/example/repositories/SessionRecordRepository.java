@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.SessionRecord;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SessionRecordRepository extends CrudRepository<SessionRecord, String> {
+  Optional<SessionRecord> findBySessionId(String sessionId);
+
+  @Transactional
+  @Modifying
+  @Query("delete from http_sessions s where s.sessionId = ?1")
+  int deleteBySessionId(String sessionId);
+
+  @Transactional
+  @Modifying
+  @Query("delete from http_sessions s where s.expiryTime < ?1")
+  int deleteExpired(long now);
+}
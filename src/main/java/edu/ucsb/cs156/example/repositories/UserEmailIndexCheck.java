@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Refuses to start unless users.email has a unique index. upsertByEmail
+ * needs it (on Postgres, INSERT ... ON CONFLICT (email) fails without it),
+ * and nothing applies the migrations in db/migration: Hibernate's schema
+ * update adds the index to a new database, but not to an existing one that
+ * already holds duplicate emails, so V7 has to be run by hand there.
+ */
+@Slf4j
+@Component
+public class UserEmailIndexCheck {
+
+  @Autowired
+  DataSource dataSource;
+
+  // so that Hibernate has created or updated the schema first
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @PostConstruct
+  void check() throws SQLException {
+    if (!hasUniqueEmailIndex(dataSource)) {
+      throw new IllegalStateException("users.email has no unique index; apply"
+          + " db/migration/V7__Add_unique_email_index_to_users.sql (it removes duplicate users first) and restart");
+    }
+    log.debug("users.email has a unique index");
+  }
+
+  static boolean hasUniqueEmailIndex(DataSource dataSource) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      // Postgres folds unquoted names to lower case, H2 to upper case
+      for (String table : new String[] { "users", "USERS" }) {
+        Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, table, true, false)) {
+          while (rs.next()) {
+            String index = rs.getString("INDEX_NAME");
+            String column = rs.getString("COLUMN_NAME");
+            if (index != null && column != null) {
+              uniqueIndexes.computeIfAbsent(index, i -> new HashSet<>()).add(column.toLowerCase(Locale.ROOT));
+            }
+          }
+        }
+        if (uniqueIndexes.containsValue(Set.of("email"))) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.User;
+
+public interface UserRepositoryCustom {
+  /**
+   * Inserts the user, or, if a row with the same email already exists,
+   * raises its admin flag when the given user is an admin. Runs as a single
+   * statement that relies on the unique index on users.email.
+   *
+   * @param user the user to insert (id is ignored)
+   * @return the number of rows inserted or changed (0 when nothing changed)
+   */
+  int upsertByEmail(User user);
+
+  /**
+   * Upserts like upsertByEmail and returns the row as it is afterwards. On
+   * Postgres this is one statement (INSERT ... ON CONFLICT ... RETURNING);
+   * elsewhere the row is read back after the upsert.
+   *
+   * @param user the user to insert (id is ignored)
+   * @return the stored user, and whether the upsert inserted or changed it
+   */
+  Upserted upsertAndGetByEmail(User user);
+
+  record Upserted(User user, boolean changed) {
+  }
+}
@@ -0,0 +1,124 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Native upsert for UserRepository. Postgres (production) uses
+ * INSERT ... ON CONFLICT; H2 (development and tests) uses MERGE ... USING.
+ * The conditional update means a row that would not change is not written.
+ * On Postgres the upsert also returns the row: the one it inserted or
+ * changed, or else the existing one, so a login is a single round trip.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+  static final String POSTGRES_UPSERT = "INSERT INTO users"
+      + " (email, google_sub, picture_url, full_name, given_name, family_name,"
+      + " email_verified, locale, hosted_domain, admin, last_login)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+      + " ON CONFLICT (email) DO UPDATE SET admin = TRUE"
+      + " WHERE excluded.admin AND NOT users.admin";
+
+  static final String POSTGRES_UPSERT_RETURNING = "WITH upserted AS (" + POSTGRES_UPSERT + " RETURNING *)"
+      + " SELECT TRUE AS changed, * FROM upserted"
+      + " UNION ALL SELECT FALSE AS changed, * FROM users"
+      + " WHERE email = ? AND NOT EXISTS (SELECT 1 FROM upserted)";
+
+  static final String SELECT_BY_EMAIL = "SELECT * FROM users WHERE email = ?";
+
+  static final String H2_UPSERT = "MERGE INTO users t USING (SELECT"
+      + " CAST(? AS VARCHAR) email, CAST(? AS VARCHAR) google_sub, CAST(? AS VARCHAR) picture_url,"
+      + " CAST(? AS VARCHAR) full_name, CAST(? AS VARCHAR) given_name, CAST(? AS VARCHAR) family_name,"
+      + " CAST(? AS BOOLEAN) email_verified, CAST(? AS VARCHAR) locale, CAST(? AS VARCHAR) hosted_domain,"
+      + " CAST(? AS BOOLEAN) admin, CAST(? AS TIMESTAMP) last_login) s"
+      + " ON t.email = s.email"
+      + " WHEN MATCHED AND s.admin AND NOT t.admin THEN UPDATE SET admin = TRUE"
+      + " WHEN NOT MATCHED THEN INSERT"
+      + " (email, google_sub, picture_url, full_name, given_name, family_name,"
+      + " email_verified, locale, hosted_domain, admin, last_login)"
+      + " VALUES (s.email, s.google_sub, s.picture_url, s.full_name, s.given_name, s.family_name,"
+      + " s.email_verified, s.locale, s.hosted_domain, s.admin, s.last_login)";
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private volatile String upsertSql;
+
+  @Override
+  public int upsertByEmail(User user) {
+    return jdbcTemplate.update(upsertSql(), upsertArgs(user));
+  }
+
+  @Override
+  public Upserted upsertAndGetByEmail(User user) {
+    if (POSTGRES_UPSERT.equals(upsertSql())) {
+      Object[] args = Arrays.copyOf(upsertArgs(user), 12);
+      args[11] = user.getEmail();
+      List<Upserted> rows = jdbcTemplate.query(POSTGRES_UPSERT_RETURNING,
+          (rs, rowNum) -> new Upserted(mapUser(rs), rs.getBoolean("changed")), args);
+      if (!rows.isEmpty()) {
+        return rows.get(0);
+      }
+      // the row was inserted by a transaction that committed after this statement started
+      return new Upserted(findByEmail(user), false);
+    }
+    boolean changed = upsertByEmail(user) > 0;
+    return new Upserted(findByEmail(user), changed);
+  }
+
+  private User findByEmail(User user) {
+    List<User> rows = jdbcTemplate.query(SELECT_BY_EMAIL, (rs, rowNum) -> mapUser(rs), user.getEmail());
+    return rows.isEmpty() ? user : rows.get(0);
+  }
+
+  private static Object[] upsertArgs(User user) {
+    return new Object[] {
+        user.getEmail(),
+        user.getGoogleSub(),
+        user.getPictureUrl(),
+        user.getFullName(),
+        user.getGivenName(),
+        user.getFamilyName(),
+        user.getEmailVerified(),
+        user.getLocale(),
+        user.getHostedDomain(),
+        user.getAdmin(),
+        user.getLastLogin() == null ? null : Timestamp.from(user.getLastLogin()) };
+  }
+
+  private static User mapUser(ResultSet rs) throws SQLException {
+    Timestamp lastLogin = rs.getTimestamp("last_login");
+    return User.builder()
+        .id(rs.getLong("id"))
+        .email(rs.getString("email"))
+        .googleSub(rs.getString("google_sub"))
+        .pictureUrl(rs.getString("picture_url"))
+        .fullName(rs.getString("full_name"))
+        .givenName(rs.getString("given_name"))
+        .familyName(rs.getString("family_name"))
+        .emailVerified(rs.getBoolean("email_verified"))
+        .locale(rs.getString("locale"))
+        .hostedDomain(rs.getString("hosted_domain"))
+        .admin(rs.getBoolean("admin"))
+        .lastLogin(lastLogin == null ? null : lastLogin.toInstant())
+        .build();
+  }
+
+  private String upsertSql() {
+    if (upsertSql == null) {
+      String product = jdbcTemplate.execute(
+          (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+      upsertSql = "PostgreSQL".equals(product) ? POSTGRES_UPSERT : H2_UPSERT;
+    }
+    return upsertSql;
+  }
+}
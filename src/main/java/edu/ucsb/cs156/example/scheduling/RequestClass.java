@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.scheduling;
+
+import java.util.Locale;
+
+/**
+ * The kinds of API request that RequestScheduler admits separately.
+ * Declaration order is priority order: when a slot frees up, waiting
+ * INTERACTIVE requests are admitted before WRITE, and WRITE before ADMIN.
+ */
+public enum RequestClass {
+  /** Reads by any user, e.g. page views. */
+  INTERACTIVE,
+  /** Creates, updates and deletes by regular users. */
+  WRITE,
+  /** Anything under /api/admin, and writes by admins (bulk edits, exports). */
+  ADMIN;
+
+  public String tag() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
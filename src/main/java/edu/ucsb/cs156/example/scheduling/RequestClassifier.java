@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.scheduling;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+
+/**
+ * Assigns a RequestClass from the endpoint and the caller's roles.
+ * Requests outside /api (the frontend, OAuth redirects, actuator) are not
+ * scheduled and get null.
+ */
+public class RequestClassifier {
+
+  private final GrantedAuthoritiesService grantedAuthoritiesService;
+
+  public RequestClassifier(GrantedAuthoritiesService grantedAuthoritiesService) {
+    this.grantedAuthoritiesService = grantedAuthoritiesService;
+  }
+
+  public RequestClass classify(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    if (!path.startsWith("/api/")) {
+      return null;
+    }
+    if (path.startsWith("/api/admin/")) {
+      return RequestClass.ADMIN;
+    }
+    String method = request.getMethod();
+    if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+      return RequestClass.INTERACTIVE;
+    }
+    return isAdmin() ? RequestClass.ADMIN : RequestClass.WRITE;
+  }
+
+  private boolean isAdmin() {
+    if (SecurityContextHolder.getContext().getAuthentication() == null) {
+      return false;
+    }
+    return grantedAuthoritiesService.getGrantedAuthorities().stream()
+        .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+  }
+}
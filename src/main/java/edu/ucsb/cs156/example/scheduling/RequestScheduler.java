@@ -0,0 +1,220 @@
+package edu.ucsb.cs156.example.scheduling;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Admission control for API requests.
+ *
+ * At most totalConcurrency requests run at once, and at most
+ * maxConcurrent of each RequestClass. A request that cannot start waits in
+ * a priority queue (by class, then arrival) on its own thread; when a slot
+ * frees up, the highest-priority waiter whose class is under its cap is
+ * admitted. Each class also has its own bound on waiters, so a burst of
+ * one class (say, admin exports) cannot tie up every servlet thread.
+ * Requests over that bound, or that wait longer than maxWait, are rejected.
+ */
+public class RequestScheduler implements MeterBinder {
+
+  public static class Limits {
+    final int maxConcurrent;
+    final int maxQueued;
+
+    public Limits(int maxConcurrent, int maxQueued) {
+      this.maxConcurrent = maxConcurrent;
+      this.maxQueued = maxQueued;
+    }
+  }
+
+  public enum Outcome { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+  private static class Waiter {
+    final RequestClass requestClass;
+    final long seq;
+    final Condition admittedCondition;
+    boolean admitted = false;
+
+    Waiter(RequestClass requestClass, long seq, Condition admittedCondition) {
+      this.requestClass = requestClass;
+      this.seq = seq;
+      this.admittedCondition = admittedCondition;
+    }
+  }
+
+  private final int totalConcurrency;
+  private final Map<RequestClass, Limits> limits;
+  private final long maxWaitNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final TreeSet<Waiter> waiters = new TreeSet<>(Comparator
+      .comparing((Waiter w) -> w.requestClass)
+      .thenComparingLong(w -> w.seq));
+  private final Map<RequestClass, Integer> running = new EnumMap<>(RequestClass.class);
+  private final Map<RequestClass, Integer> queued = new EnumMap<>(RequestClass.class);
+  private final Map<RequestClass, LongAdder> rejected = new EnumMap<>(RequestClass.class);
+  private int totalRunning = 0;
+  private long nextSeq = 0;
+
+  public RequestScheduler(int totalConcurrency, Map<RequestClass, Limits> limits, Duration maxWait) {
+    this.totalConcurrency = totalConcurrency;
+    this.limits = new EnumMap<>(limits);
+    this.maxWaitNanos = maxWait.toNanos();
+    for (RequestClass requestClass : RequestClass.values()) {
+      if (!this.limits.containsKey(requestClass)) {
+        throw new IllegalArgumentException("no limits for " + requestClass);
+      }
+      running.put(requestClass, 0);
+      queued.put(requestClass, 0);
+      rejected.put(requestClass, new LongAdder());
+    }
+  }
+
+  /**
+   * Waits until a request of this class may run. Unless the outcome is
+   * ADMITTED, the caller must not run the request (and must not call
+   * release).
+   */
+  public Outcome acquire(RequestClass requestClass) throws InterruptedException {
+    lock.lock();
+    try {
+      if (queued.get(requestClass) == 0 && hasRoom(requestClass)) {
+        admitLocked(requestClass);
+        return Outcome.ADMITTED;
+      }
+      if (queued.get(requestClass) >= limits.get(requestClass).maxQueued) {
+        rejected.get(requestClass).increment();
+        return Outcome.QUEUE_FULL;
+      }
+      Waiter waiter = new Waiter(requestClass, nextSeq++, lock.newCondition());
+      waiters.add(waiter);
+      queued.merge(requestClass, 1, Integer::sum);
+      long nanos = maxWaitNanos;
+      try {
+        while (!waiter.admitted) {
+          if (nanos <= 0) {
+            dequeueLocked(waiter);
+            rejected.get(requestClass).increment();
+            return Outcome.TIMED_OUT;
+          }
+          nanos = waiter.admittedCondition.awaitNanos(nanos);
+        }
+        return Outcome.ADMITTED;
+      } catch (InterruptedException e) {
+        if (waiter.admitted) {
+          // admitted just as we were interrupted: give the slot back
+          releaseLocked(requestClass);
+        } else {
+          dequeueLocked(waiter);
+        }
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release(RequestClass requestClass) {
+    lock.lock();
+    try {
+      releaseLocked(requestClass);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int running(RequestClass requestClass) {
+    lock.lock();
+    try {
+      return running.get(requestClass);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int queued(RequestClass requestClass) {
+    lock.lock();
+    try {
+      return queued.get(requestClass);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long rejected(RequestClass requestClass) {
+    return rejected.get(requestClass).sum();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (RequestClass requestClass : RequestClass.values()) {
+      Gauge.builder("app.requests.queued", this, s -> s.queued(requestClass))
+          .description("API requests waiting to be admitted")
+          .tag("class", requestClass.tag())
+          .register(registry);
+      Gauge.builder("app.requests.running", this, s -> s.running(requestClass))
+          .description("API requests admitted and running")
+          .tag("class", requestClass.tag())
+          .register(registry);
+      FunctionCounter.builder("app.requests.rejected", this, s -> s.rejected(requestClass))
+          .description("API requests rejected because their class was saturated")
+          .tag("class", requestClass.tag())
+          .register(registry);
+    }
+  }
+
+  private boolean hasRoom(RequestClass requestClass) {
+    return totalRunning < totalConcurrency
+        && running.get(requestClass) < limits.get(requestClass).maxConcurrent;
+  }
+
+  private void admitLocked(RequestClass requestClass) {
+    running.merge(requestClass, 1, Integer::sum);
+    totalRunning++;
+  }
+
+  private void dequeueLocked(Waiter waiter) {
+    waiters.remove(waiter);
+    queued.merge(waiter.requestClass, -1, Integer::sum);
+  }
+
+  private void releaseLocked(RequestClass requestClass) {
+    running.merge(requestClass, -1, Integer::sum);
+    totalRunning--;
+    Iterator<Waiter> it = waiters.iterator();
+    while (totalRunning < totalConcurrency && it.hasNext()) {
+      Waiter waiter = it.next();
+      if (hasRoom(waiter.requestClass)) {
+        it.remove();
+        queued.merge(waiter.requestClass, -1, Integer::sum);
+        waiter.admitted = true;
+        admitLocked(waiter.requestClass);
+        waiter.admittedCondition.signal();
+      }
+    }
+  }
+
+  /** For tests: waits up to timeout until requestClass has n waiters. */
+  boolean awaitQueued(RequestClass requestClass, int n, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (queued(requestClass) != n) {
+      if (System.nanoTime() > deadline) {
+        return false;
+      }
+      Thread.sleep(5);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.scheduling;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs each API request only once RequestScheduler admits its class, and
+ * answers 503 (with Retry-After) when the class is saturated. Must run after
+ * the Spring Security filter chain, so that the caller's roles are known.
+ */
+@Slf4j
+public class RequestSchedulingFilter extends OncePerRequestFilter {
+
+  private final RequestClassifier classifier;
+  private final RequestScheduler scheduler;
+
+  public RequestSchedulingFilter(RequestClassifier classifier, RequestScheduler scheduler) {
+    this.classifier = classifier;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestClass requestClass = classifier.classify(request);
+    if (requestClass == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    RequestScheduler.Outcome outcome;
+    try {
+      outcome = scheduler.acquire(requestClass);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException("interrupted while waiting to be admitted", e);
+    }
+    if (outcome != RequestScheduler.Outcome.ADMITTED) {
+      log.debug("rejected {} {} ({}, {})", request.getMethod(), request.getRequestURI(), requestClass, outcome);
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write("{\"type\":\"ServerBusy\",\"message\":\"Too many "
+          + requestClass.tag() + " requests, please retry\"}");
+      return;
+    }
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      scheduler.release(requestClass);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+/**
+ * A session loaded from (or about to be written to) the http_sessions table.
+ *
+ * Remembers whether anything other than the last access time changed since
+ * it was loaded, so that DatabaseSessionRepository can tell a full write
+ * from a touch that can be batched.
+ */
+public class DatabaseSession implements Session {
+
+  private final MapSession delegate;
+  private final String primaryId;
+  private boolean isNew;
+  private boolean changed;
+  private String originalId;
+  private Instant savedLastAccessedTime;
+
+  DatabaseSession(MapSession delegate, String primaryId, boolean isNew) {
+    this.delegate = delegate;
+    this.primaryId = primaryId;
+    this.isNew = isNew;
+    this.originalId = delegate.getId();
+    this.savedLastAccessedTime = delegate.getLastAccessedTime();
+  }
+
+  String getPrimaryId() {
+    return primaryId;
+  }
+
+  String getOriginalId() {
+    return originalId;
+  }
+
+  /** True if the row must be written in full (not just touched). */
+  boolean needsFullWrite() {
+    return isNew || changed || !originalId.equals(delegate.getId());
+  }
+
+  /** True if only the last access time changed. */
+  boolean needsTouch() {
+    return !delegate.getLastAccessedTime().equals(savedLastAccessedTime);
+  }
+
+  void markSaved() {
+    isNew = false;
+    changed = false;
+    originalId = delegate.getId();
+    savedLastAccessedTime = delegate.getLastAccessedTime();
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public String changeSessionId() {
+    return delegate.changeSessionId();
+  }
+
+  @Override
+  public <T> T getAttribute(String attributeName) {
+    return delegate.getAttribute(attributeName);
+  }
+
+  @Override
+  public Set<String> getAttributeNames() {
+    return delegate.getAttributeNames();
+  }
+
+  @Override
+  public void setAttribute(String attributeName, Object attributeValue) {
+    delegate.setAttribute(attributeName, attributeValue);
+    changed = true;
+  }
+
+  @Override
+  public void removeAttribute(String attributeName) {
+    if (delegate.getAttribute(attributeName) != null) {
+      delegate.removeAttribute(attributeName);
+      changed = true;
+    }
+  }
+
+  @Override
+  public Instant getCreationTime() {
+    return delegate.getCreationTime();
+  }
+
+  @Override
+  public void setLastAccessedTime(Instant lastAccessedTime) {
+    delegate.setLastAccessedTime(lastAccessedTime);
+  }
+
+  @Override
+  public Instant getLastAccessedTime() {
+    return delegate.getLastAccessedTime();
+  }
+
+  @Override
+  public void setMaxInactiveInterval(Duration interval) {
+    if (!interval.equals(delegate.getMaxInactiveInterval())) {
+      delegate.setMaxInactiveInterval(interval);
+      changed = true;
+    }
+  }
+
+  @Override
+  public Duration getMaxInactiveInterval() {
+    return delegate.getMaxInactiveInterval();
+  }
+
+  @Override
+  public boolean isExpired() {
+    return delegate.isExpired();
+  }
+}
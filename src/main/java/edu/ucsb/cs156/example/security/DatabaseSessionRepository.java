@@ -0,0 +1,274 @@
+package edu.ucsb.cs156.example.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import edu.ucsb.cs156.example.entities.SessionRecord;
+import edu.ucsb.cs156.example.repositories.SessionRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores HttpSession state in the application database (the http_sessions
+ * table), so that any node can serve any session and a restart logs no one out.
+ *
+ * Attributes are Java-serialized and deflated. A session whose attributes,
+ * id or timeout changed is written immediately; a session that was only
+ * accessed is "touched" in memory, and touches are written in one JDBC batch
+ * every app.session.touchFlushMillis. Expired rows are deleted every
+ * app.session.sweepMillis.
+ *
+ * When read back, attributes may only hold the classes a login stores
+ * (ALLOWED_CLASSES) and may not inflate to more than MAX_ATTRIBUTE_BYTES, so
+ * that a bad or tampered row cannot run code or exhaust memory on whichever
+ * node reads it; such a session is discarded.
+ */
+@Slf4j
+public class DatabaseSessionRepository implements SessionRepository<DatabaseSession> {
+
+  static final int MAX_ATTRIBUTE_BYTES = 1024 * 1024;
+
+  // the security context (OAuth2 user, authorities, request details) and the saved request
+  static final ObjectInputFilter ALLOWED_CLASSES = ObjectInputFilter.Config.createFilter(
+      "maxdepth=20;maxarray=10000;maxrefs=10000;"
+          + "java.lang.*;java.util.*;java.time.*;java.net.URI;java.net.URL;"
+          + "org.springframework.security.core.**;org.springframework.security.authentication.**;"
+          + "org.springframework.security.web.**;org.springframework.security.oauth2.**;!*");
+
+  static final String TOUCH_SQL = "UPDATE http_sessions SET last_accessed_time = ?, expiry_time = ?"
+      + " WHERE session_id = ? AND last_accessed_time < ?";
+
+  private static class Touch {
+    final long lastAccessedTime;
+    final long expiryTime;
+
+    Touch(long lastAccessedTime, long expiryTime) {
+      this.lastAccessedTime = lastAccessedTime;
+      this.expiryTime = expiryTime;
+    }
+
+    static Touch latest(Touch a, Touch b) {
+      return a.lastAccessedTime >= b.lastAccessedTime ? a : b;
+    }
+  }
+
+  @Autowired
+  SessionRecordRepository sessionRecordRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Value("${app.session.timeoutSeconds:1800}")
+  long timeoutSeconds = 1800;
+
+  Clock clock = Clock.systemUTC();
+
+  private final Map<String, Touch> pendingTouches = new ConcurrentHashMap<>();
+
+  @Override
+  public DatabaseSession createSession() {
+    MapSession session = new MapSession();
+    session.setMaxInactiveInterval(Duration.ofSeconds(timeoutSeconds));
+    return new DatabaseSession(session, UUID.randomUUID().toString(), true);
+  }
+
+  @Override
+  public void save(DatabaseSession session) {
+    if (session.needsFullWrite()) {
+      pendingTouches.remove(session.getOriginalId());
+      sessionRecordRepository.save(toRecord(session));
+      session.markSaved();
+    } else if (session.needsTouch()) {
+      pendingTouches.merge(session.getId(), new Touch(
+          session.getLastAccessedTime().toEpochMilli(), expiryTime(session)), Touch::latest);
+      session.markSaved();
+    }
+  }
+
+  @Override
+  public DatabaseSession findById(String id) {
+    Optional<SessionRecord> record = sessionRecordRepository.findBySessionId(id);
+    if (record.isEmpty()) {
+      return null;
+    }
+    DatabaseSession session = fromRecord(record.get());
+    if (session == null || session.isExpired()) {
+      deleteById(id);
+      return null;
+    }
+    return session;
+  }
+
+  @Override
+  public void deleteById(String id) {
+    pendingTouches.remove(id);
+    sessionRecordRepository.deleteBySessionId(id);
+  }
+
+  public int pendingTouchCount() {
+    return pendingTouches.size();
+  }
+
+  @Scheduled(fixedDelayString = "${app.session.touchFlushMillis:5000}")
+  public void flushTouches() {
+    List<Object[]> rows = new ArrayList<>();
+    for (String id : pendingTouches.keySet()) {
+      Touch touch = pendingTouches.remove(id);
+      if (touch != null) {
+        rows.add(new Object[] { touch.lastAccessedTime, touch.expiryTime, id, touch.lastAccessedTime });
+      }
+    }
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(TOUCH_SQL, rows);
+      log.debug("wrote last access times of {} sessions", rows.size());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.session.sweepMillis:60000}")
+  public void sweepExpired() {
+    // touches not yet written may keep a session alive
+    flushTouches();
+    int deleted = sessionRecordRepository.deleteExpired(clock.millis());
+    if (deleted > 0) {
+      log.info("deleted {} expired sessions", deleted);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    try {
+      flushTouches();
+    } catch (RuntimeException e) {
+      log.error("final flush of session last access times failed", e);
+    }
+  }
+
+  private static long expiryTime(DatabaseSession session) {
+    return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).toEpochMilli();
+  }
+
+  private static SessionRecord toRecord(DatabaseSession session) {
+    Map<String, Object> attributes = new HashMap<>();
+    for (String name : session.getAttributeNames()) {
+      attributes.put(name, session.getAttribute(name));
+    }
+    return SessionRecord.builder()
+        .primaryId(session.getPrimaryId())
+        .sessionId(session.getId())
+        .creationTime(session.getCreationTime().toEpochMilli())
+        .lastAccessedTime(session.getLastAccessedTime().toEpochMilli())
+        .maxInactiveSeconds((int) session.getMaxInactiveInterval().getSeconds())
+        .expiryTime(expiryTime(session))
+        .attributeBytes(serialize(attributes))
+        .build();
+  }
+
+  private DatabaseSession fromRecord(SessionRecord record) {
+    Map<String, Object> attributes;
+    try {
+      attributes = deserialize(record.getAttributeBytes());
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      // typically a class that changed between deployments; the user just has to log in again
+      log.warn("discarding session whose attributes cannot be read: {}", e.toString());
+      return null;
+    }
+    MapSession session = new MapSession(record.getSessionId());
+    session.setCreationTime(Instant.ofEpochMilli(record.getCreationTime()));
+    long lastAccessedTime = record.getLastAccessedTime();
+    Touch touch = pendingTouches.get(record.getSessionId());
+    if (touch != null) {
+      lastAccessedTime = Math.max(lastAccessedTime, touch.lastAccessedTime);
+    }
+    session.setLastAccessedTime(Instant.ofEpochMilli(lastAccessedTime));
+    session.setMaxInactiveInterval(Duration.ofSeconds(record.getMaxInactiveSeconds()));
+    attributes.forEach(session::setAttribute);
+    return new DatabaseSession(session, record.getPrimaryId(), false);
+  }
+
+  static byte[] serialize(Map<String, Object> attributes) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+      out.writeObject(attributes);
+    } catch (IOException e) {
+      throw new IllegalStateException("session attributes must be serializable", e);
+    } finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    if (bytes == null) {
+      return new HashMap<>();
+    }
+    try (ObjectInputStream in = new ObjectInputStream(
+        new LimitedInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)), MAX_ATTRIBUTE_BYTES))) {
+      in.setObjectInputFilter(ALLOWED_CLASSES);
+      return (Map<String, Object>) in.readObject();
+    }
+  }
+
+  /** Fails once more than limit bytes have been read, e.g. from a decompression bomb. */
+  private static class LimitedInputStream extends FilterInputStream {
+    private long remaining;
+
+    LimitedInputStream(InputStream in, long limit) {
+      super(in);
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    private void count(int n) throws IOException {
+      remaining -= n;
+      if (remaining < 0) {
+        throw new IOException("session attributes inflate to more than " + MAX_ATTRIBUTE_BYTES + " bytes");
+      }
+    }
+  }
+}
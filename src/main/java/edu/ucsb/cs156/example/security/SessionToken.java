@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.security;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a stateless session cookie carries: enough to rebuild the
+ * authentication of a logged-in user on any node without a session lookup.
+ * Times are epoch seconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SessionToken {
+  private long userId;
+  private String email;
+  private String provider;
+  private List<String> roles;
+  private long issuedAt;
+  private long expiresAt;
+}
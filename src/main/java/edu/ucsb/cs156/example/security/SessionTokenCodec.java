@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Signs and verifies compact values of the form
+ * {@code base64url(payload) "." expiresAt "." base64url(HMAC-SHA256)},
+ * where the MAC covers the first two parts. Values whose signature does not
+ * match, or whose expiry has passed, are rejected.
+ *
+ * All nodes must share the same secret (AUTH_TOKEN_SECRET).
+ */
+public class SessionTokenCodec {
+
+  public static final int MIN_SECRET_BYTES = 32;
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> macs;
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Clock clock;
+
+  public SessionTokenCodec(String secret) {
+    this(secret, Clock.systemUTC());
+  }
+
+  SessionTokenCodec(String secret, Clock clock) {
+    if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+      throw new IllegalArgumentException(
+          "AUTH_TOKEN_SECRET must be at least " + MIN_SECRET_BYTES + " bytes long");
+    }
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    this.clock = clock;
+    this.macs = ThreadLocal.withInitial(() -> {
+      try {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac;
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  public Clock getClock() {
+    return clock;
+  }
+
+  public String sign(byte[] payload, Instant expiresAt) {
+    String unsigned = ENCODER.encodeToString(payload) + "." + expiresAt.getEpochSecond();
+    return unsigned + "." + ENCODER.encodeToString(mac(unsigned));
+  }
+
+  public Optional<byte[]> verify(String signed) {
+    if (signed == null) {
+      return Optional.empty();
+    }
+    int lastDot = signed.lastIndexOf('.');
+    int firstDot = signed.indexOf('.');
+    if (firstDot <= 0 || lastDot == firstDot) {
+      return Optional.empty();
+    }
+    String unsigned = signed.substring(0, lastDot);
+    try {
+      byte[] signature = DECODER.decode(signed.substring(lastDot + 1));
+      if (!MessageDigest.isEqual(signature, mac(unsigned))) {
+        return Optional.empty();
+      }
+      long expiresAt = Long.parseLong(signed.substring(firstDot + 1, lastDot));
+      if (clock.instant().getEpochSecond() >= expiresAt) {
+        return Optional.empty();
+      }
+      return Optional.of(DECODER.decode(signed.substring(0, firstDot)));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  public String encode(SessionToken token) {
+    try {
+      return sign(mapper.writeValueAsBytes(token), Instant.ofEpochSecond(token.getExpiresAt()));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Optional<SessionToken> decode(String value) {
+    Optional<byte[]> payload = verify(value);
+    if (payload.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(mapper.readValue(payload.get(), SessionToken.class));
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private byte[] mac(String unsigned) {
+    return macs.get().doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+  }
+}
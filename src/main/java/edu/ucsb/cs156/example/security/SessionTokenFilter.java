@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+
+/**
+ * Authenticates requests from the stateless session cookie.
+ *
+ * A valid cookie is turned back into an OAuth2AuthenticationToken (email and
+ * user id as attributes, roles as authorities), so CurrentUserService and
+ * method security work exactly as with a servlet session. Once less than
+ * half of the token's lifetime is left, a fresh token is issued with the
+ * user's roles looked up again, but with the original issuedAt: no token is
+ * renewed past maxLifetime after the login, when the user must log in again.
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+  public static final String COOKIE_NAME = "SESSION_TOKEN";
+
+  private final SessionTokenCodec codec;
+  private final Duration ttl;
+  private final Duration maxLifetime;
+  private final GrantedAuthoritiesService grantedAuthoritiesService;
+
+  public SessionTokenFilter(SessionTokenCodec codec, Duration ttl, Duration maxLifetime,
+      GrantedAuthoritiesService grantedAuthoritiesService) {
+    this.codec = codec;
+    this.ttl = ttl;
+    this.maxLifetime = maxLifetime;
+    this.grantedAuthoritiesService = grantedAuthoritiesService;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    Optional<SessionToken> token = codec.decode(readCookie(request, COOKIE_NAME));
+    if (token.isPresent() && SecurityContextHolder.getContext().getAuthentication() == null) {
+      SessionToken current = token.get();
+      long now = codec.getClock().instant().getEpochSecond();
+      if (current.getExpiresAt() - now < ttl.getSeconds() / 2
+          && current.getExpiresAt() < current.getIssuedAt() + maxLifetime.getSeconds()) {
+        current.setRoles(grantedAuthoritiesService.refreshRoles(current.getEmail(), current.getRoles()));
+        writeCookie(request, response, issue(codec, ttl, maxLifetime, current));
+      }
+      SecurityContextHolder.getContext().setAuthentication(toAuthentication(current));
+    }
+    chain.doFilter(request, response);
+  }
+
+  static OAuth2AuthenticationToken toAuthentication(SessionToken token) {
+    List<GrantedAuthority> authorities = token.getRoles().stream()
+        .map(SimpleGrantedAuthority::new)
+        .collect(Collectors.toList());
+    Map<String, Object> attributes = Map.of("email", token.getEmail(), "id", token.getUserId());
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities, attributes, "email");
+    return new OAuth2AuthenticationToken(principal, authorities, token.getProvider());
+  }
+
+  /**
+   * Returns the cookie value for a token with the identity and roles of
+   * {@code token}, valid for {@code ttl} from now but no longer than
+   * {@code maxLifetime} from its issuedAt (now, if it has none yet).
+   */
+  static String issue(SessionTokenCodec codec, Duration ttl, Duration maxLifetime, SessionToken token) {
+    long now = codec.getClock().instant().getEpochSecond();
+    long issuedAt = token.getIssuedAt() > 0 ? token.getIssuedAt() : now;
+    return codec.encode(SessionToken.builder()
+        .userId(token.getUserId())
+        .email(token.getEmail())
+        .provider(token.getProvider())
+        .roles(token.getRoles())
+        .issuedAt(issuedAt)
+        .expiresAt(Math.min(now + ttl.getSeconds(), issuedAt + maxLifetime.getSeconds()))
+        .build());
+  }
+
+  static String readCookie(HttpServletRequest request, String name) {
+    if (request.getCookies() == null) {
+      return null;
+    }
+    for (Cookie cookie : request.getCookies()) {
+      if (name.equals(cookie.getName())) {
+        return cookie.getValue();
+      }
+    }
+    return null;
+  }
+
+  void writeCookie(HttpServletRequest request, HttpServletResponse response, String value) {
+    writeCookie(request, response, COOKIE_NAME, value, ttl);
+  }
+
+  static void writeCookie(HttpServletRequest request, HttpServletResponse response,
+      String name, String value, Duration maxAge) {
+    ResponseCookie cookie = ResponseCookie.from(name, value == null ? "" : value)
+        .httpOnly(true)
+        .secure(request.isSecure())
+        .sameSite("Lax")
+        .path("/")
+        .maxAge(value == null ? Duration.ZERO : maxAge)
+        .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+}
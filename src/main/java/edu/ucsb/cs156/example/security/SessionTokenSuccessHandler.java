@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+
+/**
+ * After a successful OAuth login, sets the stateless session cookie and
+ * redirects to the home page.
+ */
+public class SessionTokenSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+  private final SessionTokenCodec codec;
+  private final Duration ttl;
+  private final Duration maxLifetime;
+  private final CurrentUserService currentUserService;
+
+  public SessionTokenSuccessHandler(SessionTokenCodec codec, Duration ttl, Duration maxLifetime,
+      CurrentUserService currentUserService) {
+    super("/");
+    this.codec = codec;
+    this.ttl = ttl;
+    this.maxLifetime = maxLifetime;
+    this.currentUserService = currentUserService;
+  }
+
+  @Override
+  public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+      Authentication authentication) throws IOException, ServletException {
+    // the security context already holds the new authentication, so this resolves (or creates) the users row
+    User user = currentUserService.getUser();
+    SessionToken token = SessionToken.builder()
+        .userId(user.getId())
+        .email(user.getEmail())
+        .provider(((OAuth2AuthenticationToken) authentication).getAuthorizedClientRegistrationId())
+        .roles(authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .distinct()
+            .collect(Collectors.toList()))
+        .build();
+    SessionTokenFilter.writeCookie(request, response, SessionTokenFilter.COOKIE_NAME,
+        SessionTokenFilter.issue(codec, ttl, maxLifetime, token), ttl);
+    super.onAuthenticationSuccess(request, response, authentication);
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * Keeps the in-flight OAuth2 authorization request in a short-lived signed
+ * cookie instead of the HttpSession, so the OAuth callback can be served by
+ * a different node than the one that started the login.
+ */
+public class SignedCookieAuthorizationRequestRepository
+    implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+  public static final String COOKIE_NAME = "OAUTH2_AUTHORIZATION_REQUEST";
+  static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+  // the payload is only deserialized after its signature checks out; this is a second line of defence
+  private static final ObjectInputFilter ALLOWED_CLASSES = ObjectInputFilter.Config.createFilter(
+      "java.lang.*;java.util.*;java.net.URI;org.springframework.security.oauth2.core.**;"
+          + "org.springframework.security.core.SpringSecurityCoreVersion;!*");
+
+  private final SessionTokenCodec codec;
+
+  public SignedCookieAuthorizationRequestRepository(SessionTokenCodec codec) {
+    this.codec = codec;
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+    Optional<byte[]> payload = codec.verify(SessionTokenFilter.readCookie(request, COOKIE_NAME));
+    if (payload.isEmpty()) {
+      return null;
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload.get()))) {
+      in.setObjectInputFilter(ALLOWED_CLASSES);
+      return (OAuth2AuthorizationRequest) in.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest,
+      HttpServletRequest request, HttpServletResponse response) {
+    if (authorizationRequest == null) {
+      SessionTokenFilter.writeCookie(request, response, COOKIE_NAME, null, Duration.ZERO);
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(authorizationRequest);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    String value = codec.sign(bytes.toByteArray(), codec.getClock().instant().plus(MAX_AGE));
+    SessionTokenFilter.writeCookie(request, response, COOKIE_NAME, value, MAX_AGE);
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request) {
+    return loadAuthorizationRequest(request);
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+      HttpServletResponse response) {
+    OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+    SessionTokenFilter.writeCookie(request, response, COOKIE_NAME, null, Duration.ZERO);
+    return authorizationRequest;
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Decides whether an email belongs to an admin.
+ *
+ * An email is an admin if it is listed in app.admin.emails, or if its row in
+ * the users table has admin set. Both are held in memory: the configured
+ * list as a normalized HashSet, and the database admins as a cached set that
+ * is patched on every UserUpdatedEvent and fully reloaded at most every
+ * app.admin.cache.ttlSeconds (to pick up changes made by other nodes).
+ */
+
+@Slf4j
+@Service("adminResolution")
+public class AdminResolutionService {
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Value("${app.admin.emails}")
+  List<String> adminEmails = new ArrayList<>();
+
+  @Value("${app.admin.cache.ttlSeconds:300}")
+  long cacheTtlSeconds = 300;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private Set<String> configuredAdmins = Set.of();
+  private Set<String> databaseAdmins = null;
+  private long databaseAdminsLoadedAt;
+
+  @PostConstruct
+  void normalizeConfiguredAdmins() {
+    Set<String> normalized = new HashSet<>();
+    for (String email : adminEmails) {
+      if (!email.isBlank()) {
+        normalized.add(normalize(email));
+      }
+    }
+    configuredAdmins = Set.copyOf(normalized);
+  }
+
+  public boolean isConfiguredAdmin(String email) {
+    return email != null && configuredAdmins.contains(normalize(email));
+  }
+
+  public boolean isAdmin(String email) {
+    if (email == null) {
+      return false;
+    }
+    String key = normalize(email);
+    return configuredAdmins.contains(key) || databaseAdmins().contains(key);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onUserUpdated(UserUpdatedEvent event) {
+    if (databaseAdmins == null || event.getEmail() == null) {
+      return;
+    }
+    Set<String> updated = new HashSet<>(databaseAdmins);
+    if (event.getUser().getAdmin()) {
+      updated.add(normalize(event.getEmail()));
+    } else {
+      updated.remove(normalize(event.getEmail()));
+    }
+    databaseAdmins = updated;
+  }
+
+  private synchronized Set<String> databaseAdmins() {
+    long now = nanoClock.getAsLong();
+    if (databaseAdmins == null || now - databaseAdminsLoadedAt >= TimeUnit.SECONDS.toNanos(cacheTtlSeconds)) {
+      Set<String> loaded = new HashSet<>();
+      for (String email : userRepository.findAdminEmails()) {
+        if (email != null) {
+          loaded.add(normalize(email));
+        }
+      }
+      databaseAdmins = loaded;
+      databaseAdminsLoadedAt = now;
+      log.debug("loaded {} admins from the users table", loaded.size());
+    }
+    return databaseAdmins;
+  }
+
+  private static String normalize(String email) {
+    return email.trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts and (sampled) logs authentication events such as OAuth logins and
+ * authority lookups, without doing the work on the request thread.
+ *
+ * Every event increments a counter. The first of every
+ * app.authLog.sampleEvery events of a kind is also logged, if INFO is
+ * enabled: its details are built by the supplier and formatted as
+ * "event=... key=value ..." on a background thread. When that thread falls
+ * behind, events are dropped (and counted) rather than queued without bound.
+ * A summary of the counters is logged every app.authLog.summaryMillis.
+ */
+
+@Slf4j
+@Service("authEventLogger")
+public class AuthEventLogger {
+
+  public static final String OAUTH_LOGIN = "oauth.login";
+  public static final String OAUTH_AUTHORITIES = "oauth.authorities";
+  public static final String AUTHORITIES_LOOKUP = "authorities.lookup";
+  public static final String CURRENT_USER = "currentUser";
+
+  @Value("${app.authLog.sampleEvery:100}")
+  long sampleEvery = 100;
+
+  private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+  private final LongAdder dropped = new LongAdder();
+  private final ExecutorService writerThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(1000),
+      runnable -> {
+        Thread thread = new Thread(runnable, "auth-event-log");
+        thread.setDaemon(true);
+        return thread;
+      },
+      (runnable, executor) -> dropped.increment());
+  Executor writer = writerThread;
+  private Map<String, Long> lastSummary = Map.of();
+
+  public void event(String event, Supplier<Map<String, ?>> details) {
+    LongAdder count = counts.computeIfAbsent(event, e -> new LongAdder());
+    count.increment();
+    if (!log.isInfoEnabled() || (count.sum() - 1) % Math.max(sampleEvery, 1) != 0) {
+      return;
+    }
+    writer.execute(() -> log.info(format(event, details.get())));
+  }
+
+  public Map<String, Long> getCounts() {
+    Map<String, Long> snapshot = new TreeMap<>();
+    counts.forEach((event, count) -> snapshot.put(event, count.sum()));
+    return snapshot;
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  @Scheduled(fixedDelayString = "${app.authLog.summaryMillis:300000}")
+  public void logSummary() {
+    Map<String, Long> current = getCounts();
+    if (!current.equals(lastSummary)) {
+      log.info("auth event counts {} (dropped log lines: {})", current, dropped.sum());
+      lastSummary = current;
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    writerThread.shutdown();
+  }
+
+  static String format(String event, Map<String, ?> details) {
+    StringBuilder sb = new StringBuilder("event=").append(event);
+    details.forEach((key, value) -> sb.append(' ').append(key).append('=').append(value));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,451 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.Avatar;
+import edu.ucsb.cs156.example.tracing.Span;
+import edu.ucsb.cs156.example.tracing.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fetches users' profile pictures, resizes them to one of SIZES, and keeps
+ * the results in a size-bounded LRU cache on local disk, so that pages do
+ * not depend on the picture host.
+ *
+ * Cached files are named "key.contentHash.png", where key is derived from
+ * the picture URL and size; the index is rebuilt from the file names (oldest
+ * first) on startup. If app.avatars.origin is set, pictures are fetched from
+ * that origin instead of the host in the URL (used by tests); otherwise only
+ * https URLs on app.avatars.allowedHosts are fetched. Redirects are followed
+ * by hand, so that every hop is held to the same rule, and no more than
+ * MAX_SOURCE_BYTES of a picture is read.
+ */
+
+@Slf4j
+@Service("avatars")
+public class AvatarService {
+
+  public static final int[] SIZES = { 32, 96, 256 };
+
+  static final int MAX_SOURCE_BYTES = 5 * 1024 * 1024;
+  static final int MAX_REDIRECTS = 3;
+
+  private static class CachedAvatar {
+    final Path path;
+    final String hash;
+    final long size;
+
+    CachedAvatar(Path path, String hash, long size) {
+      this.path = path;
+      this.hash = hash;
+      this.size = size;
+    }
+  }
+
+  @Value("${app.avatars.cacheDir:${java.io.tmpdir}/avatars}")
+  String cacheDir = System.getProperty("java.io.tmpdir") + "/avatars";
+
+  @Value("${app.avatars.maxCacheBytes:52428800}")
+  long maxCacheBytes = 52428800;
+
+  @Value("${app.avatars.origin:}")
+  String origin = "";
+
+  @Value("${app.avatars.allowedHosts:googleusercontent.com}")
+  List<String> allowedHosts = List.of("googleusercontent.com");
+
+  HttpClient httpClient = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(3))
+      .followRedirects(HttpClient.Redirect.NEVER)
+      .build();
+
+  private Path dir;
+  // access-ordered, so iteration starts at the least recently used entry; guarded by this
+  private final LinkedHashMap<String, CachedAvatar> index = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+  private long hits = 0;
+  private long misses = 0;
+  private final Map<String, CompletableFuture<CachedAvatar>> inFlight = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void openCache() throws IOException {
+    dir = cacheDir.isBlank()
+        ? Paths.get(System.getProperty("java.io.tmpdir"), "avatars")
+        : Paths.get(cacheDir);
+    Files.createDirectories(dir);
+    List<Path> files;
+    try (Stream<Path> list = Files.list(dir)) {
+      files = list.filter(p -> p.getFileName().toString().endsWith(".png")).collect(Collectors.toList());
+    }
+    files.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+    synchronized (this) {
+      for (Path file : files) {
+        String[] parts = file.getFileName().toString().split("\\.");
+        if (parts.length == 3) {
+          add(parts[0], new CachedAvatar(file, parts[1], file.toFile().length()));
+        } else {
+          Files.deleteIfExists(file);
+        }
+      }
+      evict();
+    }
+    log.info("avatar cache in {} holds {} pictures ({} bytes)", dir, index.size(), totalBytes);
+  }
+
+  /** The smallest of SIZES that is at least {@code requested} (or the largest). */
+  public static int snapSize(int requested) {
+    for (int size : SIZES) {
+      if (size >= requested) {
+        return size;
+      }
+    }
+    return SIZES[SIZES.length - 1];
+  }
+
+  public Avatar getAvatar(String pictureUrl, int requestedSize) throws IOException {
+    return getAvatar(pictureUrl, requestedSize, false);
+  }
+
+  private Avatar getAvatar(String pictureUrl, int requestedSize, boolean retried) throws IOException {
+    int size = snapSize(requestedSize);
+    String key = sha256(pictureUrl + "#" + size).substring(0, 32);
+    CachedAvatar cached;
+    synchronized (this) {
+      cached = index.get(key);
+      if (cached == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+    }
+    if (cached == null) {
+      CompletableFuture<CachedAvatar> mine = new CompletableFuture<>();
+      CompletableFuture<CachedAvatar> running = inFlight.putIfAbsent(key, mine);
+      if (running == null) {
+        try {
+          mine.complete(fetchAndStore(key, pictureUrl, size));
+        } catch (IOException | RuntimeException e) {
+          mine.completeExceptionally(e);
+        } finally {
+          inFlight.remove(key);
+        }
+        running = mine;
+      }
+      try {
+        cached = running.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw e;
+      }
+    }
+    try {
+      return new Avatar(readCached(cached.path), cached.hash);
+    } catch (IOException e) {
+      synchronized (this) {
+        remove(key);
+      }
+      if (retried) {
+        throw e;
+      }
+      // most likely evicted between the lookup and the read; fetch it again, but only once
+      return getAvatar(pictureUrl, requestedSize, true);
+    }
+  }
+
+  byte[] readCached(Path path) throws IOException {
+    return Files.readAllBytes(path);
+  }
+
+  public synchronized int size() {
+    return index.size();
+  }
+
+  public synchronized long getTotalBytes() {
+    return totalBytes;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  private CachedAvatar fetchAndStore(String key, String pictureUrl, int size) throws IOException {
+    byte[] resized = resize(fetch(sourceUri(pictureUrl)), size);
+    String hash = sha256(resized).substring(0, 32);
+    Path file = dir.resolve(key + "." + hash + ".png");
+    Path tmp = Files.createTempFile(dir, key, ".tmp");
+    Files.write(tmp, resized);
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    CachedAvatar cached = new CachedAvatar(file, hash, resized.length);
+    synchronized (this) {
+      add(key, cached);
+      evict();
+    }
+    return cached;
+  }
+
+  URI sourceUri(String pictureUrl) throws IOException {
+    try {
+      URI uri = new URI(pictureUrl);
+      if (!origin.isBlank()) {
+        URI o = new URI(origin);
+        return new URI(o.getScheme(), o.getAuthority(), uri.getPath(), uri.getQuery(), null);
+      }
+      return checkAllowed(uri);
+    } catch (URISyntaxException e) {
+      throw new IOException("bad picture url", e);
+    }
+  }
+
+  /** Fails unless uri is https on allowedHosts or, if origin is set, on the origin. */
+  URI checkAllowed(URI uri) throws IOException {
+    if (!origin.isBlank()) {
+      URI o = URI.create(origin);
+      if (!o.getScheme().equals(uri.getScheme()) || !o.getAuthority().equals(uri.getAuthority())) {
+        throw new IOException("not fetching pictures from " + uri.getScheme() + "://" + uri.getAuthority());
+      }
+      return uri;
+    }
+    String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+    boolean allowed = allowedHosts.stream()
+        .anyMatch(allowedHost -> host.equals(allowedHost) || host.endsWith("." + allowedHost));
+    if (!"https".equals(uri.getScheme()) || !allowed) {
+      throw new IOException("not fetching pictures from " + uri.getScheme() + "://" + host);
+    }
+    return uri;
+  }
+
+  private byte[] fetch(URI uri) throws IOException {
+    Span span = Span.start("AvatarService.fetch", Span.Kind.CLIENT);
+    try {
+      span.setAttribute("http.method", "GET");
+      span.setAttribute("http.url", uri.toString());
+      HttpResponse<byte[]> response = send(uri, span);
+      for (int redirects = 0; redirects < MAX_REDIRECTS && isRedirect(response.statusCode()); redirects++) {
+        String location = response.headers().firstValue("Location").orElse(null);
+        if (location == null) {
+          break;
+        }
+        uri = checkAllowed(resolve(uri, location));
+        response = send(uri, span);
+      }
+      span.setAttribute("http.status_code", response.statusCode());
+      return checkPicture(uri, response);
+    } catch (IOException | RuntimeException e) {
+      span.recordException(e);
+      throw e;
+    } finally {
+      span.end();
+    }
+  }
+
+  private HttpResponse<byte[]> send(URI uri, Span span) throws IOException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET();
+    if (!span.isNoop()) {
+      request.header(TraceContext.TRACEPARENT, span.getContext().traceparent());
+    }
+    try {
+      return httpClient.send(request.build(), info -> new LimitedBodySubscriber(
+          info.headers().firstValueAsLong("Content-Length").orElse(-1) > MAX_SOURCE_BYTES));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while fetching " + uri, e);
+    }
+  }
+
+  private static boolean isRedirect(int status) {
+    return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+  }
+
+  private static URI resolve(URI uri, String location) throws IOException {
+    try {
+      return uri.resolve(location);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("bad redirect from " + uri, e);
+    }
+  }
+
+  private static byte[] checkPicture(URI uri, HttpResponse<byte[]> response) throws IOException {
+    if (response.statusCode() != 200) {
+      throw new IOException("fetching " + uri + " returned " + response.statusCode());
+    }
+    return response.body();
+  }
+
+  /**
+   * Collects a response body, but gives up (and closes the connection) as
+   * soon as it exceeds MAX_SOURCE_BYTES, or right away if Content-Length
+   * already says it will.
+   */
+  private static class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+    private final boolean tooLarge;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+
+    LimitedBodySubscriber(boolean tooLarge) {
+      this.tooLarge = tooLarge;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (tooLarge) {
+        fail();
+      } else {
+        subscription.request(Long.MAX_VALUE);
+      }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      for (ByteBuffer buffer : buffers) {
+        if (out.size() + buffer.remaining() > MAX_SOURCE_BYTES) {
+          fail();
+          return;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        out.writeBytes(bytes);
+      }
+    }
+
+    private void fail() {
+      subscription.cancel();
+      body.completeExceptionally(new IOException("picture is larger than " + MAX_SOURCE_BYTES + " bytes"));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      body.complete(out.toByteArray());
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+      return body;
+    }
+  }
+
+  static byte[] resize(byte[] source, int size) throws IOException {
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+    if (image == null) {
+      throw new IOException("not an image");
+    }
+    double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+    int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+    int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+    BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = resized.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      g.dispose();
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(resized, "png", out);
+    return out.toByteArray();
+  }
+
+  private void add(String key, CachedAvatar cached) {
+    CachedAvatar old = index.put(key, cached);
+    totalBytes += cached.size;
+    if (old != null) {
+      totalBytes -= old.size;
+      if (!old.path.equals(cached.path)) {
+        deleteQuietly(old.path);
+      }
+    }
+  }
+
+  private void remove(String key) {
+    CachedAvatar old = index.remove(key);
+    if (old != null) {
+      totalBytes -= old.size;
+    }
+  }
+
+  private void evict() {
+    List<Path> evicted = new ArrayList<>();
+    Iterator<CachedAvatar> eldest = index.values().iterator();
+    while (totalBytes > maxCacheBytes && index.size() > 1 && eldest.hasNext()) {
+      CachedAvatar cached = eldest.next();
+      eldest.remove();
+      totalBytes -= cached.size;
+      evicted.add(cached.path);
+    }
+    evicted.forEach(AvatarService::deleteQuietly);
+  }
+
+  // the index no longer refers to the file, so failing to delete it only wastes disk space
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("could not delete cached avatar {}: {}", path, e.toString());
+    }
+  }
+
+  private static String sha256(String s) {
+    return sha256(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -3,15 +3,20 @@ package edu.ucsb.cs156.example.services;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.repositories.UserRepositoryCustom;
+import edu.ucsb.cs156.example.tracing.Span;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -19,6 +24,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 
 @Slf4j
@@ -30,15 +36,45 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  AdminResolutionService adminResolution;
+
+  @Autowired
+  AuthEventLogger authEventLogger;
+
+  @Value("${app.currentUser.cache.ttlSeconds:300}")
+  private long userCacheTtlSeconds = 300;
+
+  @Value("${app.currentUser.cache.maxEntries:10000}")
+  private int userCacheMaxEntries = 10000;
+
+  // resolved users, keyed by email, so that steady-state requests do no database I/O
+  private TtlCache<String, User> userCache;
+
+  @PostConstruct
+  void createUserCache() {
+    userCache = new TtlCache<>(userCacheMaxEntries, TimeUnit.SECONDS.toNanos(userCacheTtlSeconds));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserUpdated(UserUpdatedEvent event) {
+    userCache.invalidate(event.getEmail());
+  }
+
+  public TtlCache<String, User> getUserCache() {
+    return userCache;
+  }
 
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder()
       .user(this.getUser())
       .roles(this.getRoles())
       .build();
-    log.info("getCurrentUser returns {}",cu);
+    authEventLogger.event(AuthEventLogger.CURRENT_USER,
+        () -> Map.of("email", String.valueOf(cu.getUser() == null ? null : cu.getUser().getEmail()), "roles", cu.getRoles()));
     return cu;
   }
 
@@ -51,22 +87,12 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String fullName = oAuthUser.getAttribute("name");
     String givenName = oAuthUser.getAttribute("given_name");
     String familyName = oAuthUser.getAttribute("family_name");
-    boolean emailVerified = oAuthUser.getAttribute("email_verified");
+    boolean emailVerified = Boolean.TRUE.equals(oAuthUser.getAttribute("email_verified"));
     String locale = oAuthUser.getAttribute("locale");
     String hostedDomain = oAuthUser.getAttribute("hd");
 
-    java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}",attrs);
-
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
+    authEventLogger.event(AuthEventLogger.OAUTH_LOGIN,
+        () -> Map.of("email", String.valueOf(email), "attributes", oAuthUser.getAttributes().keySet()));
 
     User u = User.builder()
         .googleSub(googleSub)
@@ -78,10 +104,28 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .emailVerified(emailVerified)
         .locale(locale)
         .hostedDomain(hostedDomain)
-        .admin(adminEmails.contains(email))
+        .admin(adminResolution.isConfiguredAdmin(email))
+        .lastLogin(Instant.now())
         .build();
-    userRepository.save(u);
-    return u;
+    // one statement: inserts a new user, or promotes an existing one to a configured admin,
+    // and returns the row; profile refreshes of existing users are written behind by UserProfileWriter
+    UserRepositoryCustom.Upserted upserted = userRepository.upsertAndGetByEmail(u);
+    if (upserted.changed()) {
+      eventPublisher.publishEvent(new UserUpdatedEvent(upserted.user()));
+    }
+    return upserted.user();
+  }
+
+  private User resolveUser(SecurityContext securityContext, Authentication authentication) {
+    Span span = Span.start("CurrentUserServiceImpl.resolveUser");
+    try {
+      return getOAuth2AuthenticatedUser(securityContext, authentication);
+    } catch (RuntimeException e) {
+      span.recordException(e);
+      throw e;
+    } finally {
+      span.end();
+    }
   }
 
   public User getUser() {
@@ -89,7 +133,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     Authentication authentication = securityContext.getAuthentication();
 
     if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+      String email = ((OAuth2AuthenticationToken) authentication).getPrincipal().getAttribute("email");
+      return userCache.getOrLoad(email, e -> resolveUser(securityContext, authentication));
     }
     return null;
   }
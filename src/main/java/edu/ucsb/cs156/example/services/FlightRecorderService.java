@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.example.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.example.aop.ControllerEvent;
+import edu.ucsb.cs156.example.aop.RepositoryEvent;
+import edu.ucsb.cs156.example.models.JfrRecordingStatus;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs at most one in-process JDK Flight Recorder recording, with the JDK's
+ * "default" (low overhead) or "profile" settings plus the app's controller
+ * and repository events. The recording is bounded by app.jfr.maxAgeMinutes
+ * and app.jfr.maxSizeBytes; stopping it (or downloading while it runs)
+ * writes it to a file in app.jfr.dir, replacing the previous one.
+ */
+@Slf4j
+@Service
+public class FlightRecorderService {
+
+  public static final Set<String> SETTINGS = Set.of("default", "profile");
+
+  @Value("${app.jfr.dir:${java.io.tmpdir}/jfr}")
+  String dir = System.getProperty("java.io.tmpdir") + "/jfr";
+
+  @Value("${app.jfr.maxAgeMinutes:30}")
+  long maxAgeMinutes = 30;
+
+  @Value("${app.jfr.maxSizeBytes:104857600}")
+  long maxSizeBytes = 100L * 1024 * 1024;
+
+  private Recording recording;
+  private String settings;
+  private Instant startTime;
+  private Instant stopTime;
+  private Path file;
+
+  public synchronized JfrRecordingStatus start(String settings) throws IOException, ParseException {
+    if (!SETTINGS.contains(settings)) {
+      throw new IllegalArgumentException("settings must be one of " + SETTINGS);
+    }
+    if (recording != null && recording.getState() == RecordingState.RUNNING) {
+      throw new IllegalStateException("a recording is already running");
+    }
+    closeRecording();
+
+    Recording started = new Recording(Configuration.getConfiguration(settings));
+    started.setName("app");
+    started.enable(ControllerEvent.class);
+    started.enable(RepositoryEvent.class);
+    started.setToDisk(true);
+    started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+    started.setMaxSize(maxSizeBytes);
+    started.start();
+    log.info("started JFR recording with {} settings", settings);
+
+    recording = started;
+    this.settings = settings;
+    startTime = started.getStartTime();
+    stopTime = null;
+    return status();
+  }
+
+  public synchronized JfrRecordingStatus stop() throws IOException {
+    if (recording == null || recording.getState() != RecordingState.RUNNING) {
+      throw new IllegalStateException("no recording is running");
+    }
+    recording.stop();
+    stopTime = Instant.now();
+    dump();
+    closeRecording();
+    log.info("stopped JFR recording, wrote {}", file);
+    return status();
+  }
+
+  public synchronized JfrRecordingStatus status() {
+    boolean running = recording != null && recording.getState() == RecordingState.RUNNING;
+    return JfrRecordingStatus.builder()
+        .running(running)
+        .settings(settings)
+        .startTime(startTime)
+        .stopTime(stopTime)
+        .downloadable(running || (file != null && Files.exists(file)))
+        .build();
+  }
+
+  /**
+   * The file of the last stopped recording or, while one is running, of a
+   * snapshot taken now; null if there is neither.
+   */
+  public synchronized Path recordingFile() throws IOException {
+    if (recording != null && recording.getState() == RecordingState.RUNNING) {
+      dump();
+    }
+    return file != null && Files.exists(file) ? file : null;
+  }
+
+  private void dump() throws IOException {
+    Path directory = Paths.get(dir);
+    Files.createDirectories(directory);
+    Path dumped = directory.resolve("recording-" + System.currentTimeMillis() + ".jfr");
+    recording.dump(dumped);
+    if (file != null && !file.equals(dumped)) {
+      Files.deleteIfExists(file);
+    }
+    file = dumped;
+  }
+
+  private void closeRecording() {
+    if (recording != null) {
+      recording.close();
+      recording = null;
+    }
+  }
+
+  @PreDestroy
+  public synchronized void close() {
+    closeRecording();
+  }
+}
@@ -1,7 +1,12 @@
 package edu.ucsb.cs156.example.services;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -14,12 +19,34 @@ import lombok.extern.slf4j.Slf4j;
 @Service("grantedAuthorities")
 public class GrantedAuthoritiesService {
 
+    @Autowired
+    AuthEventLogger authEventLogger;
+
+    @Autowired
+    AdminResolutionService adminResolution;
+
     public Collection<? extends GrantedAuthority> getGrantedAuthorities() {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
         Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-        log.info("authorities={}", authorities);
+        authEventLogger.event(AuthEventLogger.AUTHORITIES_LOOKUP, () -> Map.of("authorities", authorities));
         return authorities;
     }
 
+    /**
+     * Returns {@code roles} with the roles this app derives from the email
+     * (ROLE_ADMIN for admins, ROLE_MEMBER for ucsb.edu addresses) looked up
+     * again, so that a long-lived session picks up admin changes.
+     */
+    public List<String> refreshRoles(String email, Collection<String> roles) {
+        Stream<String> derived = Stream.of(
+                adminResolution.isAdmin(email) ? "ROLE_ADMIN" : null,
+                email != null && email.endsWith("@ucsb.edu") ? "ROLE_MEMBER" : null);
+        return Stream.concat(
+                roles.stream().filter(role -> !role.equals("ROLE_ADMIN") && !role.equals("ROLE_MEMBER")),
+                derived.filter(role -> role != null))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
 }
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable centered interval tree over closed integer intervals.
+ *
+ * stab(point) returns every value whose interval contains point in
+ * O(log n + k) time, where k is the number of matches. The tree is built
+ * once from a snapshot; callers that need updates build a new tree and
+ * swap the reference.
+ */
+public class IntervalTree<T> {
+
+  public static class Interval<T> {
+    final int low;
+    final int high;
+    final T value;
+
+    public Interval(int low, int high, T value) {
+      this.low = low;
+      this.high = high;
+      this.value = value;
+    }
+  }
+
+  private static class Node<T> {
+    int center;
+    List<Interval<T>> byLow;
+    List<Interval<T>> byHighDescending;
+    Node<T> left;
+    Node<T> right;
+  }
+
+  private final Node<T> root;
+  private final int size;
+
+  public IntervalTree(Collection<Interval<T>> intervals) {
+    this.size = intervals.size();
+    this.root = build(new ArrayList<>(intervals));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public List<T> stab(int point) {
+    List<T> result = new ArrayList<>();
+    Node<T> node = root;
+    while (node != null) {
+      if (point < node.center) {
+        for (Interval<T> interval : node.byLow) {
+          if (interval.low > point) {
+            break;
+          }
+          result.add(interval.value);
+        }
+        node = node.left;
+      } else if (point > node.center) {
+        for (Interval<T> interval : node.byHighDescending) {
+          if (interval.high < point) {
+            break;
+          }
+          result.add(interval.value);
+        }
+        node = node.right;
+      } else {
+        for (Interval<T> interval : node.byLow) {
+          result.add(interval.value);
+        }
+        break;
+      }
+    }
+    return result;
+  }
+
+  private static <T> Node<T> build(List<Interval<T>> intervals) {
+    if (intervals.isEmpty()) {
+      return null;
+    }
+    int[] endpoints = new int[intervals.size() * 2];
+    for (int i = 0; i < intervals.size(); i++) {
+      endpoints[2 * i] = intervals.get(i).low;
+      endpoints[2 * i + 1] = intervals.get(i).high;
+    }
+    Arrays.sort(endpoints);
+
+    Node<T> node = new Node<>();
+    node.center = endpoints[endpoints.length / 2];
+    List<Interval<T>> left = new ArrayList<>();
+    List<Interval<T>> right = new ArrayList<>();
+    List<Interval<T>> overlapping = new ArrayList<>();
+    for (Interval<T> interval : intervals) {
+      if (interval.high < node.center) {
+        left.add(interval);
+      } else if (interval.low > node.center) {
+        right.add(interval);
+      } else {
+        overlapping.add(interval);
+      }
+    }
+    node.byLow = new ArrayList<>(overlapping);
+    node.byLow.sort(Comparator.comparingInt(i -> i.low));
+    node.byHighDescending = new ArrayList<>(overlapping);
+    node.byHighDescending.sort(Comparator.comparingInt((Interval<T> i) -> i.high).reversed());
+    node.left = build(left);
+    node.right = build(right);
+    return node;
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Major;
+import edu.ucsb.cs156.example.models.DepartmentMajors;
+import edu.ucsb.cs156.example.repositories.MajorRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds the department / degree / major browse tree from a single read of
+ * the majors table, serializes it once, and serves the cached bytes until
+ * MajorsController writes something and calls invalidate(), or, so that
+ * majors added through other nodes show up, until the first read after
+ * app.majors.tree.ttlSeconds.
+ */
+
+@Slf4j
+@Service("majorTree")
+public class MajorTreeService {
+
+  @Autowired
+  MajorRepository majorRepository;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Value("${app.majors.tree.ttlSeconds:60}")
+  long ttlSeconds = 60;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private final AtomicLong generation = new AtomicLong();
+  private volatile byte[] cached = null;
+  private volatile long loadedAt;
+
+  public byte[] treeJson() throws JsonProcessingException {
+    byte[] json = cached;
+    if (json != null && isFresh()) {
+      return json;
+    }
+    synchronized (this) {
+      if (cached != null && isFresh()) {
+        return cached;
+      }
+      boolean expired = cached != null;
+      long startedAt = generation.get();
+      long readAt = nanoClock.getAsLong();
+      byte[] built = mapper.writeValueAsBytes(buildTree());
+      // a write that happened while we were reading must not be hidden by our result
+      if (generation.get() == startedAt) {
+        loadedAt = readAt;
+        cached = built;
+      }
+      if (expired) {
+        log.debug("major tree reloaded ({} bytes)", built.length);
+      } else {
+        log.info("major tree rebuilt ({} bytes)", built.length);
+      }
+      return built;
+    }
+  }
+
+  private boolean isFresh() {
+    return nanoClock.getAsLong() - loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+    cached = null;
+  }
+
+  List<DepartmentMajors> buildTree() {
+    Map<String, Map<String, List<Major>>> tree = new TreeMap<>();
+    for (Major major : majorRepository.findAll()) {
+      tree.computeIfAbsent(nullToEmpty(major.getDepartment()), d -> new TreeMap<>())
+          .computeIfAbsent(nullToEmpty(major.getDegreePursued()), d -> new ArrayList<>())
+          .add(major);
+    }
+    List<DepartmentMajors> departments = new ArrayList<>(tree.size());
+    tree.forEach((department, byDegree) -> {
+      byDegree.values().forEach(majors -> majors.sort(
+          Comparator.comparing(Major::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))));
+      departments.add(new DepartmentMajors(department, byDegree));
+    });
+    return departments;
+  }
+
+  private static String nullToEmpty(String s) {
+    return s == null ? "" : s;
+  }
+}
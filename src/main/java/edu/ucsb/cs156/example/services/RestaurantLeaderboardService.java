@@ -0,0 +1,177 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory ranking of restaurants by roachCounter (highest first).
+ *
+ * The index is loaded from the database the first time it is read, and is
+ * then kept up to date by RestaurantsController, which calls update/remove
+ * after every write to this node. Writes made through other nodes are
+ * picked up by reloading the whole table on the first read after
+ * app.restaurants.leaderboard.ttlSeconds; other reads never touch the
+ * database.
+ */
+
+@Slf4j
+@Service("restaurantLeaderboard")
+public class RestaurantLeaderboardService {
+
+  public static final int MAX_ENTRIES = 100;
+
+  private static final Comparator<Restaurant> WORST_FIRST = Comparator
+      .comparingInt(Restaurant::getRoachCounter).reversed()
+      .thenComparingLong(Restaurant::getId);
+
+  @Autowired
+  RestaurantRepository restaurantRepository;
+
+  @Value("${app.restaurants.leaderboard.ttlSeconds:60}")
+  long ttlSeconds = 60;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Restaurant> byId = new HashMap<>();
+  private final NavigableSet<Restaurant> ranking = new TreeSet<>(WORST_FIRST);
+  private final Map<String, NavigableSet<Restaurant>> rankingByCuisine = new HashMap<>();
+  private volatile boolean loaded = false;
+  private volatile long loadedAt;
+
+  public List<Restaurant> top(int n, String cuisine) {
+    ensureLoaded();
+    int limit = Math.min(Math.max(n, 0), MAX_ENTRIES);
+    lock.readLock().lock();
+    try {
+      NavigableSet<Restaurant> source = (cuisine == null || cuisine.isBlank())
+          ? ranking
+          : rankingByCuisine.getOrDefault(cuisineKey(cuisine), Collections.emptyNavigableSet());
+      List<Restaurant> result = new ArrayList<>(Math.min(limit, source.size()));
+      Iterator<Restaurant> it = source.iterator();
+      while (result.size() < limit && it.hasNext()) {
+        result.add(it.next());
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public void update(Restaurant restaurant) {
+    Restaurant snapshot = snapshot(restaurant);
+    lock.writeLock().lock();
+    try {
+      if (!loaded) {
+        // the first read loads the current state of the table anyway
+        return;
+      }
+      removeLocked(snapshot.getId());
+      addLocked(snapshot);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      if (!loaded) {
+        return;
+      }
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void ensureLoaded() {
+    if (isFresh()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (isFresh()) {
+        return;
+      }
+      byId.clear();
+      ranking.clear();
+      rankingByCuisine.clear();
+      for (Restaurant restaurant : restaurantRepository.findAll()) {
+        addLocked(snapshot(restaurant));
+      }
+      if (loaded) {
+        log.debug("restaurant leaderboard reloaded with {} restaurants", byId.size());
+      } else {
+        log.info("restaurant leaderboard loaded with {} restaurants", byId.size());
+      }
+      loaded = true;
+      loadedAt = nanoClock.getAsLong();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private boolean isFresh() {
+    return loaded && nanoClock.getAsLong() - loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+
+  private void addLocked(Restaurant restaurant) {
+    byId.put(restaurant.getId(), restaurant);
+    ranking.add(restaurant);
+    rankingByCuisine
+        .computeIfAbsent(cuisineKey(restaurant.getCuisine()), k -> new TreeSet<>(WORST_FIRST))
+        .add(restaurant);
+  }
+
+  private void removeLocked(long id) {
+    Restaurant old = byId.remove(id);
+    if (old == null) {
+      return;
+    }
+    ranking.remove(old);
+    String key = cuisineKey(old.getCuisine());
+    NavigableSet<Restaurant> forCuisine = rankingByCuisine.get(key);
+    if (forCuisine != null) {
+      forCuisine.remove(old);
+      if (forCuisine.isEmpty()) {
+        rankingByCuisine.remove(key);
+      }
+    }
+  }
+
+  // entries are copied so that later changes to a managed entity
+  // cannot silently reorder the TreeSets
+  private static Restaurant snapshot(Restaurant restaurant) {
+    return Restaurant.builder()
+        .id(restaurant.getId())
+        .name(restaurant.getName())
+        .cuisine(restaurant.getCuisine())
+        .roachCounter(restaurant.getRoachCounter())
+        .build();
+  }
+
+  private static String cuisineKey(String cuisine) {
+    return cuisine == null ? "" : cuisine.trim().toLowerCase(Locale.ROOT);
+  }
+}
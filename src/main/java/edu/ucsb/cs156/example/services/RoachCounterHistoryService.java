@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.RoachCounterPoint;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the history of every restaurant's roachCounter in memory.
+ *
+ * RestaurantsController records a point whenever a restaurant is created or
+ * its roachCounter changes. Recent points are kept exactly; older points are
+ * downsampled (see RoachCounterSeries), so memory per restaurant is bounded.
+ * History is per node and is not persisted across restarts.
+ */
+
+@Service("roachCounterHistory")
+public class RoachCounterHistoryService {
+
+  @Value("${app.roachHistory.recentPoints:256}")
+  int recentPoints = 256;
+
+  @Value("${app.roachHistory.archiveBuckets:720}")
+  int archiveBuckets = 720;
+
+  @Value("${app.roachHistory.archiveBucketSeconds:3600}")
+  long archiveBucketSeconds = 3600;
+
+  Clock clock = Clock.systemUTC();
+
+  private final Map<Long, RoachCounterSeries> seriesById = new ConcurrentHashMap<>();
+
+  public void record(long restaurantId, int roachCounter) {
+    seriesById
+        .computeIfAbsent(restaurantId,
+            id -> new RoachCounterSeries(recentPoints, archiveBuckets, archiveBucketSeconds))
+        .append(clock.instant().getEpochSecond(), roachCounter);
+  }
+
+  public void forget(long restaurantId) {
+    seriesById.remove(restaurantId);
+  }
+
+  /**
+   * Returns the points between from and to (inclusive; either may be null).
+   * When step is positive, the points are resampled to one point per step
+   * seconds, holding the last value recorded in each step.
+   */
+  public List<RoachCounterPoint> history(long restaurantId, Instant from, Instant to, long step) {
+    RoachCounterSeries series = seriesById.get(restaurantId);
+    List<RoachCounterPoint> points = new ArrayList<>();
+    if (series == null) {
+      return points;
+    }
+    long fromSecond = from == null ? Long.MIN_VALUE : from.getEpochSecond();
+    long toSecond = to == null ? Long.MAX_VALUE : to.getEpochSecond();
+    if (step <= 0) {
+      series.forEach(fromSecond, toSecond,
+          (t, v) -> points.add(new RoachCounterPoint(Instant.ofEpochSecond(t), v)));
+      return points;
+    }
+    series.forEach(fromSecond, toSecond, (t, v) -> {
+      Instant bucketStart = Instant.ofEpochSecond(Math.floorDiv(t, step) * step);
+      int last = points.size() - 1;
+      if (last >= 0 && points.get(last).getTimestamp().equals(bucketStart)) {
+        points.get(last).setRoachCounter(v);
+      } else {
+        points.add(new RoachCounterPoint(bucketStart, v));
+      }
+    });
+    return points;
+  }
+}
@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.services;
+
+/**
+ * Roach counter history for a single restaurant, stored in two primitive
+ * ring buffers.
+ *
+ * The recent ring keeps every change at one second resolution. When it is
+ * full, the oldest point is folded into the archive ring, which keeps only
+ * the last value seen in each bucket of archiveBucketSeconds. When the
+ * archive is full its oldest bucket is dropped.
+ *
+ * Timestamps are delta encoded: each ring stores the absolute time of its
+ * oldest entry, and for every other entry the distance to the entry before it.
+ */
+class RoachCounterSeries {
+
+  /** Receives (epochSecond, value) pairs in time order. */
+  interface PointConsumer {
+    void accept(long epochSecond, int value);
+  }
+
+  private final long archiveBucketSeconds;
+
+  private final int[] recentValues;
+  private final int[] recentDeltas;
+  private int recentHead = 0;
+  private int recentSize = 0;
+  private long recentHeadTime;
+  private long recentTailTime;
+
+  private final int[] archiveValues;
+  private final int[] archiveDeltas;
+  private int archiveHead = 0;
+  private int archiveSize = 0;
+  private long archiveHeadBucket;
+  private long archiveTailBucket;
+
+  RoachCounterSeries(int recentCapacity, int archiveCapacity, long archiveBucketSeconds) {
+    this.recentValues = new int[recentCapacity];
+    this.recentDeltas = new int[recentCapacity];
+    this.archiveValues = new int[archiveCapacity];
+    this.archiveDeltas = new int[archiveCapacity];
+    this.archiveBucketSeconds = archiveBucketSeconds;
+  }
+
+  synchronized void append(long epochSecond, int value) {
+    if (recentSize == 0) {
+      recentHead = 0;
+      recentValues[0] = value;
+      recentDeltas[0] = 0;
+      recentSize = 1;
+      recentHeadTime = recentTailTime = Math.max(epochSecond, lastArchivedTime());
+      return;
+    }
+    // the clock may step backwards; never let the series go out of order
+    long t = Math.max(epochSecond, recentTailTime);
+    if (recentSize == recentValues.length) {
+      evictOldestRecent();
+    }
+    int slot = (recentHead + recentSize) % recentValues.length;
+    recentValues[slot] = value;
+    recentDeltas[slot] = clampDelta(t - recentTailTime);
+    recentSize++;
+    recentTailTime = t;
+  }
+
+  /** Visits every stored point with from &lt;= time &lt;= to, oldest first. */
+  synchronized void forEach(long from, long to, PointConsumer consumer) {
+    long bucket = archiveHeadBucket;
+    for (int i = 0; i < archiveSize; i++) {
+      int slot = (archiveHead + i) % archiveValues.length;
+      if (i > 0) {
+        bucket += archiveDeltas[slot];
+      }
+      long t = bucket * archiveBucketSeconds;
+      if (t >= from && t <= to) {
+        consumer.accept(t, archiveValues[slot]);
+      }
+    }
+    long t = recentHeadTime;
+    for (int i = 0; i < recentSize; i++) {
+      int slot = (recentHead + i) % recentValues.length;
+      if (i > 0) {
+        t += recentDeltas[slot];
+      }
+      if (t > to) {
+        break;
+      }
+      if (t >= from) {
+        consumer.accept(t, recentValues[slot]);
+      }
+    }
+  }
+
+  synchronized int size() {
+    return archiveSize + recentSize;
+  }
+
+  private void evictOldestRecent() {
+    long oldestTime = recentHeadTime;
+    int oldestValue = recentValues[recentHead];
+    recentHead = (recentHead + 1) % recentValues.length;
+    recentSize--;
+    recentHeadTime += recentDeltas[recentHead];
+    archive(oldestTime, oldestValue);
+  }
+
+  private void archive(long epochSecond, int value) {
+    long bucket = Math.floorDiv(epochSecond, archiveBucketSeconds);
+    if (archiveSize > 0 && bucket <= archiveTailBucket) {
+      int tail = (archiveHead + archiveSize - 1) % archiveValues.length;
+      archiveValues[tail] = value;
+      return;
+    }
+    if (archiveSize == 0) {
+      archiveHead = 0;
+      archiveValues[0] = value;
+      archiveDeltas[0] = 0;
+      archiveSize = 1;
+      archiveHeadBucket = archiveTailBucket = bucket;
+      return;
+    }
+    if (archiveSize == archiveValues.length) {
+      archiveHead = (archiveHead + 1) % archiveValues.length;
+      archiveSize--;
+      archiveHeadBucket += archiveDeltas[archiveHead];
+    }
+    int slot = (archiveHead + archiveSize) % archiveValues.length;
+    archiveValues[slot] = value;
+    archiveDeltas[slot] = clampDelta(bucket - archiveTailBucket);
+    archiveSize++;
+    archiveTailBucket = bucket;
+  }
+
+  private long lastArchivedTime() {
+    return archiveSize == 0 ? Long.MIN_VALUE : archiveTailBucket * archiveBucketSeconds;
+  }
+
+  private static int clampDelta(long delta) {
+    return (int) Math.min(delta, Integer.MAX_VALUE);
+  }
+}
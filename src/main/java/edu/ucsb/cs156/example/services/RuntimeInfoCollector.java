@@ -0,0 +1,157 @@
+package edu.ucsb.cs156.example.services;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import edu.ucsb.cs156.example.models.RuntimeInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Samples memory, GC, threads, the database pool, cache hit rates and
+ * request throughput every app.systemInfo.sampleMillis, so that
+ * /api/systemInfo only returns the latest sample.
+ */
+@Slf4j
+@Service
+public class RuntimeInfoCollector {
+
+  @Autowired
+  ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Autowired
+  ObjectProvider<DataSource> dataSource;
+
+  @Autowired
+  ObjectProvider<CurrentUserService> currentUserService;
+
+  @Autowired
+  ObjectProvider<AvatarService> avatarService;
+
+  private volatile RuntimeInfo latest;
+  private long lastRequestsTotal = -1;
+  private long lastSampleNanos;
+
+  public RuntimeInfo getLatest() {
+    RuntimeInfo info = latest;
+    if (info == null) {
+      // before the first scheduled sample
+      sample();
+      info = latest;
+    }
+    return info;
+  }
+
+  @Scheduled(fixedDelayString = "${app.systemInfo.sampleMillis:5000}")
+  public synchronized void sample() {
+    long now = System.nanoTime();
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    MemoryUsage heap = memory.getHeapMemoryUsage();
+    MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    RuntimeInfo.RuntimeInfoBuilder info = RuntimeInfo.builder()
+        .sampledAt(Instant.now())
+        .uptimeSeconds(TimeUnit.MILLISECONDS.toSeconds(ManagementFactory.getRuntimeMXBean().getUptime()))
+        .heapUsedBytes(heap.getUsed())
+        .heapCommittedBytes(heap.getCommitted())
+        .heapMaxBytes(heap.getMax())
+        .nonHeapUsedBytes(nonHeap.getUsed())
+        .nonHeapCommittedBytes(nonHeap.getCommitted())
+        .garbageCollectors(garbageCollectors())
+        .liveThreads(threads.getThreadCount())
+        .daemonThreads(threads.getDaemonThreadCount())
+        .peakThreads(threads.getPeakThreadCount())
+        .caches(caches());
+
+    HikariPoolMXBean pool = pool();
+    if (pool != null) {
+      info.dbActiveConnections(pool.getActiveConnections())
+          .dbIdleConnections(pool.getIdleConnections())
+          .dbWaitingThreads(pool.getThreadsAwaitingConnection())
+          .dbTotalConnections(pool.getTotalConnections());
+    }
+
+    long requestsTotal = requestsTotal();
+    double requestsPerSecond = 0;
+    if (lastRequestsTotal >= 0 && now > lastSampleNanos) {
+      requestsPerSecond = (requestsTotal - lastRequestsTotal) * 1e9 / (now - lastSampleNanos);
+    }
+    lastRequestsTotal = requestsTotal;
+    lastSampleNanos = now;
+    info.requestsTotal(requestsTotal).requestsPerSecond(requestsPerSecond);
+
+    latest = info.build();
+  }
+
+  private static List<RuntimeInfo.GarbageCollector> garbageCollectors() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .map((GarbageCollectorMXBean gc) -> new RuntimeInfo.GarbageCollector(
+            gc.getName(), Math.max(0, gc.getCollectionCount()), Math.max(0, gc.getCollectionTime())))
+        .toList();
+  }
+
+  private Map<String, RuntimeInfo.CacheStats> caches() {
+    Map<String, RuntimeInfo.CacheStats> caches = new TreeMap<>();
+    if (currentUserService.getIfAvailable() instanceof CurrentUserServiceImpl impl && impl.getUserCache() != null) {
+      caches.put("users", cacheStats(impl.getUserCache().getHits(), impl.getUserCache().getMisses()));
+    }
+    AvatarService avatars = avatarService.getIfAvailable();
+    if (avatars != null) {
+      caches.put("avatars", cacheStats(avatars.getHits(), avatars.getMisses()));
+    }
+    return caches;
+  }
+
+  static RuntimeInfo.CacheStats cacheStats(long hits, long misses) {
+    return new RuntimeInfo.CacheStats(hits, misses, hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+  }
+
+  private HikariPoolMXBean pool() {
+    DataSource source = dataSource.getIfAvailable();
+    if (source == null) {
+      return null;
+    }
+    try {
+      // CountingDataSource passes unwrap through to the pool
+      return source.isWrapperFor(HikariDataSource.class)
+          ? source.unwrap(HikariDataSource.class).getHikariPoolMXBean()
+          : null;
+    } catch (SQLException e) {
+      log.debug("could not unwrap {}: {}", source, e.getMessage());
+      return null;
+    }
+  }
+
+  private long requestsTotal() {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry == null) {
+      return 0;
+    }
+    long total = 0;
+    for (Timer timer : registry.find("http.server.requests").timers()) {
+      total += timer.count();
+    }
+    return total;
+  }
+}
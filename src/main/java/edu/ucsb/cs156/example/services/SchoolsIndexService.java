@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Schools;
+import edu.ucsb.cs156.example.models.GradeRange;
+import edu.ucsb.cs156.example.repositories.SchoolsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory indexes over the schools table.
+ *
+ * Each school's gradeRange is parsed into numeric bounds (see GradeRange)
+ * and kept in an IntervalTree, so "which schools serve grade 7?" is answered
+ * without reading the table. Schools are also hashed by district (trimmed,
+ * case-insensitive). The indexes are loaded on first use and kept up to
+ * date by SchoolsController, which calls update/remove after every write to
+ * this node; writes made through other nodes are picked up by reloading the
+ * table on the first read after app.schools.index.ttlSeconds. Reads use an
+ * immutable snapshot; writes rebuild it.
+ */
+
+@Slf4j
+@Service("schoolsIndex")
+public class SchoolsIndexService {
+
+  @Autowired
+  SchoolsRepository schoolsRepository;
+
+  @Value("${app.schools.index.ttlSeconds:60}")
+  long ttlSeconds = 60;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private static class Snapshot {
+    final IntervalTree<Schools> byGrade;
+    final Map<String, List<Schools>> byDistrict;
+    final Map<String, Integer> districtCounts;
+
+    Snapshot(IntervalTree<Schools> byGrade, Map<String, List<Schools>> byDistrict,
+        Map<String, Integer> districtCounts) {
+      this.byGrade = byGrade;
+      this.byDistrict = byDistrict;
+      this.districtCounts = districtCounts;
+    }
+  }
+
+  private final Map<Long, Schools> byId = new HashMap<>();
+  private volatile Snapshot snapshot = null;
+  private volatile long loadedAt;
+
+  public List<Schools> servingGrade(int grade, String district) {
+    List<Schools> result = new ArrayList<>();
+    String districtKey = normalize(district);
+    for (Schools school : current().byGrade.stab(grade)) {
+      if (districtKey.isEmpty() || districtKey.equals(normalize(school.getDistrict()))) {
+        result.add(school);
+      }
+    }
+    result.sort(Comparator.comparingLong(Schools::getId));
+    return result;
+  }
+
+  public List<Schools> byDistrict(String district) {
+    return current().byDistrict.getOrDefault(normalize(district), List.of());
+  }
+
+  /** Number of schools in each district, keyed by the district's name as first stored. */
+  public Map<String, Integer> districtCounts() {
+    return current().districtCounts;
+  }
+
+  /** Loads the indexes now rather than on the first read. */
+  public void warmUp() {
+    current();
+  }
+
+  public synchronized void update(Schools school) {
+    if (snapshot == null) {
+      // the first read loads the current state of the table anyway
+      return;
+    }
+    if (GradeRange.parse(school.getGradeRange()).isEmpty()) {
+      log.warn("school {} has unrecognized gradeRange {}; it will not be found by grade",
+          school.getId(), school.getGradeRange());
+    }
+    byId.put(school.getId(), copy(school));
+    rebuild();
+  }
+
+  public synchronized void remove(long id) {
+    if (snapshot == null) {
+      return;
+    }
+    if (byId.remove(id) != null) {
+      rebuild();
+    }
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current != null && isFresh()) {
+      return current;
+    }
+    synchronized (this) {
+      if (snapshot == null || !isFresh()) {
+        boolean reload = snapshot != null;
+        byId.clear();
+        for (Schools school : schoolsRepository.findAll()) {
+          byId.put(school.getId(), copy(school));
+        }
+        rebuild();
+        loadedAt = nanoClock.getAsLong();
+        if (reload) {
+          log.debug("schools index reloaded with {} schools", byId.size());
+        } else {
+          log.info("schools index loaded with {} schools, {} with a recognized gradeRange",
+              byId.size(), snapshot.byGrade.size());
+        }
+      }
+      return snapshot;
+    }
+  }
+
+  private boolean isFresh() {
+    return nanoClock.getAsLong() - loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+
+  private void rebuild() {
+    List<Schools> schools = new ArrayList<>(byId.values());
+    schools.sort(Comparator.comparingLong(Schools::getId));
+
+    List<IntervalTree.Interval<Schools>> intervals = new ArrayList<>(schools.size());
+    Map<String, List<Schools>> byDistrict = new HashMap<>();
+    Map<String, String> districtNames = new HashMap<>();
+    for (Schools school : schools) {
+      Optional<GradeRange> range = GradeRange.parse(school.getGradeRange());
+      range.ifPresent(r -> intervals.add(new IntervalTree.Interval<>(r.getLow(), r.getHigh(), school)));
+
+      String key = normalize(school.getDistrict());
+      byDistrict.computeIfAbsent(key, k -> new ArrayList<>()).add(school);
+      districtNames.putIfAbsent(key, school.getDistrict() == null ? "" : school.getDistrict().trim());
+    }
+
+    Map<String, Integer> districtCounts = new TreeMap<>();
+    byDistrict.forEach((key, list) -> districtCounts.merge(districtNames.get(key), list.size(), Integer::sum));
+    byDistrict.replaceAll((key, list) -> Collections.unmodifiableList(list));
+
+    snapshot = new Snapshot(new IntervalTree<>(intervals),
+        Collections.unmodifiableMap(byDistrict),
+        Collections.unmodifiableMap(districtCounts));
+  }
+
+  private static Schools copy(Schools school) {
+    return Schools.builder()
+        .id(school.getId())
+        .name(school.getName())
+        .district(school.getDistrict())
+        .gradeRange(school.getGradeRange())
+        .build();
+  }
+
+  private static String normalize(String district) {
+    return district == null ? "" : district.trim().toLowerCase(Locale.ROOT);
+  }
+}
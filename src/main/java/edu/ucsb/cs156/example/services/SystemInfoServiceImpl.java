@@ -3,6 +3,8 @@ package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.models.SystemInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Service;
@@ -21,12 +23,18 @@ public class SystemInfoServiceImpl extends SystemInfoService {
   @Value("${app.showSwaggerUILink:false}")
   private boolean showSwaggerUILink;
 
+  // optional, so that tests that only need the flags need not provide it
+  @Autowired
+  private ObjectProvider<RuntimeInfoCollector> runtimeInfoCollector;
+
   public SystemInfo getSystemInfo() {
+    RuntimeInfoCollector collector = runtimeInfoCollector.getIfAvailable();
     SystemInfo si = SystemInfo.builder()
     .springH2ConsoleEnabled(this.springH2ConsoleEnabled)
     .showSwaggerUILink(this.showSwaggerUILink)
+    .runtime(collector == null ? null : collector.getLatest())
     .build();
-  log.info("getSystemInfo returns {}",si);
+  log.debug("getSystemInfo returns {}",si);
   return si;
   }
 
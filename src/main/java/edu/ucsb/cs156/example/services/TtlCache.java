@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A small bounded cache whose entries expire a fixed time after they are
+ * loaded. When full, the least recently used entry is evicted.
+ *
+ * getOrLoad does not hold the lock while loading, so a slow loader never
+ * blocks readers of other keys. A value loaded concurrently with an
+ * invalidate() or invalidateAll() is returned to its caller but not cached.
+ */
+public class TtlCache<K, V> {
+
+  private static class Entry<V> {
+    final V value;
+    final long expiresAt;
+
+    Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+  private final LinkedHashMap<K, Entry<V>> entries;
+  private long invalidations = 0;
+  private long hits = 0;
+  private long misses = 0;
+
+  public TtlCache(int maxEntries, long ttlNanos) {
+    this(maxEntries, ttlNanos, System::nanoTime);
+  }
+
+  TtlCache(int maxEntries, long ttlNanos, LongSupplier nanoClock) {
+    this.ttlNanos = ttlNanos;
+    this.nanoClock = nanoClock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public synchronized V get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    if (nanoClock.getAsLong() - entry.expiresAt >= 0) {
+      entries.remove(key);
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.value;
+  }
+
+  public V getOrLoad(K key, Function<K, V> loader) {
+    long invalidationsBefore;
+    synchronized (this) {
+      V cached = get(key);
+      if (cached != null) {
+        return cached;
+      }
+      invalidationsBefore = invalidations;
+    }
+    V loaded = loader.apply(key);
+    synchronized (this) {
+      if (loaded != null && invalidations == invalidationsBefore) {
+        entries.put(key, new Entry<>(loaded, nanoClock.getAsLong() + ttlNanos));
+      }
+    }
+    return loaded;
+  }
+
+  public synchronized void invalidate(K key) {
+    invalidations++;
+    entries.remove(key);
+  }
+
+  public synchronized void invalidateAll() {
+    invalidations++;
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+}
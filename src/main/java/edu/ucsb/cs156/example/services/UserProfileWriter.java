@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Write-behind queue for changes to existing users: profile refreshes and
+ * last-login times recorded at OAuth login.
+ *
+ * Changes are coalesced per email (the latest profile and login time win)
+ * and written by the scheduler thread every app.users.writeBehind.flushMillis
+ * in a single transaction, so the login path never waits on an UPDATE.
+ * A UserUpdatedEvent is published for every user written.
+ */
+
+@Slf4j
+@Service("userProfileWriter")
+public class UserProfileWriter {
+
+  static class PendingUpdate {
+    OAuth2User profile;
+    Instant lastLogin;
+
+    PendingUpdate merge(PendingUpdate newer) {
+      if (newer.profile != null) {
+        profile = newer.profile;
+      }
+      if (newer.lastLogin != null && (lastLogin == null || newer.lastLogin.isAfter(lastLogin))) {
+        lastLogin = newer.lastLogin;
+      }
+      return this;
+    }
+  }
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  ApplicationEventPublisher eventPublisher;
+
+  @Value("${app.users.writeBehind.batchSize:200}")
+  int batchSize = 200;
+
+  Clock clock = Clock.systemUTC();
+
+  private final Map<String, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+  @PreDestroy
+  void stop() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.error("final write-behind flush of user profiles failed", e);
+    }
+  }
+
+  @EventListener
+  public void onLogin(AuthenticationSuccessEvent event) {
+    if (event.getAuthentication().getPrincipal() instanceof OAuth2User) {
+      recordLogin((OAuth2User) event.getAuthentication().getPrincipal());
+    }
+  }
+
+  public void recordLogin(OAuth2User oAuthUser) {
+    String email = oAuthUser.getAttribute("email");
+    if (email == null) {
+      return;
+    }
+    PendingUpdate update = new PendingUpdate();
+    update.profile = oAuthUser;
+    update.lastLogin = clock.instant();
+    pending.merge(email, update, PendingUpdate::merge);
+  }
+
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Writes everything queued so far, in batches of app.users.writeBehind.batchSize.
+   * If the transaction does not commit, the drained changes are queued again
+   * (under anything queued since) and retried on the next flush.
+   */
+  @Scheduled(fixedDelayString = "${app.users.writeBehind.flushMillis:2000}")
+  @Transactional
+  public void flush() {
+    Map<String, PendingUpdate> drained = new HashMap<>();
+    boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+    if (inTransaction) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status != STATUS_COMMITTED) {
+            requeue(drained);
+          }
+        }
+      });
+    }
+    try {
+      while (!pending.isEmpty()) {
+        Map<String, PendingUpdate> batch = new HashMap<>();
+        for (String email : pending.keySet()) {
+          if (batch.size() >= batchSize) {
+            break;
+          }
+          PendingUpdate update = pending.remove(email);
+          if (update != null) {
+            batch.put(email, update);
+          }
+        }
+        drained.putAll(batch);
+        for (User user : apply(batch)) {
+          eventPublisher.publishEvent(new UserUpdatedEvent(user));
+        }
+      }
+    } catch (RuntimeException e) {
+      if (!inTransaction) {
+        requeue(drained);
+      }
+      throw e;
+    }
+  }
+
+  private void requeue(Map<String, PendingUpdate> drained) {
+    drained.forEach((email, update) -> pending.merge(email, update, (newer, older) -> older.merge(newer)));
+  }
+
+  private List<User> apply(Map<String, PendingUpdate> batch) {
+    List<User> users = new ArrayList<>();
+    for (User user : userRepository.findAllByEmailIn(batch.keySet())) {
+      PendingUpdate update = batch.get(user.getEmail());
+      if (update == null) {
+        continue;
+      }
+      if (update.profile != null) {
+        refreshProfile(user, update.profile);
+      }
+      if (update.lastLogin != null) {
+        user.setLastLogin(update.lastLogin);
+      }
+      users.add(user);
+    }
+    // the users are managed by the flush transaction, so these go out as batched UPDATEs at commit
+    userRepository.saveAll(users);
+    return users;
+  }
+
+  private static void refreshProfile(User user, OAuth2User profile) {
+    user.setPictureUrl(profile.getAttribute("picture"));
+    user.setFullName(profile.getAttribute("name"));
+    user.setGivenName(profile.getAttribute("given_name"));
+    user.setFamilyName(profile.getAttribute("family_name"));
+    user.setEmailVerified(Boolean.TRUE.equals(profile.getAttribute("email_verified")));
+    user.setLocale(profile.getAttribute("locale"));
+    user.setHostedDomain(profile.getAttribute("hd"));
+  }
+}
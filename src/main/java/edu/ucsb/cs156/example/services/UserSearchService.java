@@ -0,0 +1,229 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSearchResults;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory prefix index over users' email, full name and family name.
+ *
+ * Every user contributes up to three normalized terms (lower case, accents
+ * and repeated spaces removed) to a sorted map keyed by "term NUL id", so a
+ * prefix search is a range scan. A user matching several terms is reported
+ * once, at its smallest matching term, which keeps paging with the opaque
+ * "after" cursor stable.
+ *
+ * The index is loaded from the users table on first use and kept current
+ * by UserUpdatedEvent for changes made on this node. Users created or
+ * changed through other nodes (e.g. their first login there) are picked up
+ * by reloading the table on the first search after
+ * app.users.search.ttlSeconds.
+ */
+
+@Slf4j
+@Service("userSearch")
+public class UserSearchService {
+
+  public static final int MAX_LIMIT = 100;
+
+  private static final char SEPARATOR = '\u0000';
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Value("${app.users.search.ttlSeconds:60}")
+  long ttlSeconds = 60;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private final NavigableMap<String, Long> terms = new ConcurrentSkipListMap<>();
+  private final Map<Long, User> users = new ConcurrentHashMap<>();
+  private volatile boolean loaded = false;
+  private volatile long loadedAt;
+
+  public UserSearchResults search(String query, int limit, String after) {
+    ensureLoaded();
+    String prefix = normalize(query);
+    int max = Math.min(Math.max(limit, 1), MAX_LIMIT);
+    String from = prefix;
+    boolean inclusive = true;
+    String cursor = decodeCursor(after);
+    if (cursor != null && cursor.compareTo(prefix) > 0) {
+      from = cursor;
+      inclusive = false;
+    }
+
+    List<User> page = new ArrayList<>();
+    String lastKey = null;
+    for (Map.Entry<String, Long> entry : terms.tailMap(from, inclusive).entrySet()) {
+      String key = entry.getKey();
+      if (!key.startsWith(prefix)) {
+        break;
+      }
+      User user = users.get(entry.getValue());
+      if (user == null || !key.equals(firstMatchingKey(user, prefix))) {
+        continue;
+      }
+      if (page.size() == max) {
+        // there is at least one more result
+        return new UserSearchResults(page, encodeCursor(lastKey));
+      }
+      page.add(user);
+      lastKey = key;
+    }
+    return new UserSearchResults(page, null);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onUserUpdated(UserUpdatedEvent event) {
+    if (loaded && event.getUser() != null) {
+      addLocked(snapshot(event.getUser()));
+    }
+  }
+
+  public int size() {
+    return users.size();
+  }
+
+  /** Loads the index now rather than on the first search. */
+  public void warmUp() {
+    ensureLoaded();
+  }
+
+  private void ensureLoaded() {
+    if (isFresh()) {
+      return;
+    }
+    synchronized (this) {
+      if (isFresh()) {
+        return;
+      }
+      // updated in place rather than cleared, so that concurrent searches keep finding everyone
+      Set<Long> found = new HashSet<>();
+      for (User user : userRepository.findAll()) {
+        addLocked(snapshot(user));
+        found.add(user.getId());
+      }
+      for (Long id : List.copyOf(users.keySet())) {
+        if (!found.contains(id)) {
+          removeLocked(id);
+        }
+      }
+      if (loaded) {
+        log.debug("user search index reloaded with {} users", users.size());
+      } else {
+        log.info("user search index loaded with {} users", users.size());
+      }
+      loaded = true;
+      loadedAt = nanoClock.getAsLong();
+    }
+  }
+
+  private boolean isFresh() {
+    return loaded && nanoClock.getAsLong() - loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+
+  private void removeLocked(long id) {
+    User old = users.remove(id);
+    if (old != null) {
+      for (String key : keys(old)) {
+        terms.remove(key);
+      }
+    }
+  }
+
+  private void addLocked(User user) {
+    User old = users.put(user.getId(), user);
+    if (old != null) {
+      for (String key : keys(old)) {
+        terms.remove(key);
+      }
+    }
+    for (String key : keys(user)) {
+      terms.put(key, user.getId());
+    }
+  }
+
+  private static TreeSet<String> keys(User user) {
+    TreeSet<String> keys = new TreeSet<>();
+    for (String field : new String[] { user.getEmail(), user.getFullName(), user.getFamilyName() }) {
+      String term = normalize(field);
+      if (!term.isEmpty()) {
+        keys.add(term + SEPARATOR + user.getId());
+      }
+    }
+    return keys;
+  }
+
+  private static String firstMatchingKey(User user, String prefix) {
+    for (String key : keys(user)) {
+      if (key.startsWith(prefix)) {
+        return key;
+      }
+    }
+    return null;
+  }
+
+  // copied so that later changes to a managed entity cannot leave stale terms behind
+  private static User snapshot(User user) {
+    return User.builder()
+        .id(user.getId())
+        .email(user.getEmail())
+        .googleSub(user.getGoogleSub())
+        .pictureUrl(user.getPictureUrl())
+        .fullName(user.getFullName())
+        .givenName(user.getGivenName())
+        .familyName(user.getFamilyName())
+        .emailVerified(user.getEmailVerified())
+        .locale(user.getLocale())
+        .hostedDomain(user.getHostedDomain())
+        .admin(user.getAdmin())
+        .lastLogin(user.getLastLogin())
+        .build();
+  }
+
+  static String normalize(String s) {
+    if (s == null) {
+      return "";
+    }
+    String stripped = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    return stripped.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  private static String encodeCursor(String key) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decodeCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
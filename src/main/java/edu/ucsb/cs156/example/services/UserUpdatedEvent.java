@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+
+/**
+ * Published (via ApplicationEventPublisher) when a row of the users table
+ * is inserted or updated, so that anything caching users can refresh.
+ * Listeners use @TransactionalEventListener(fallbackExecution = true), so a
+ * change made inside a transaction is only seen once it has committed.
+ */
+@Data
+@AllArgsConstructor
+public class UserUpdatedEvent {
+  private User user;
+
+  public String getEmail() {
+    return user.getEmail();
+  }
+}
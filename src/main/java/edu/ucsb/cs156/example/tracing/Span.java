@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.example.tracing;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation in a trace. The span started last on a thread (and not
+ * yet ended) is current(); Span.start() makes a child of it, so
+ * instrumented code needs no reference to the Tracer:
+ *
+ * <pre>
+ * Span span = Span.start("AvatarService.fetch");
+ * try { ... } catch (RuntimeException e) { span.recordException(e); throw e; } finally { span.end(); }
+ * </pre>
+ *
+ * When no span is current (outside a traced request), start() returns a
+ * no-op span. Spans must be ended on the thread that started them.
+ */
+public class Span {
+
+  public enum Kind { SERVER, INTERNAL, CLIENT }
+
+  private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+  private static final Span NOOP = new Span(null, null, null, "noop", Kind.INTERNAL) {
+    @Override
+    public Span setAttribute(String key, Object value) {
+      return this;
+    }
+
+    @Override
+    public void recordException(Throwable t) {
+    }
+
+    @Override
+    public void end() {
+    }
+  };
+
+  private final Tracer tracer;
+  private final TraceContext context;
+  private final Span parent;
+  private final String parentSpanId;
+  private String name;
+  private final Kind kind;
+  private final Instant startTime;
+  private final long startNanos;
+  private long durationNanos = -1;
+  private boolean error;
+  private Map<String, Object> attributes;
+
+  Span(Tracer tracer, TraceContext context, String parentSpanId, String name, Kind kind) {
+    this.tracer = tracer;
+    this.context = context;
+    this.parent = CURRENT.get();
+    this.parentSpanId = parentSpanId;
+    this.name = name;
+    this.kind = kind;
+    this.startTime = Instant.now();
+    this.startNanos = System.nanoTime();
+  }
+
+  public static Span current() {
+    return CURRENT.get();
+  }
+
+  public static Span start(String name) {
+    return start(name, Kind.INTERNAL);
+  }
+
+  public static Span start(String name, Kind kind) {
+    Span parent = CURRENT.get();
+    if (parent == null) {
+      return NOOP;
+    }
+    Span span = new Span(parent.tracer,
+        new TraceContext(parent.context.traceId(), TraceContext.newSpanId(), parent.context.sampled()),
+        parent.context.spanId(), name, kind);
+    CURRENT.set(span);
+    return span;
+  }
+
+  static Span startRoot(Tracer tracer, TraceContext context, String parentSpanId, String name, Kind kind) {
+    Span span = new Span(tracer, context, parentSpanId, name, kind);
+    CURRENT.set(span);
+    return span;
+  }
+
+  public boolean isNoop() {
+    return this == NOOP;
+  }
+
+  public TraceContext getContext() {
+    return context;
+  }
+
+  public String getParentSpanId() {
+    return parentSpanId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public Instant getStartTime() {
+    return startTime;
+  }
+
+  /** -1 until the span has ended. */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public boolean isError() {
+    return error;
+  }
+
+  public Map<String, Object> getAttributes() {
+    return attributes == null ? Map.of() : attributes;
+  }
+
+  public Span setAttribute(String key, Object value) {
+    if (context.sampled() && value != null) {
+      if (attributes == null) {
+        attributes = new LinkedHashMap<>();
+      }
+      attributes.put(key, value);
+    }
+    return this;
+  }
+
+  public void setError(boolean error) {
+    this.error = error;
+  }
+
+  public void recordException(Throwable t) {
+    error = true;
+    setAttribute("exception.type", t.getClass().getName());
+    setAttribute("exception.message", t.getMessage());
+  }
+
+  public void end() {
+    if (durationNanos >= 0) {
+      return;
+    }
+    durationNanos = System.nanoTime() - startNanos;
+    if (CURRENT.get() == this) {
+      if (parent == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(parent);
+      }
+    }
+    if (context.sampled()) {
+      tracer.export(this);
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.example.tracing;
+
+/**
+ * Receives each sampled span when it ends. Called on the thread that ended
+ * the span, so implementations must not block. Define a bean of this type
+ * to replace the default JsonLinesSpanExporter.
+ */
+public interface SpanExporter {
+  void export(Span span);
+}
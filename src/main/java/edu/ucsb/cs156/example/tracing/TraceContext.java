@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * The ids that identify a span across processes, as carried in a W3C
+ * traceparent header ("00-{traceId}-{spanId}-{flags}").
+ */
+public record TraceContext(String traceId, String spanId, boolean sampled) {
+
+  public static final String TRACEPARENT = "traceparent";
+
+  private static final Pattern TRACEPARENT_FORMAT =
+      Pattern.compile("[0-9a-f]{2}-[0-9a-f]{32}-[0-9a-f]{16}-[0-9a-f]{2}");
+  private static final String INVALID_TRACE_ID = "0".repeat(32);
+  private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+  /** The context in a traceparent header, or null if it is missing or malformed. */
+  public static TraceContext parse(String traceparent) {
+    if (traceparent == null) {
+      return null;
+    }
+    String value = traceparent.trim();
+    // later versions may append fields; version ff is invalid
+    if (value.length() < 55 || !TRACEPARENT_FORMAT.matcher(value.substring(0, 55)).matches()
+        || value.startsWith("ff") || (value.startsWith("00") && value.length() != 55)) {
+      return null;
+    }
+    String traceId = value.substring(3, 35);
+    String spanId = value.substring(36, 52);
+    if (traceId.equals(INVALID_TRACE_ID) || spanId.equals(INVALID_SPAN_ID)) {
+      return null;
+    }
+    boolean sampled = (Integer.parseInt(value.substring(53, 55), 16) & 1) == 1;
+    return new TraceContext(traceId, spanId, sampled);
+  }
+
+  public String traceparent() {
+    return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+  }
+
+  static String newTraceId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String id;
+    do {
+      id = hex(random.nextLong()) + hex(random.nextLong());
+    } while (id.equals(INVALID_TRACE_ID));
+    return id;
+  }
+
+  static String newSpanId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String id;
+    do {
+      id = hex(random.nextLong());
+    } while (id.equals(INVALID_SPAN_ID));
+    return id;
+  }
+
+  private static String hex(long value) {
+    String digits = Long.toHexString(value);
+    return "0".repeat(16 - digits.length()) + digits;
+  }
+}
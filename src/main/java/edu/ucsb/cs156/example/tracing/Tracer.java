@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts the root span of each request (see TracingFilter) and exports
+ * sampled spans. A request that arrives with a traceparent header
+ * continues that trace and keeps its sampling decision; otherwise a new
+ * trace is sampled with probability sampleRatio.
+ */
+@Slf4j
+public class Tracer {
+
+  private final SpanExporter exporter;
+  private final double sampleRatio;
+
+  public Tracer(SpanExporter exporter, double sampleRatio) {
+    this.exporter = exporter;
+    this.sampleRatio = sampleRatio;
+  }
+
+  /** Starts a span that continues remoteParent, or starts a new trace if it is null. */
+  public Span startSpan(String name, Span.Kind kind, TraceContext remoteParent) {
+    if (remoteParent != null) {
+      return Span.startRoot(this,
+          new TraceContext(remoteParent.traceId(), TraceContext.newSpanId(), remoteParent.sampled()),
+          remoteParent.spanId(), name, kind);
+    }
+    boolean sampled = sampleRatio >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRatio;
+    return Span.startRoot(this, new TraceContext(TraceContext.newTraceId(), TraceContext.newSpanId(), sampled),
+        null, name, kind);
+  }
+
+  void export(Span span) {
+    try {
+      exporter.export(span);
+    } catch (RuntimeException e) {
+      log.warn("could not export span {}: {}", span.getName(), e.toString());
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.tracing;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Wraps each request in a SERVER span that continues the trace in the
+ * request's traceparent header, if any, and reports the trace back in a
+ * traceresponse header. The span is named after the route
+ * ("GET /api/books"), once Spring MVC has matched one.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+  public static final String TRACERESPONSE = "traceresponse";
+
+  private final Tracer tracer;
+
+  public TracingFilter(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    TraceContext remoteParent = TraceContext.parse(request.getHeader(TraceContext.TRACEPARENT));
+    Span span = tracer.startSpan(request.getMethod(), Span.Kind.SERVER, remoteParent);
+    response.setHeader(TRACERESPONSE, span.getContext().traceparent());
+    span.setAttribute("http.method", request.getMethod());
+    span.setAttribute("http.target", request.getRequestURI());
+    span.setAttribute("http.user_agent", request.getHeader("User-Agent"));
+    try {
+      chain.doFilter(request, response);
+    } catch (IOException | ServletException | RuntimeException e) {
+      span.recordException(e);
+      throw e;
+    } finally {
+      Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      if (route != null) {
+        span.setName(request.getMethod() + " " + route);
+        span.setAttribute("http.route", route);
+      }
+      int status = span.isError() ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+      span.setAttribute("http.status_code", status);
+      if (status >= 500) {
+        span.setError(true);
+      }
+      span.end();
+    }
+  }
+}
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS schools_district_idx ON schools (district);
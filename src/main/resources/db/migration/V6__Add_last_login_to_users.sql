@@ -0,0 +1 @@
+ALTER TABLE users ADD last_login TIMESTAMP;
@@ -0,0 +1,4 @@
+-- keep the oldest row for any email that was inserted twice before the constraint existed
+DELETE FROM users a USING users b WHERE a.email = b.email AND a.id > b.id;
+-- same name as the @Table index on User, so hibernate's schema update recognizes it
+ALTER TABLE users ADD CONSTRAINT users_email_idx UNIQUE (email);
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS http_sessions (
+  primary_id VARCHAR(255) PRIMARY KEY,
+  session_id VARCHAR(255),
+  creation_time BIGINT NOT NULL,
+  last_accessed_time BIGINT NOT NULL,
+  max_inactive_seconds INTEGER NOT NULL,
+  expiry_time BIGINT NOT NULL,
+  attribute_bytes BYTEA,
+  CONSTRAINT http_sessions_session_id_idx UNIQUE (session_id)
+);
+CREATE INDEX IF NOT EXISTS http_sessions_expiry_time_idx ON http_sessions (expiry_time);
@@ -8,10 +8,14 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import edu.ucsb.cs156.example.diagnostics.ThreadAllocations;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
@@ -35,4 +39,27 @@ public abstract class ControllerTestCase {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
   }
+
+  /**
+   * Fails if performing request allocates more than maxBytes, to catch
+   * allocation regressions (e.g. in serializing a list of entities). MockMvc
+   * handles the request on the test thread, so this is what the request
+   * allocated there, mocks included; it is the least of several runs, which
+   * leaves out one-time class loading and caching. Returns the bytes
+   * allocated, or -1 (and asserts nothing) on a JVM that does not count them.
+   */
+  protected long assertAllocatesAtMost(long maxBytes, RequestBuilder request) throws Exception {
+    if (!ThreadAllocations.isSupported()) {
+      return -1;
+    }
+    long least = Long.MAX_VALUE;
+    for (int run = 0; run < 10; run++) {
+      long start = ThreadAllocations.current();
+      mockMvc.perform(request);
+      least = Math.min(least, ThreadAllocations.current() - start);
+    }
+    long allocated = least;
+    assertTrue(allocated <= maxBytes, () -> "request allocated " + allocated + " bytes, over the budget of " + maxBytes);
+    return allocated;
+  }
 }
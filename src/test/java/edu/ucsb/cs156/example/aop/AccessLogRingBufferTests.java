@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class AccessLogRingBufferTests {
+
+  private static List<String> drainUris(AccessLogRingBuffer ring) {
+    List<String> uris = new ArrayList<>();
+    ring.drain(event -> uris.add(event.getUri()));
+    return uris;
+  }
+
+  @Test
+  public void test_events_are_drained_in_order_and_slots_reused() {
+    AccessLogRingBuffer ring = new AccessLogRingBuffer(4);
+
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 3; i++) {
+        assertTrue(ring.offer(i, "GET", "/api/" + round + "/" + i, "BooksController", "allBooks"));
+      }
+      assertEquals(3, ring.size());
+      assertEquals(List.of("/api/" + round + "/0", "/api/" + round + "/1", "/api/" + round + "/2"),
+          drainUris(ring));
+      assertEquals(0, ring.size());
+    }
+    assertEquals(List.of(), drainUris(ring));
+  }
+
+  @Test
+  public void test_full_ring_drops_instead_of_blocking() {
+    AccessLogRingBuffer ring = new AccessLogRingBuffer(2);
+
+    assertTrue(ring.offer(1, "GET", "/a", "C", "m"));
+    assertTrue(ring.offer(2, "GET", "/b", "C", "m"));
+    assertFalse(ring.offer(3, "GET", "/c", "C", "m"));
+
+    assertEquals(1, ring.getDropped());
+    assertEquals(List.of("/a", "/b"), drainUris(ring));
+    assertTrue(ring.offer(4, "GET", "/d", "C", "m"));
+    assertEquals(List.of("/d"), drainUris(ring));
+  }
+
+  @Test
+  public void test_capacity_must_be_a_power_of_two() {
+    assertThrows(IllegalArgumentException.class, () -> new AccessLogRingBuffer(1000));
+  }
+
+  @Test
+  public void test_concurrent_producers_lose_nothing_that_was_accepted() throws Exception {
+    AccessLogRingBuffer ring = new AccessLogRingBuffer(64);
+    Set<String> received = new HashSet<>();
+    Thread drainer = new Thread(() -> ring.drainUntilInterrupted(event -> received.add(event.getUri()),
+        TimeUnit.MICROSECONDS.toNanos(100)));
+    drainer.start();
+
+    int producers = 4;
+    int perProducer = 5000;
+    List<Thread> threads = new ArrayList<>();
+    Set<String> accepted = ConcurrentHashMap.newKeySet();
+    for (int p = 0; p < producers; p++) {
+      int id = p;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          String uri = "/" + id + "/" + i;
+          if (ring.offer(i, "GET", uri, "C", "m")) {
+            accepted.add(uri);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    drainer.interrupt();
+    drainer.join(5000);
+
+    assertEquals(producers * perProducer, accepted.size() + ring.getDropped());
+    assertEquals(accepted, received);
+    assertEquals(0, ring.size());
+  }
+}
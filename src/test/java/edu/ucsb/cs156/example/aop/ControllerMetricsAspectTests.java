@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ControllerMetricsAspectTests {
+
+  public static class WidgetsController {
+    CountDownLatch release = new CountDownLatch(0);
+
+    @GetMapping("/api/widgets")
+    public String all() throws InterruptedException {
+      release.await();
+      return "widgets";
+    }
+
+    @PostMapping("/api/widgets")
+    public ResponseEntity<String> create() {
+      return ResponseEntity.status(HttpStatus.CREATED).body("created");
+    }
+
+    @GetMapping("/api/widgets/missing")
+    public String missing() {
+      throw new EntityNotFoundException(String.class, 7L);
+    }
+
+    @GetMapping("/api/widgets/teapot")
+    public String teapot() {
+      throw new ResponseStatusException(HttpStatus.I_AM_A_TEAPOT);
+    }
+
+    public String notAHandler() {
+      return "plain";
+    }
+  }
+
+  SimpleMeterRegistry registry;
+  WidgetsController target;
+  WidgetsController controller;
+  ExecutorService pool = Executors.newSingleThreadExecutor();
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    ControllerMetricsAspect aspect = new ControllerMetricsAspect();
+    aspect.meterRegistry = registry;
+    target = new WidgetsController();
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.setProxyTargetClass(true);
+    factory.addAspect(aspect);
+    controller = factory.getProxy();
+  }
+
+  @AfterEach
+  void stopPool() {
+    pool.shutdownNow();
+  }
+
+  private Timer timer(String method, String status) {
+    return registry.get("app.controller.requests")
+        .tag("controller", "WidgetsController")
+        .tag("method", method)
+        .tag("status", status)
+        .timer();
+  }
+
+  @Test
+  public void test_handlers_are_timed_by_controller_method_and_status() throws Exception {
+    controller.all();
+    controller.all();
+    controller.create();
+
+    assertEquals(2, timer("all", "200").count());
+    assertEquals(1, timer("create", "201").count());
+    ValueAtPercentile[] percentiles = timer("all", "200").takeSnapshot().percentileValues();
+    assertEquals(3, percentiles.length);
+    assertEquals(0.5, percentiles[0].percentile());
+    assertEquals(0.99, percentiles[2].percentile());
+  }
+
+  @Test
+  public void test_exceptions_are_counted_with_their_status() {
+    assertThrows(EntityNotFoundException.class, () -> controller.missing());
+    assertThrows(ResponseStatusException.class, () -> controller.teapot());
+    assertThrows(EntityNotFoundException.class, () -> controller.missing());
+
+    assertEquals(2, timer("missing", "404").count());
+    assertEquals(1, timer("teapot", "418").count());
+    assertEquals(2.0, registry.get("app.controller.errors")
+        .tag("method", "missing")
+        .tag("exception", "EntityNotFoundException")
+        .counter().count());
+    assertEquals("500", ControllerMetricsAspect.statusOfException(new IllegalStateException()));
+  }
+
+  @Test
+  public void test_in_flight_handlers_are_reported() throws Exception {
+    target.release = new CountDownLatch(1);
+    Future<String> running = pool.submit(() -> controller.all());
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.find("app.controller.active").tag("method", "all").longTaskTimer() == null
+        || registry.get("app.controller.active").tag("method", "all").longTaskTimer().activeTasks() == 0) {
+      assertTrue(System.nanoTime() < deadline);
+      Thread.sleep(5);
+    }
+    target.release.countDown();
+    assertEquals("widgets", running.get(5, TimeUnit.SECONDS));
+    assertEquals(0, registry.get("app.controller.active").tag("method", "all").longTaskTimer().activeTasks());
+  }
+
+  @Test
+  public void test_other_methods_are_not_timed() {
+    controller.notAHandler();
+    assertTrue(registry.find("app.controller.requests").tag("method", "notAHandler").timer() == null);
+  }
+}
@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrEventsAspectTests {
+
+  public static class Widget {
+  }
+
+  public interface WidgetRepository extends Repository<Widget, Long> {
+    List<Widget> findAll();
+
+    Optional<Widget> findById(Long id);
+  }
+
+  public static class InMemoryWidgetRepository implements WidgetRepository {
+    public List<Widget> findAll() {
+      return List.of(new Widget(), new Widget());
+    }
+
+    public Optional<Widget> findById(Long id) {
+      return Optional.empty();
+    }
+  }
+
+  public static class WidgetsController {
+    WidgetRepository repository;
+
+    @GetMapping("/api/widgets")
+    public List<Widget> all() {
+      return repository.findAll();
+    }
+
+    @GetMapping("/api/widgets/{id}")
+    public Widget one(Long id) {
+      return repository.findById(id).orElseThrow(() -> new EntityNotFoundException(Widget.class, id));
+    }
+  }
+
+  WidgetsController controller;
+  Recording recording;
+
+  @BeforeEach
+  void setup() {
+    JfrEventsAspect aspect = new JfrEventsAspect();
+
+    AspectJProxyFactory repositoryFactory = new AspectJProxyFactory(new InMemoryWidgetRepository());
+    repositoryFactory.addInterface(WidgetRepository.class);
+    repositoryFactory.addAspect(aspect);
+
+    WidgetsController target = new WidgetsController();
+    target.repository = repositoryFactory.getProxy();
+    AspectJProxyFactory controllerFactory = new AspectJProxyFactory(target);
+    controllerFactory.setProxyTargetClass(true);
+    controllerFactory.addAspect(aspect);
+    controller = controllerFactory.getProxy();
+
+    recording = new Recording();
+    recording.enable(ControllerEvent.class);
+    recording.enable(RepositoryEvent.class);
+  }
+
+  @AfterEach
+  void teardown() {
+    recording.close();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private void request(String uri, String pattern) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  private List<RecordedEvent> events(String name) throws Exception {
+    Path file = Files.createTempFile("jfr-events", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(e -> e.getEventType().getName().equals(name))
+          .toList();
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void test_controller_and_repository_calls_are_recorded() throws Exception {
+    recording.start();
+    request("/api/widgets", "/api/widgets");
+    assertEquals(2, controller.all().size());
+    request("/api/widgets/7", "/api/widgets/{id}");
+    assertThrows(EntityNotFoundException.class, () -> controller.one(7L));
+    recording.stop();
+
+    List<RecordedEvent> calls = events("edu.ucsb.cs156.example.ControllerCall");
+    assertEquals(2, calls.size());
+    assertEquals("WidgetsController.all", calls.get(0).getString("handler"));
+    assertEquals("GET", calls.get(0).getString("httpMethod"));
+    assertEquals("/api/widgets", calls.get(0).getString("uri"));
+    assertEquals(200, calls.get(0).getInt("status"));
+    assertEquals("/api/widgets/{id}", calls.get(1).getString("uri"));
+    assertEquals(404, calls.get(1).getInt("status"));
+    assertEquals("EntityNotFoundException", calls.get(1).getString("exception"));
+
+    List<RecordedEvent> queries = events("edu.ucsb.cs156.example.RepositoryCall");
+    assertEquals(2, queries.size());
+    assertEquals("Widget", queries.get(0).getString("entity"));
+    assertEquals("findAll", queries.get(0).getString("method"));
+    assertEquals(2, queries.get(0).getLong("rows"));
+    assertEquals(-1, queries.get(0).getInt("statements"));
+    assertEquals("findById", queries.get(1).getString("method"));
+    assertEquals(0, queries.get(1).getLong("rows"));
+  }
+
+  @Test
+  public void test_nothing_is_recorded_without_a_recording() throws Exception {
+    request("/api/widgets", "/api/widgets");
+    controller.all();
+    recording.start();
+    recording.stop();
+
+    assertEquals(0, events("edu.ucsb.cs156.example.ControllerCall").size());
+  }
+
+  @Test
+  public void test_rows() {
+    assertEquals(0, JfrEventsAspect.rows(null));
+    assertEquals(1, JfrEventsAspect.rows(Optional.of(new Widget())));
+    assertEquals(1, JfrEventsAspect.rows(new Widget()));
+    assertEquals(-1, JfrEventsAspect.rows(42L));
+  }
+}
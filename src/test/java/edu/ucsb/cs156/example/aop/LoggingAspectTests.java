@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class LoggingAspectTests {
+
+  public static class PingController {
+    @GetMapping("/api/ping")
+    public String ping() {
+      return "pong";
+    }
+
+    @PostMapping("/api/ping")
+    public String post() {
+      return "posted";
+    }
+  }
+
+  public static class QuietController {
+    @GetMapping("/api/quiet")
+    public String quiet() {
+      return "shh";
+    }
+  }
+
+  LoggingAspect aspect;
+
+  @BeforeEach
+  void setup() {
+    aspect = new LoggingAspect();
+    aspect.stoplist = List.of(QuietController.class.getName());
+    // no drainer thread: the tests drain the ring themselves
+    aspect.ring = new AccessLogRingBuffer(16);
+  }
+
+  @AfterEach
+  void clearRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T proxy(T target) {
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.setProxyTargetClass(true);
+    factory.addAspect(aspect);
+    return (T) factory.getProxy();
+  }
+
+  private void inRequest(String method, String uri) {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(method, uri)));
+  }
+
+  private List<String> drain() {
+    List<String> lines = new ArrayList<>();
+    aspect.ring.drain(event -> lines.add(event.getHttpMethod() + " " + event.getUri() + " "
+        + event.getController().substring(event.getController().lastIndexOf('$') + 1) + "." + event.getHandler()));
+    return lines;
+  }
+
+  @Test
+  public void test_handler_calls_are_queued_for_the_access_log() {
+    PingController controller = proxy(new PingController());
+
+    inRequest("GET", "/api/ping");
+    controller.ping();
+    inRequest("POST", "/api/ping");
+    controller.post();
+
+    assertEquals(List.of("GET /api/ping PingController.ping", "POST /api/ping PingController.post"), drain());
+  }
+
+  @Test
+  public void test_stoplisted_controllers_and_calls_outside_requests_are_not_logged() {
+    QuietController quiet = proxy(new QuietController());
+    PingController ping = proxy(new PingController());
+
+    inRequest("GET", "/api/quiet");
+    quiet.quiet();
+    RequestContextHolder.resetRequestAttributes();
+    ping.ping();
+
+    assertEquals(List.of(), drain());
+  }
+
+  @Test
+  public void test_sampling_logs_every_nth_call_per_handler() {
+    aspect.sampleEvery = 3;
+    PingController controller = proxy(new PingController());
+
+    inRequest("GET", "/api/ping");
+    for (int i = 0; i < 7; i++) {
+      controller.ping();
+    }
+    controller.post();
+
+    assertEquals(List.of("GET /api/ping PingController.ping", "GET /api/ping PingController.ping",
+        "GET /api/ping PingController.ping", "GET /api/ping PingController.post"), drain());
+  }
+
+  @Test
+  public void test_handlers_are_resolved_once() throws Exception {
+    var method = PingController.class.getMethod("ping");
+    assertSame(aspect.handler(method), aspect.handler(method));
+  }
+}
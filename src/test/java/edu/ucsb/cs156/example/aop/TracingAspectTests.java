@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import edu.ucsb.cs156.example.aop.JfrEventsAspectTests.InMemoryWidgetRepository;
+import edu.ucsb.cs156.example.aop.JfrEventsAspectTests.WidgetRepository;
+import edu.ucsb.cs156.example.aop.JfrEventsAspectTests.WidgetsController;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.tracing.Span;
+import edu.ucsb.cs156.example.tracing.Tracer;
+
+public class TracingAspectTests {
+
+  WidgetsController controller;
+  List<Span> exported = new ArrayList<>();
+  Tracer tracer = new Tracer(exported::add, 1.0);
+
+  @BeforeEach
+  void setup() {
+    TracingAspect aspect = new TracingAspect();
+
+    AspectJProxyFactory repositoryFactory = new AspectJProxyFactory(new InMemoryWidgetRepository());
+    repositoryFactory.addInterface(WidgetRepository.class);
+    repositoryFactory.addAspect(aspect);
+
+    WidgetsController target = new WidgetsController();
+    target.repository = repositoryFactory.getProxy();
+    AspectJProxyFactory controllerFactory = new AspectJProxyFactory(target);
+    controllerFactory.setProxyTargetClass(true);
+    controllerFactory.addAspect(aspect);
+    controller = controllerFactory.getProxy();
+  }
+
+  @Test
+  public void test_handler_and_repository_spans_join_the_request_trace() {
+    Span request = tracer.startSpan("GET /api/widgets", Span.Kind.SERVER, null);
+    controller.all();
+    assertThrows(EntityNotFoundException.class, () -> controller.one(7L));
+    request.end();
+
+    assertEquals(List.of("WidgetRepository.findAll", "WidgetsController.all",
+        "WidgetRepository.findById", "WidgetsController.one", "GET /api/widgets"),
+        exported.stream().map(Span::getName).toList());
+    assertEquals(exported.get(1).getContext().spanId(), exported.get(0).getParentSpanId());
+    assertEquals(request.getContext().spanId(), exported.get(1).getParentSpanId());
+    assertEquals("Widget", exported.get(0).getAttributes().get("db.entity"));
+    assertTrue(exported.get(3).isError());
+  }
+
+  @Test
+  public void test_nothing_is_traced_outside_a_request() {
+    controller.all();
+    assertTrue(exported.isEmpty());
+  }
+}
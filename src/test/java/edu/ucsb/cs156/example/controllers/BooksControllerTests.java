@@ -159,6 +159,26 @@ public class BooksControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void getting_all_books_stays_within_its_allocation_budget() throws Exception {
+
+                // arrange
+                ArrayList<Book> books = new ArrayList<>();
+                for (long id = 1; id <= 100; id++) {
+                        books.add(Book.builder()
+                                        .id(id)
+                                        .title("A Canticle for Leibowitz, volume " + id)
+                                        .author("Walter Miller Jr.")
+                                        .genre("Post-Apocalyptic Science Fiction")
+                                        .build());
+                }
+                when(bookRepository.findAll()).thenReturn(books);
+
+                // act and assert: about 170 KB when this budget was set
+                assertAllocatesAtMost(512 * 1024, get("/api/books/all"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_book() throws Exception {
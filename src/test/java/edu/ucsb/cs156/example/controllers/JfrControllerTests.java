@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.JfrRecordingStatus;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.FlightRecorderService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@WebMvcTest(controllers = JfrController.class)
+@Import(TestConfig.class)
+public class JfrControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  FlightRecorderService flightRecorderService;
+
+  @TempDir
+  Path dir;
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void start__regular_users_are_forbidden() throws Exception {
+    mockMvc.perform(post("/api/admin/jfr/start").with(csrf()))
+        .andExpect(status().is(403));
+    verify(flightRecorderService, never()).start(anyString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void start__starts_a_recording() throws Exception {
+    when(flightRecorderService.start("profile"))
+        .thenReturn(JfrRecordingStatus.builder().running(true).settings("profile").build());
+
+    mockMvc.perform(post("/api/admin/jfr/start?settings=profile").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.running").value(true))
+        .andExpect(jsonPath("$.settings").value("profile"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void start__unknown_settings_are_a_bad_request() throws Exception {
+    mockMvc.perform(post("/api/admin/jfr/start?settings=everything").with(csrf()))
+        .andExpect(status().isBadRequest());
+    verify(flightRecorderService, never()).start(anyString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void start__while_running_is_a_conflict() throws Exception {
+    when(flightRecorderService.start("default")).thenThrow(new IllegalStateException("a recording is already running"));
+
+    mockMvc.perform(post("/api/admin/jfr/start").with(csrf()))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.message").value("a recording is already running"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void stop__when_not_running_is_a_conflict() throws Exception {
+    when(flightRecorderService.stop()).thenThrow(new IllegalStateException("no recording is running"));
+
+    mockMvc.perform(post("/api/admin/jfr/stop").with(csrf()))
+        .andExpect(status().isConflict());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void status__is_returned() throws Exception {
+    when(flightRecorderService.status()).thenReturn(JfrRecordingStatus.builder().downloadable(true).build());
+
+    mockMvc.perform(get("/api/admin/jfr"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.running").value(false))
+        .andExpect(jsonPath("$.downloadable").value(true));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void recording__is_downloaded_as_an_attachment() throws Exception {
+    Path file = Files.write(dir.resolve("recording-1.jfr"), new byte[] { 1, 2, 3 });
+    when(flightRecorderService.recordingFile()).thenReturn(file);
+
+    MvcResult response = mockMvc.perform(get("/api/admin/jfr/recording"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"recording-1.jfr\""))
+        .andReturn();
+    assertArrayEquals(new byte[] { 1, 2, 3 }, response.getResponse().getContentAsByteArray());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void recording__none_is_not_found() throws Exception {
+    mockMvc.perform(get("/api/admin/jfr/recording"))
+        .andExpect(status().isNotFound());
+  }
+}
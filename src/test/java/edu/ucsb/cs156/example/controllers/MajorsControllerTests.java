@@ -5,6 +5,7 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Major;
 import edu.ucsb.cs156.example.repositories.MajorRepository;
+import edu.ucsb.cs156.example.services.MajorTreeService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -40,6 +41,9 @@ public class MajorsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        MajorTreeService majorTree;
+
         // Authorization tests for /api/majors/admin/all
 
         @Test
@@ -158,6 +162,34 @@ public class MajorsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @Test
+        public void logged_out_users_cannot_get_tree() throws Exception {
+                mockMvc.perform(get("/api/majors/tree"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_tree() throws Exception {
+
+                // arrange
+
+                byte[] treeJson = "[{\"department\":\"COE\",\"majorsByDegree\":{}}]".getBytes();
+                when(majorTree.treeJson()).thenReturn(treeJson);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/majors/tree"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andReturn();
+
+                // assert
+
+                verify(majorTree, times(1)).treeJson();
+                verify(majorRepository, times(0)).findAll();
+                assertEquals(new String(treeJson), response.getResponse().getContentAsString());
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_major() throws Exception {
@@ -179,6 +211,7 @@ public class MajorsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(majorRepository, times(1)).save(major1);
+                verify(majorTree, times(1)).invalidate();
                 String expectedJson = mapper.writeValueAsString(major1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -206,6 +239,7 @@ public class MajorsControllerTests extends ControllerTestCase {
                 // assert
                 verify(majorRepository, times(1)).findById(15L);
                 verify(majorRepository, times(1)).delete(any());
+                verify(majorTree, times(1)).invalidate();
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Major with id 15 deleted", json.get("message"));
@@ -264,6 +298,7 @@ public class MajorsControllerTests extends ControllerTestCase {
                 // assert
                 verify(majorRepository, times(1)).findById(67L);
                 verify(majorRepository, times(1)).save(majorEdited); // should be saved with correct user
+                verify(majorTree, times(1)).invalidate();
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -5,8 +5,13 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.models.RoachCounterPoint;
+import edu.ucsb.cs156.example.services.RestaurantLeaderboardService;
+import edu.ucsb.cs156.example.services.RoachCounterHistoryService;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -25,6 +30,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -40,6 +46,12 @@ public class RestaurantsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        RestaurantLeaderboardService restaurantLeaderboard;
+
+        @MockBean
+        RoachCounterHistoryService roachCounterHistory;
+
         // Authorization tests for /api/phones/admin/all
 
         @Test
@@ -61,6 +73,18 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                                 .andExpect(status().is(403)); // logged out users can't get by id
         }
 
+        @Test
+        public void logged_out_users_cannot_get_leaderboard() throws Exception {
+                mockMvc.perform(get("/api/restaurants/leaderboard"))
+                                .andExpect(status().is(403));
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_history() throws Exception {
+                mockMvc.perform(get("/api/restaurants/history?id=7"))
+                                .andExpect(status().is(403));
+        }
+
         // Authorization tests for /api/phones/post
         // (Perhaps should also have these for put and delete)
 
@@ -160,6 +184,116 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_leaderboard() throws Exception {
+
+                // arrange
+
+                Restaurant restaurant1 = Restaurant.builder()
+                                .name("McDonalds")
+                                .cuisine("American")
+                                .roachCounter(699)
+                                .build();
+
+                Restaurant restaurant2 = Restaurant.builder()
+                                .name("Taco Bell")
+                                .cuisine("Mexican")
+                                .roachCounter(69)
+                                .build();
+
+                ArrayList<Restaurant> expectedRestaurants = new ArrayList<>();
+                expectedRestaurants.addAll(Arrays.asList(restaurant1, restaurant2));
+
+                when(restaurantLeaderboard.top(eq(20), eq(null))).thenReturn(expectedRestaurants);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/leaderboard"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantLeaderboard, times(1)).top(20, null);
+                verify(restaurantRepository, times(0)).findAll();
+                String expectedJson = mapper.writeValueAsString(expectedRestaurants);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_leaderboard_for_a_cuisine() throws Exception {
+
+                // arrange
+
+                Restaurant restaurant = Restaurant.builder()
+                                .name("Taco Bell")
+                                .cuisine("Mexican")
+                                .roachCounter(69)
+                                .build();
+
+                ArrayList<Restaurant> expectedRestaurants = new ArrayList<>();
+                expectedRestaurants.add(restaurant);
+
+                when(restaurantLeaderboard.top(eq(5), eq("Mexican"))).thenReturn(expectedRestaurants);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/leaderboard?n=5&cuisine=Mexican"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantLeaderboard, times(1)).top(5, "Mexican");
+                String expectedJson = mapper.writeValueAsString(expectedRestaurants);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_history() throws Exception {
+
+                // arrange
+
+                Instant from = Instant.parse("2022-01-03T00:00:00Z");
+                Instant to = Instant.parse("2022-01-04T00:00:00Z");
+                List<RoachCounterPoint> expectedPoints = List.of(
+                                new RoachCounterPoint(Instant.parse("2022-01-03T00:00:00Z"), 5),
+                                new RoachCounterPoint(Instant.parse("2022-01-03T01:00:00Z"), 7));
+
+                when(roachCounterHistory.history(eq(7L), eq(from), eq(to), eq(3600L))).thenReturn(expectedPoints);
+
+                // act
+                MvcResult response = mockMvc.perform(get(
+                                "/api/restaurants/history?id=7&from=2022-01-03T00:00:00Z&to=2022-01-04T00:00:00Z&step=3600"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(roachCounterHistory, times(1)).history(7L, from, to, 3600L);
+                String expectedJson = mapper.writeValueAsString(expectedPoints);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void history_range_and_step_are_optional() throws Exception {
+
+                // arrange
+
+                when(roachCounterHistory.history(eq(7L), eq(null), eq(null), eq(0L))).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/history?id=7"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(roachCounterHistory, times(1)).history(7L, null, null, 0L);
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_restaurant() throws Exception {
@@ -181,6 +315,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(restaurantRepository, times(1)).save(restaurant1);
+                verify(restaurantLeaderboard, times(1)).update(restaurant1);
+                verify(roachCounterHistory, times(1)).record(0L, 69);
                 String expectedJson = mapper.writeValueAsString(restaurant1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -208,6 +344,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 // assert
                 verify(restaurantRepository, times(1)).findById(15L);
                 verify(restaurantRepository, times(1)).delete(any());
+                verify(restaurantLeaderboard, times(1)).remove(15L);
+                verify(roachCounterHistory, times(1)).forget(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -266,10 +404,47 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 // assert
                 verify(restaurantRepository, times(1)).findById(67L);
                 verify(restaurantRepository, times(1)).save(restaurantEdited); // should be saved with correct user
+                verify(restaurantLeaderboard, times(1)).update(restaurantEdited);
+                verify(roachCounterHistory, times(1)).record(67L, 72);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void editing_a_restaurant_without_changing_roachCounter_records_no_history() throws Exception {
+                // arrange
+
+                Restaurant restaurantOrig = Restaurant.builder().id(67L)
+                                .name("Chipotle")
+                                .cuisine("Mexican")
+                                .roachCounter(69)
+                                .build();
+
+                Restaurant restaurantEdited = Restaurant.builder().id(67L)
+                                .name("Chipotle Mexican Grill")
+                                .cuisine("Mexican")
+                                .roachCounter(69)
+                                .build();
+
+                String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+
+                // act
+                mockMvc.perform(
+                                put("/api/restaurants?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantRepository, times(1)).save(restaurantEdited);
+                verify(roachCounterHistory, times(0)).record(eq(67L), anyInt());
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_cannot_edit_restaurant_that_does_not_exist() throws Exception {
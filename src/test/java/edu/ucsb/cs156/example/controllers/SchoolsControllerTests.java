@@ -5,10 +5,13 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Schools;
 import edu.ucsb.cs156.example.repositories.SchoolsRepository;
+import edu.ucsb.cs156.example.services.SchoolsIndexService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -40,6 +43,9 @@ public class SchoolsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        SchoolsIndexService schoolsIndex;
+
         // Authorization tests for /api/schools/admin/all
 
         @Test
@@ -160,6 +166,110 @@ public class SchoolsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @Test
+        public void logged_out_users_cannot_get_schools_serving_grade() throws Exception {
+                mockMvc.perform(get("/api/schools/servingGrade?grade=7"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_schools_serving_grade() throws Exception {
+
+                // arrange
+
+                Schools school1 = Schools.builder()
+                                .name("Goleta Valley Junior High School")
+                                .district("Santa Barbara Unified School District")
+                                .gradeRange("7-8")
+                                .build();
+
+                ArrayList<Schools> expectedSchools = new ArrayList<>();
+                expectedSchools.add(school1);
+
+                when(schoolsIndex.servingGrade(eq(7), eq("Santa Barbara Unified School District"))).thenReturn(expectedSchools);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/schools/servingGrade?grade=7&district=Santa Barbara Unified School District"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(schoolsIndex, times(1)).servingGrade(7, "Santa Barbara Unified School District");
+                verify(schoolsRepository, times(0)).findAll();
+                String expectedJson = mapper.writeValueAsString(expectedSchools);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void grade_must_be_a_number() throws Exception {
+                mockMvc.perform(get("/api/schools/servingGrade?grade=seventh"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_schools_by_district() throws Exception {
+                mockMvc.perform(get("/api/schools/byDistrict?district=Goleta Union School District"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/schools/districts"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_schools_by_district() throws Exception {
+
+                // arrange
+
+                Schools school1 = Schools.builder()
+                                .name("Isla Vista Elementary School")
+                                .district("Goleta Union School District")
+                                .gradeRange("K-6")
+                                .build();
+
+                List<Schools> expectedSchools = List.of(school1);
+
+                when(schoolsIndex.byDistrict(eq("Goleta Union School District"))).thenReturn(expectedSchools);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/schools/byDistrict?district=Goleta Union School District"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(schoolsIndex, times(1)).byDistrict("Goleta Union School District");
+                verify(schoolsRepository, times(0)).findAll();
+                String expectedJson = mapper.writeValueAsString(expectedSchools);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_district_counts() throws Exception {
+
+                // arrange
+
+                Map<String, Integer> expectedCounts = new TreeMap<>(Map.of(
+                                "Goleta Union School District", 9,
+                                "Santa Barbara Unified School District", 21));
+
+                when(schoolsIndex.districtCounts()).thenReturn(expectedCounts);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/schools/districts"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(schoolsIndex, times(1)).districtCounts();
+                String expectedJson = mapper.writeValueAsString(expectedCounts);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_school() throws Exception {
@@ -181,6 +291,7 @@ public class SchoolsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(schoolsRepository, times(1)).save(school1);
+                verify(schoolsIndex, times(1)).update(school1);
                 String expectedJson = mapper.writeValueAsString(school1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -208,6 +319,7 @@ public class SchoolsControllerTests extends ControllerTestCase {
                 // assert
                 verify(schoolsRepository, times(1)).findById(15L);
                 verify(schoolsRepository, times(1)).delete(any());
+                verify(schoolsIndex, times(1)).remove(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("School with id 15 deleted", json.get("message"));
@@ -266,6 +378,7 @@ public class SchoolsControllerTests extends ControllerTestCase {
                 // assert
                 verify(schoolsRepository, times(1)).findById(67L);
                 verify(schoolsRepository, times(1)).save(schoolEdited); // should be saved with correct user
+                verify(schoolsIndex, times(1)).update(schoolEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.diagnostics.SlowRequestJournal;
+import edu.ucsb.cs156.example.models.SlowRequest;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+import java.util.Map;
+
+@WebMvcTest(controllers = SlowRequestsController.class)
+@Import(TestConfig.class)
+public class SlowRequestsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  SlowRequestJournal slowRequestJournal;
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void slowRequests__regular_users_are_forbidden() throws Exception {
+    mockMvc.perform(get("/api/admin/slowRequests"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void slowRequests__are_returned() throws Exception {
+    SlowRequest slow = SlowRequest.builder()
+        .method("GET")
+        .uri("/api/admin/users")
+        .handler("UsersController.users")
+        .parameters(Map.of())
+        .role("ADMIN")
+        .status(200)
+        .totalMillis(2500)
+        .dbMillis(2100)
+        .statements(3)
+        .build();
+    when(slowRequestJournal.getThresholdMillis()).thenReturn(1000L);
+    when(slowRequestJournal.getSlowest()).thenReturn(List.of(slow));
+    when(slowRequestJournal.getRecent()).thenReturn(List.of(slow));
+
+    mockMvc.perform(get("/api/admin/slowRequests"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.thresholdMillis").value(1000))
+        .andExpect(jsonPath("$.slowest[0].handler").value("UsersController.users"))
+        .andExpect(jsonPath("$.slowest[0].dbMillis").value(2100))
+        .andExpect(jsonPath("$.recent[0].totalMillis").value(2500));
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.RuntimeInfo;
 import edu.ucsb.cs156.example.models.SystemInfo;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.SystemInfoService;
@@ -11,6 +12,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -61,4 +64,24 @@ public class SystemInfoControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void systemInfo__includes_runtime() throws Exception {
+    SystemInfo systemInfo = SystemInfo
+        .builder()
+        .runtime(RuntimeInfo.builder()
+            .heapUsedBytes(1024)
+            .dbActiveConnections(3)
+            .caches(Map.of("users", new RuntimeInfo.CacheStats(9, 1, 0.9)))
+            .build())
+        .build();
+    when(mockSystemInfoService.getSystemInfo()).thenReturn(systemInfo);
+
+    mockMvc.perform(get("/api/systemInfo"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.runtime.heapUsedBytes").value(1024))
+        .andExpect(jsonPath("$.runtime.dbActiveConnections").value(3))
+        .andExpect(jsonPath("$.runtime.caches.users.hitRate").value(0.9));
+  }
 }
@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.Avatar;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AvatarService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.IOException;
+import java.util.Optional;
+
+@WebMvcTest(controllers = UserAvatarController.class)
+@Import(TestConfig.class)
+public class UserAvatarControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  AvatarService avatarService;
+
+  private static final String PICTURE_URL = "https://lh3.googleusercontent.com/photo.jpg";
+
+  @Test
+  public void avatar__logged_out() throws Exception {
+    mockMvc.perform(get("/api/users/7/avatar"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void avatar__is_served_with_etag_and_cache_control() throws Exception {
+    byte[] png = { 1, 2, 3 };
+    when(userRepository.findById(7L)).thenReturn(Optional.of(User.builder().id(7L).pictureUrl(PICTURE_URL).build()));
+    when(avatarService.getAvatar(PICTURE_URL, 32)).thenReturn(new Avatar(png, "abc123"));
+
+    MvcResult response = mockMvc.perform(get("/api/users/7/avatar?size=32"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("image/png"))
+        .andExpect(header().string("ETag", "\"abc123\""))
+        .andExpect(header().string("Cache-Control", "max-age=604800, private"))
+        .andReturn();
+
+    assertArrayEquals(png, response.getResponse().getContentAsByteArray());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void avatar__default_size_is_96() throws Exception {
+    when(userRepository.findById(7L)).thenReturn(Optional.of(User.builder().id(7L).pictureUrl(PICTURE_URL).build()));
+    when(avatarService.getAvatar(PICTURE_URL, 96)).thenReturn(new Avatar(new byte[] { 1 }, "abc123"));
+
+    mockMvc.perform(get("/api/users/7/avatar"))
+        .andExpect(status().isOk());
+    verify(avatarService).getAvatar(PICTURE_URL, 96);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void avatar__matching_etag_is_not_modified() throws Exception {
+    when(userRepository.findById(7L)).thenReturn(Optional.of(User.builder().id(7L).pictureUrl(PICTURE_URL).build()));
+    when(avatarService.getAvatar(PICTURE_URL, 96)).thenReturn(new Avatar(new byte[] { 1, 2, 3 }, "abc123"));
+
+    MvcResult response = mockMvc.perform(get("/api/users/7/avatar").header("If-None-Match", "\"abc123\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "\"abc123\""))
+        .andReturn();
+
+    assertArrayEquals(new byte[0], response.getResponse().getContentAsByteArray());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void avatar__unknown_user_is_not_found() throws Exception {
+    when(userRepository.findById(7L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/api/users/7/avatar"))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message").value("User with id 7 not found"));
+    verify(avatarService, never()).getAvatar(anyString(), anyInt());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void avatar__user_without_picture_is_not_found() throws Exception {
+    when(userRepository.findById(7L)).thenReturn(Optional.of(User.builder().id(7L).build()));
+
+    mockMvc.perform(get("/api/users/7/avatar"))
+        .andExpect(status().isNotFound());
+    verify(avatarService, never()).getAvatar(anyString(), anyInt());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void avatar__origin_failure_is_bad_gateway() throws Exception {
+    when(userRepository.findById(7L)).thenReturn(Optional.of(User.builder().id(7L).pictureUrl(PICTURE_URL).build()));
+    when(avatarService.getAvatar(PICTURE_URL, 96)).thenThrow(new IOException("fetching returned 500"));
+
+    mockMvc.perform(get("/api/users/7/avatar"))
+        .andExpect(status().isBadGateway());
+  }
+}
@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSearchResults;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserSearchService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 import org.junit.jupiter.api.Test;
@@ -29,6 +31,9 @@ public class UsersControllerTests extends ControllerTestCase {
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  UserSearchService userSearchService;
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users"))
@@ -70,4 +75,43 @@ public class UsersControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
 
   }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void search__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/search?q=gaucho"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void search__admin_logged_in() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    UserSearchResults results = new UserSearchResults(Arrays.asList(u1), "abc");
+    when(userSearchService.search("gaucho", 5, "xyz")).thenReturn(results);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users/search?q=gaucho&limit=5&after=xyz"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userSearchService, times(1)).search("gaucho", 5, "xyz");
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void search__defaults() throws Exception {
+    when(userSearchService.search("", 20, null)).thenReturn(new UserSearchResults(new ArrayList<>(), null));
+
+    mockMvc.perform(get("/api/admin/users/search"))
+        .andExpect(status().isOk());
+
+    verify(userSearchService, times(1)).search("", 20, null);
+  }
 }
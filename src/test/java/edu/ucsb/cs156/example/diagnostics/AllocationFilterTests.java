@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AllocationFilterTests {
+
+  public static class WidgetsController {
+    public String one(long id) {
+      return "widget";
+    }
+  }
+
+  SimpleMeterRegistry registry;
+  AllocationFilter filter;
+  HandlerMethod handler;
+
+  @BeforeEach
+  void setup() throws NoSuchMethodException {
+    assumeTrue(ThreadAllocations.isSupported());
+    registry = new SimpleMeterRegistry();
+    filter = new AllocationFilter(registry);
+    handler = new HandlerMethod(new WidgetsController(), "one", long.class);
+  }
+
+  @Test
+  public void test_bytes_allocated_by_the_request_are_recorded_per_handler() throws Exception {
+    FilterChain chain = (req, res) -> {
+      req.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+      byte[][] garbage = new byte[16][];
+      for (int i = 0; i < garbage.length; i++) {
+        garbage[i] = new byte[64 * 1024];
+      }
+      req.setAttribute("garbage", garbage);
+    };
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/widgets/7"), new MockHttpServletResponse(), chain);
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/widgets/8"), new MockHttpServletResponse(), chain);
+
+    DistributionSummary summary = registry.get("app.controller.allocations")
+        .tag("controller", "WidgetsController").tag("method", "one").summary();
+    assertEquals(2, summary.count());
+    assertTrue(summary.max() >= 16 * 64 * 1024, "recorded " + summary.max());
+  }
+
+  @Test
+  public void test_failed_requests_are_recorded_too() {
+    FilterChain chain = (req, res) -> {
+      req.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+      throw new ServletException("boom");
+    };
+
+    assertThrows(ServletException.class, () -> filter.doFilter(
+        new MockHttpServletRequest("GET", "/api/widgets/7"), new MockHttpServletResponse(), chain));
+
+    assertEquals(1, registry.get("app.controller.allocations").summary().count());
+  }
+
+  @Test
+  public void test_requests_without_a_handler_are_not_recorded() throws Exception {
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/nowhere"), new MockHttpServletResponse(),
+        (req, res) -> ((MockHttpServletResponse) res).setStatus(404));
+
+    assertTrue(registry.find("app.controller.allocations").summaries().isEmpty());
+  }
+}
@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.jdbc.SqlStats;
+import edu.ucsb.cs156.example.models.SlowRequest;
+
+public class SlowRequestFilterTests {
+
+  public static class WidgetsController {
+    public String one(long id) {
+      return "widget";
+    }
+  }
+
+  SlowRequestJournal journal;
+  SlowRequestFilter filter;
+
+  @BeforeEach
+  void setup() {
+    journal = new SlowRequestJournal();
+    journal.thresholdMillis = 0;
+    journal.init();
+    filter = new SlowRequestFilter(journal, List.of("token", "Password"));
+  }
+
+  @AfterEach
+  void teardown() {
+    SecurityContextHolder.clearContext();
+    SqlStats.end();
+  }
+
+  @Test
+  public void test_requests_are_recorded_with_handler_parameters_and_role() throws Exception {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null, "ROLE_USER"));
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/widgets/7");
+    request.setParameter("accessToken", "abc");
+    request.setParameter("userPassword", "hunter2");
+    request.setParameter("q", "x".repeat(100));
+    request.setParameter("tag", "a", "b");
+    HandlerMethod handler = new HandlerMethod(new WidgetsController(), "one", long.class);
+    FilterChain chain = (req, res) -> {
+      req.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+      req.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", "7"));
+      ((MockHttpServletResponse) res).setStatus(201);
+    };
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    SlowRequest recorded = journal.getRecent().get(0);
+    assertEquals("GET", recorded.getMethod());
+    assertEquals("/api/widgets/7", recorded.getUri());
+    assertEquals("WidgetsController.one", recorded.getHandler());
+    assertEquals("USER", recorded.getRole());
+    assertEquals(201, recorded.getStatus());
+    assertEquals(Map.of(
+        "id", "7",
+        "accessToken", SlowRequestFilter.REDACTED,
+        "userPassword", SlowRequestFilter.REDACTED,
+        "q", "x".repeat(SlowRequestFilter.MAX_VALUE_LENGTH) + "...",
+        "tag", "a,b"), recorded.getParameters());
+  }
+
+  @Test
+  public void test_sql_time_and_failures_are_recorded() throws Exception {
+    SqlStats.begin();
+    FilterChain chain = (req, res) -> {
+      throw new ServletException("boom");
+    };
+
+    assertThrows(ServletException.class,
+        () -> filter.doFilter(new MockHttpServletRequest("POST", "/api/widgets"), new MockHttpServletResponse(), chain));
+
+    SlowRequest recorded = journal.getRecent().get(0);
+    assertEquals(500, recorded.getStatus());
+    assertEquals("ANONYMOUS", recorded.getRole());
+    assertEquals(0, recorded.getStatements());
+    assertEquals(null, recorded.getHandler());
+  }
+
+  @Test
+  public void test_admins_are_labelled_admin() throws Exception {
+    SecurityContextHolder.getContext().setAuthentication(
+        new TestingAuthenticationToken("admin", null, "ROLE_USER", "ROLE_ADMIN"));
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/widgets"), new MockHttpServletResponse(),
+        (req, res) -> {
+        });
+
+    assertEquals("ADMIN", journal.getSlowest().get(0).getRole());
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.SlowRequest;
+
+public class SlowRequestJournalTests {
+
+  SlowRequestJournal journal;
+
+  @BeforeEach
+  void setup() {
+    journal = new SlowRequestJournal();
+    journal.thresholdMillis = 100;
+    journal.slowestSize = 3;
+    journal.recentSize = 4;
+    journal.init();
+  }
+
+  private static SlowRequest request(long totalMillis) {
+    return SlowRequest.builder().uri("/api/" + totalMillis).totalMillis(totalMillis).build();
+  }
+
+  private static List<Long> millis(List<SlowRequest> requests) {
+    return requests.stream().map(SlowRequest::getTotalMillis).toList();
+  }
+
+  @Test
+  public void test_keeps_the_slowest_requests() {
+    for (long millis : new long[] { 5, 40, 10, 30, 20, 1 }) {
+      if (journal.wouldKeep(TimeUnit.MILLISECONDS.toNanos(millis))) {
+        journal.record(request(millis));
+      }
+    }
+    assertEquals(List.of(40L, 30L, 20L), millis(journal.getSlowest()));
+    assertEquals(List.of(), journal.getRecent());
+    assertFalse(journal.wouldKeep(TimeUnit.MILLISECONDS.toNanos(20)));
+    assertTrue(journal.wouldKeep(TimeUnit.MILLISECONDS.toNanos(21)));
+  }
+
+  @Test
+  public void test_keeps_the_last_requests_over_the_threshold() {
+    for (long millis = 100; millis <= 105; millis++) {
+      journal.record(request(millis));
+    }
+    assertTrue(journal.wouldKeep(TimeUnit.MILLISECONDS.toNanos(100)));
+    assertEquals(List.of(105L, 104L, 103L, 102L), millis(journal.getRecent()));
+    assertEquals(List.of(105L, 104L, 103L), millis(journal.getSlowest()));
+  }
+
+  @Test
+  public void test_a_stale_floor_never_replaces_a_slower_request() {
+    journal.record(request(50));
+    journal.record(request(60));
+    journal.record(request(70));
+    journal.record(request(40));
+    assertEquals(List.of(70L, 60L, 50L), millis(journal.getSlowest()));
+  }
+
+  @Test
+  public void test_concurrent_records_keep_the_slowest() throws Exception {
+    journal.slowestSize = 10;
+    journal.init();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = IntStream.range(0, 8)
+          .<Future<?>>mapToObj(thread -> pool.submit(() -> {
+            for (long millis = thread; millis < 5000; millis += 8) {
+              if (journal.wouldKeep(TimeUnit.MILLISECONDS.toNanos(millis))) {
+                journal.record(request(millis));
+              }
+            }
+          }))
+          .toList();
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(List.of(4999L, 4998L, 4997L, 4996L, 4995L, 4994L, 4993L, 4992L, 4991L, 4990L),
+        millis(journal.getSlowest()));
+    assertEquals(4, journal.getRecent().size());
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import edu.ucsb.cs156.example.services.MajorTreeService;
+import edu.ucsb.cs156.example.services.SchoolsIndexService;
+import edu.ucsb.cs156.example.services.UserSearchService;
+
+public class CacheWarmupHealthIndicatorTests {
+
+  CacheWarmupHealthIndicator indicator;
+
+  @BeforeEach
+  void setup() {
+    indicator = new CacheWarmupHealthIndicator();
+    indicator.userSearch = mock(UserSearchService.class);
+    indicator.schoolsIndex = mock(SchoolsIndexService.class);
+    indicator.majorTree = mock(MajorTreeService.class);
+  }
+
+  @Test
+  public void test_out_of_service_until_warmed_up() throws Exception {
+    assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+
+    indicator.warmUp();
+
+    Health health = indicator.health();
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals(Map.of("userSearch", "loaded", "schoolsIndex", "loaded", "majorTree", "loaded"),
+        health.getDetails());
+    verify(indicator.userSearch).warmUp();
+    verify(indicator.schoolsIndex).warmUp();
+    verify(indicator.majorTree).treeJson();
+  }
+
+  @Test
+  public void test_cache_that_fails_to_load_is_reported_but_does_not_keep_the_node_out_of_service() {
+    doThrow(new IllegalStateException("database unavailable")).when(indicator.schoolsIndex).warmUp();
+
+    indicator.warmUp();
+
+    Health health = indicator.health();
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals("failed: java.lang.IllegalStateException: database unavailable",
+        health.getDetails().get("schoolsIndex"));
+    assertEquals("loaded", health.getDetails().get("majorTree"));
+  }
+}
@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.example.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class DatabaseHealthIndicatorTests {
+
+  SimpleMeterRegistry registry;
+  HikariDataSource pool;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    pool = new HikariDataSource();
+    pool.setJdbcUrl("jdbc:h2:mem:health;DB_CLOSE_DELAY=-1");
+    pool.setPoolName("health");
+    pool.setMaximumPoolSize(1);
+    pool.setConnectionTimeout(2000);
+    pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+  }
+
+  @AfterEach
+  void close() {
+    pool.close();
+  }
+
+  @Test
+  public void test_database_that_answers_quickly_is_up() throws SQLException {
+    pool.getConnection().close();
+    DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(pool, registry, 1000, 500);
+
+    Health health = indicator.health();
+
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals(Map.of("active", 0, "idle", 1, "waiting", 0, "max", 1), health.getDetails().get("pool"));
+    assertTrue(health.getDetails().containsKey("roundTripMillis"));
+    assertEquals(1, registry.get("app.db.roundtrip").timer().count());
+  }
+
+  @Test
+  public void test_saturated_pool_is_degraded_without_a_round_trip() throws Exception {
+    DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(pool, registry, 1000, 500);
+
+    try (Connection held = pool.getConnection()) {
+      CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+        try (Connection connection = pool.getConnection()) {
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+      while (pool.getHikariPoolMXBean().getThreadsAwaitingConnection() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+
+      Health health = indicator.health();
+
+      assertEquals(DatabaseHealthIndicator.DEGRADED, health.getStatus());
+      assertEquals("connection pool saturated", health.getDetails().get("reason"));
+      assertEquals(0, registry.get("app.db.roundtrip").timer().count());
+      held.close();
+      waiter.get();
+    }
+  }
+
+  @Test
+  public void test_slow_connection_acquisition_is_degraded() throws SQLException {
+    // as management.metrics.distribution.percentiles does
+    registry.config().meterFilter(new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+        return DistributionStatisticConfig.builder().percentiles(0.99).build().merge(config);
+      }
+    });
+    pool.getConnection().close();
+    Timer acquire = registry.get("hikaricp.connections.acquire").tag("pool", "health").timer();
+    for (int i = 0; i < 10; i++) {
+      acquire.record(Duration.ofSeconds(2));
+    }
+    DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(pool, registry, 1000, 500);
+
+    Health health = indicator.health();
+
+    assertEquals(DatabaseHealthIndicator.DEGRADED, health.getStatus());
+    assertEquals("99th percentile latency over 500 ms", health.getDetails().get("reason"));
+    assertTrue((Long) health.getDetails().get("p99Millis") >= 1000);
+  }
+
+  @Test
+  public void test_database_that_does_not_answer_in_time_is_down() throws SQLException {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenAnswer(invocation -> {
+      Thread.sleep(500);
+      throw new SQLException("too late");
+    });
+    DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource, registry, 50, 500);
+
+    Health health = indicator.health();
+
+    assertEquals(Status.DOWN, health.getStatus());
+    assertEquals("no answer within 50 ms", health.getDetails().get("reason"));
+  }
+
+  @Test
+  public void test_database_that_fails_is_down() throws SQLException {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+    DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource, registry, 1000, 500);
+
+    Health health = indicator.health();
+
+    assertEquals(Status.DOWN, health.getStatus());
+    assertEquals("java.sql.SQLException: connection refused", health.getDetails().get("error"));
+  }
+
+  @Test
+  public void test_p99_of_a_missing_timer_is_zero() {
+    assertEquals(0, DatabaseHealthIndicator.p99Millis(null));
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AdaptivePoolSizerTests {
+
+  SimpleMeterRegistry registry;
+  HikariDataSource pool;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    pool = new HikariDataSource();
+    pool.setJdbcUrl("jdbc:h2:mem:adaptive;DB_CLOSE_DELAY=-1");
+    pool.setPoolName("adaptive");
+    pool.setMaximumPoolSize(1);
+    pool.setMinimumIdle(1);
+    pool.setConnectionTimeout(250);
+    pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+  }
+
+  @AfterEach
+  void close() {
+    pool.close();
+  }
+
+  @Test
+  public void test_pool_grows_after_an_acquire_times_out() throws SQLException {
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, registry, 1, 3, 0.5, 2);
+
+    try (Connection held = pool.getConnection()) {
+      assertThrows(SQLException.class, pool::getConnection);
+      sizer.adjust();
+    }
+
+    assertEquals(2, pool.getMaximumPoolSize());
+    // a single timeout is not a reason to keep growing
+    sizer.adjust();
+    assertEquals(2, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void test_pool_never_grows_beyond_max_size() throws SQLException {
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, registry, 1, 1, 0.5, 2);
+
+    try (Connection held = pool.getConnection()) {
+      assertThrows(SQLException.class, pool::getConnection);
+      sizer.adjust();
+    }
+
+    assertEquals(1, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void test_idle_pool_shrinks_one_connection_per_shrink_after_intervals_down_to_min_size()
+      throws SQLException {
+    pool.setMaximumPoolSize(4);
+    pool.getConnection().close();
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, registry, 3, 5, 0.5, 2);
+
+    sizer.adjust();
+    assertEquals(4, pool.getMaximumPoolSize());
+    sizer.adjust();
+    assertEquals(3, pool.getMaximumPoolSize());
+    sizer.adjust();
+    sizer.adjust();
+    assertEquals(3, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void test_pool_outside_the_bounds_is_brought_within_them() throws SQLException {
+    pool.getConnection().close();
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, registry, 2, 5, 0.5, 30);
+
+    sizer.adjust();
+
+    assertEquals(2, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void test_pool_that_has_not_started_is_left_alone() {
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, registry, 2, 5, 0.5, 30);
+
+    sizer.adjust();
+
+    assertEquals(1, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void test_bounds_are_checked() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptivePoolSizer(pool, registry, 0, 5, 0.5, 30));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptivePoolSizer(pool, registry, 6, 5, 0.5, 30));
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class CountingDataSourceTests {
+
+  DriverManagerDataSource target;
+  CountingDataSource dataSource;
+  JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setup() {
+    target = new DriverManagerDataSource("jdbc:h2:mem:counting;DB_CLOSE_DELAY=-1");
+    dataSource = new CountingDataSource(target);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS widgets (id INT PRIMARY KEY, name VARCHAR(50))");
+    jdbcTemplate.update("DELETE FROM widgets");
+  }
+
+  @AfterEach
+  void endRequest() {
+    SqlStats.end();
+  }
+
+  @Test
+  public void test_statements_rows_and_repeats_are_counted_in_a_request() {
+    SqlStats stats = SqlStats.begin();
+
+    jdbcTemplate.batchUpdate("INSERT INTO widgets VALUES (?, ?)",
+        List.of(new Object[] { 1, "a" }, new Object[] { 2, "b" }, new Object[] { 3, "c" }));
+    for (int id = 1; id <= 3; id++) {
+      jdbcTemplate.queryForObject("SELECT name FROM widgets WHERE id = ?", String.class, id);
+    }
+    List<String> names = jdbcTemplate.queryForList("SELECT name FROM widgets", String.class);
+    jdbcTemplate.update("UPDATE widgets SET name = 'z' WHERE id > 1");
+
+    assertEquals(3, names.size());
+    // one batch, three lookups, one list, one update
+    assertEquals(6, stats.getStatements());
+    // 3 inserted + 3 looked up + 3 listed + 2 updated
+    assertEquals(11, stats.getRows());
+    assertEquals("SELECT name FROM widgets WHERE id = ?", stats.mostRepeated().getKey());
+    assertEquals(3, stats.mostRepeated().getValue());
+    assertTrue(stats.getNanos() > 0);
+  }
+
+  @Test
+  public void test_nothing_is_counted_outside_a_request() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      assertTrue(connection.getClass().getName().startsWith("org.h2"));
+    }
+    assertNull(SqlStats.current());
+  }
+
+  @Test
+  public void test_wrappers_behave_like_the_originals() throws Exception {
+    SqlStats.begin();
+    try (Connection connection = dataSource.getConnection()) {
+      Statement statement = connection.createStatement();
+      PreparedStatement prepared = connection.prepareStatement("SELECT 1");
+      Set<Statement> statements = new HashSet<>(List.of(statement, prepared));
+      assertTrue(statements.remove(statement));
+      assertTrue(statements.remove(prepared));
+      assertTrue(connection.unwrap(Connection.class).getClass().getName().startsWith("org.h2"));
+      statement.close();
+      prepared.close();
+    }
+    assertSame(target, dataSource.unwrap(DriverManagerDataSource.class));
+  }
+}
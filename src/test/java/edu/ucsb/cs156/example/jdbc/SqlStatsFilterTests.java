@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SqlStatsFilterTests {
+
+  SimpleMeterRegistry registry;
+  JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    jdbcTemplate = new JdbcTemplate(new CountingDataSource(
+        new DriverManagerDataSource("jdbc:h2:mem:sqlstatsfilter;DB_CLOSE_DELAY=-1")));
+  }
+
+  private FilterChain chainRunning(int queries, boolean writeBody) {
+    return (request, response) -> {
+      request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/widgets");
+      for (int i = 0; i < queries; i++) {
+        jdbcTemplate.queryForObject("SELECT ?", Integer.class, i);
+      }
+      if (writeBody) {
+        response.getWriter().write("[]");
+        response.flushBuffer();
+      }
+    };
+  }
+
+  @Test
+  public void test_headers_and_metrics_are_recorded() throws Exception {
+    SqlStatsFilter filter = new SqlStatsFilter(registry, true, 20, 5);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/widgets"), response, chainRunning(3, false));
+
+    assertEquals("3", response.getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+    assertEquals("3", response.getHeader(SqlStatsFilter.ROWS_HEADER));
+    assertEquals(3.0, registry.get("app.sql.statements").tag("uri", "/api/widgets").summary().totalAmount());
+    assertEquals(1, registry.get("app.sql.time").tag("uri", "/api/widgets").timer().count());
+    assertNull(SqlStats.current());
+  }
+
+  @Test
+  public void test_headers_are_added_before_the_body_is_committed() throws Exception {
+    SqlStatsFilter filter = new SqlStatsFilter(registry, true, 20, 5);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/widgets"), response, chainRunning(2, true));
+
+    assertEquals("[]", response.getContentAsString());
+    assertEquals("2", response.getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+  }
+
+  @Test
+  public void test_no_headers_unless_enabled() throws Exception {
+    SqlStatsFilter filter = new SqlStatsFilter(registry, false, 20, 5);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/widgets"), response, chainRunning(2, false));
+
+    assertNull(response.getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+    assertEquals(1, registry.get("app.sql.statements").summary().count());
+  }
+
+  @Test
+  public void test_requests_without_sql_record_nothing() throws Exception {
+    SqlStatsFilter filter = new SqlStatsFilter(registry, true, 20, 5);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/index.html"), response, chainRunning(0, false));
+
+    assertEquals("0", response.getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+    assertNull(registry.find("app.sql.statements").summary());
+  }
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class UserEmailIndexCheckTests {
+
+  DriverManagerDataSource dataSource;
+  JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void createTable() {
+    dataSource = new DriverManagerDataSource("jdbc:h2:mem:emailindex;DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(255), google_sub VARCHAR(255))");
+  }
+
+  @AfterEach
+  void dropTable() {
+    jdbcTemplate.execute("DROP ALL OBJECTS");
+  }
+
+  @Test
+  void test_unique_email_index_is_found() throws SQLException {
+    jdbcTemplate.execute("ALTER TABLE users ADD CONSTRAINT users_email_idx UNIQUE (email)");
+
+    assertTrue(UserEmailIndexCheck.hasUniqueEmailIndex(dataSource));
+  }
+
+  @Test
+  void test_missing_or_partial_index_fails_the_check() throws SQLException {
+    jdbcTemplate.execute("CREATE INDEX users_email_plain ON users (email)");
+    jdbcTemplate.execute("CREATE UNIQUE INDEX users_email_sub ON users (email, google_sub)");
+
+    assertFalse(UserEmailIndexCheck.hasUniqueEmailIndex(dataSource));
+    UserEmailIndexCheck check = new UserEmailIndexCheck();
+    check.dataSource = dataSource;
+    assertThrows(IllegalStateException.class, check::check);
+  }
+}
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.entities.User;
+
+// the development profile logs every statement, which would swamp the timings
+@DataJpaTest(showSql = false, properties = {
+    "logging.level.sql=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO" })
+class UserRepositoryTests {
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  private static User user(String email, boolean admin) {
+    return User.builder()
+        .email(email)
+        .googleSub("sub-" + email)
+        .fullName("Full Name")
+        .emailVerified(true)
+        .admin(admin)
+        .lastLogin(Instant.parse("2023-05-01T12:00:00Z"))
+        .build();
+  }
+
+  @Test
+  void test_upsert_inserts_new_user() {
+    assertEquals(1, userRepository.upsertByEmail(user("cgaucho@ucsb.edu", false)));
+
+    User saved = userRepository.findByEmail("cgaucho@ucsb.edu").get();
+    assertEquals("sub-cgaucho@ucsb.edu", saved.getGoogleSub());
+    assertEquals(Instant.parse("2023-05-01T12:00:00Z"), saved.getLastLogin());
+    assertFalse(saved.getAdmin());
+  }
+
+  @Test
+  void test_upsert_of_existing_user_only_raises_admin() {
+    userRepository.upsertByEmail(user("cgaucho@ucsb.edu", false));
+
+    assertEquals(0, userRepository.upsertByEmail(user("cgaucho@ucsb.edu", false)));
+    assertEquals(1, userRepository.upsertByEmail(user("cgaucho@ucsb.edu", true)));
+    assertEquals(0, userRepository.upsertByEmail(user("cgaucho@ucsb.edu", true)));
+    // an admin is never demoted by logging in
+    assertEquals(0, userRepository.upsertByEmail(user("cgaucho@ucsb.edu", false)));
+
+    assertEquals(1, userRepository.count());
+    assertTrue(userRepository.findByEmail("cgaucho@ucsb.edu").get().getAdmin());
+  }
+
+  @Test
+  void test_upsert_and_get_returns_the_stored_row() {
+    UserRepositoryCustom.Upserted inserted = userRepository.upsertAndGetByEmail(user("cgaucho@ucsb.edu", false));
+    assertTrue(inserted.changed());
+    assertEquals(userRepository.findByEmail("cgaucho@ucsb.edu").get(), inserted.user());
+
+    User login = user("cgaucho@ucsb.edu", false);
+    login.setFullName("New Name");
+    UserRepositoryCustom.Upserted unchanged = userRepository.upsertAndGetByEmail(login);
+    assertFalse(unchanged.changed());
+    assertEquals(inserted.user(), unchanged.user());
+
+    UserRepositoryCustom.Upserted promoted = userRepository.upsertAndGetByEmail(user("cgaucho@ucsb.edu", true));
+    assertTrue(promoted.changed());
+    assertEquals(inserted.user().getId(), promoted.user().getId());
+    assertTrue(promoted.user().getAdmin());
+  }
+
+  @Test
+  void test_email_is_unique() {
+    userRepository.upsertByEmail(user("cgaucho@ucsb.edu", false));
+    assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+        "INSERT INTO users (email, email_verified, admin) VALUES ('cgaucho@ucsb.edu', TRUE, FALSE)"));
+  }
+
+  @Test
+  void test_lookup_by_email_uses_the_index() {
+    String plan = jdbcTemplate.queryForObject(
+        "EXPLAIN SELECT * FROM users WHERE email = 'cgaucho@ucsb.edu'", String.class);
+    assertTrue(plan.toUpperCase().contains("USERS_EMAIL_IDX"), plan);
+  }
+
+  @Test
+  void test_lookup_by_email_stays_flat_as_the_table_grows() {
+    insertUsers(0, 1_000);
+    medianLookupNanos(1_000); // warm up the JIT and the statement cache
+    long small = medianLookupNanos(1_000);
+
+    insertUsers(1_000, 50_000);
+    long large = medianLookupNanos(50_000);
+
+    // a full scan of 50,000 rows is orders of magnitude slower than one of 1,000;
+    // an index lookup is not, so allow plenty of room for noise
+    assertTrue(large < small * 5, "median lookup went from " + small + "ns to " + large + "ns");
+  }
+
+  private void insertUsers(int from, int to) {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      rows.add(new Object[] { "user" + i + "@ucsb.edu", "sub" + i });
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO users (email, google_sub, email_verified, admin) VALUES (?, ?, TRUE, FALSE)", rows);
+  }
+
+  private long medianLookupNanos(int tableSize) {
+    long[] samples = new long[1_000];
+    for (int i = 0; i < samples.length; i++) {
+      String email = "user" + ((i * 7919) % tableSize) + "@ucsb.edu";
+      long start = System.nanoTime();
+      assertTrue(userRepository.findByEmail(email).isPresent());
+      samples[i] = System.nanoTime() - start;
+      // keep the persistence context (and its flush-time dirty checking) from growing
+      entityManager.clear();
+    }
+    Arrays.sort(samples);
+    return samples[samples.length / 2];
+  }
+}
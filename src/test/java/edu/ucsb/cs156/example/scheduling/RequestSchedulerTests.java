@@ -0,0 +1,146 @@
+package edu.ucsb.cs156.example.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestSchedulerTests {
+
+  ExecutorService pool = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void stopPool() {
+    pool.shutdownNow();
+  }
+
+  private static RequestScheduler scheduler(int total, int perClass, int queued, Duration maxWait) {
+    RequestScheduler.Limits limits = new RequestScheduler.Limits(perClass, queued);
+    return new RequestScheduler(total, Map.of(
+        RequestClass.INTERACTIVE, limits,
+        RequestClass.WRITE, limits,
+        RequestClass.ADMIN, new RequestScheduler.Limits(1, queued)), maxWait);
+  }
+
+  private Future<RequestScheduler.Outcome> acquireLater(RequestScheduler scheduler, RequestClass requestClass,
+      List<RequestClass> admissions) {
+    return pool.submit(() -> {
+      RequestScheduler.Outcome outcome = scheduler.acquire(requestClass);
+      if (outcome == RequestScheduler.Outcome.ADMITTED) {
+        admissions.add(requestClass);
+      }
+      return outcome;
+    });
+  }
+
+  @Test
+  public void test_class_cap_queues_only_that_class() throws Exception {
+    RequestScheduler scheduler = scheduler(10, 10, 10, Duration.ofSeconds(10));
+    List<RequestClass> admissions = new CopyOnWriteArrayList<>();
+
+    assertEquals(RequestScheduler.Outcome.ADMITTED, scheduler.acquire(RequestClass.ADMIN));
+    Future<RequestScheduler.Outcome> secondAdmin = acquireLater(scheduler, RequestClass.ADMIN, admissions);
+    assertTrue(scheduler.awaitQueued(RequestClass.ADMIN, 1, 5, TimeUnit.SECONDS));
+
+    // interactive requests are not held up by the admin queue
+    assertEquals(RequestScheduler.Outcome.ADMITTED, scheduler.acquire(RequestClass.INTERACTIVE));
+    assertEquals(1, scheduler.running(RequestClass.ADMIN));
+    assertEquals(1, scheduler.running(RequestClass.INTERACTIVE));
+
+    scheduler.release(RequestClass.ADMIN);
+    assertEquals(RequestScheduler.Outcome.ADMITTED, secondAdmin.get(5, TimeUnit.SECONDS));
+    assertEquals(List.of(RequestClass.ADMIN), admissions);
+    assertEquals(0, scheduler.queued(RequestClass.ADMIN));
+    assertEquals(1, scheduler.running(RequestClass.ADMIN));
+  }
+
+  @Test
+  public void test_freed_slots_go_to_higher_priority_classes_first() throws Exception {
+    RequestScheduler scheduler = scheduler(1, 10, 10, Duration.ofSeconds(10));
+    List<RequestClass> admissions = new CopyOnWriteArrayList<>();
+
+    assertEquals(RequestScheduler.Outcome.ADMITTED, scheduler.acquire(RequestClass.WRITE));
+    Future<RequestScheduler.Outcome> admin = acquireLater(scheduler, RequestClass.ADMIN, admissions);
+    assertTrue(scheduler.awaitQueued(RequestClass.ADMIN, 1, 5, TimeUnit.SECONDS));
+    Future<RequestScheduler.Outcome> write = acquireLater(scheduler, RequestClass.WRITE, admissions);
+    assertTrue(scheduler.awaitQueued(RequestClass.WRITE, 1, 5, TimeUnit.SECONDS));
+    Future<RequestScheduler.Outcome> interactive = acquireLater(scheduler, RequestClass.INTERACTIVE, admissions);
+    assertTrue(scheduler.awaitQueued(RequestClass.INTERACTIVE, 1, 5, TimeUnit.SECONDS));
+
+    scheduler.release(RequestClass.WRITE);
+    interactive.get(5, TimeUnit.SECONDS);
+    scheduler.release(RequestClass.INTERACTIVE);
+    write.get(5, TimeUnit.SECONDS);
+    scheduler.release(RequestClass.WRITE);
+    admin.get(5, TimeUnit.SECONDS);
+
+    assertEquals(List.of(RequestClass.INTERACTIVE, RequestClass.WRITE, RequestClass.ADMIN), admissions);
+  }
+
+  @Test
+  public void test_full_queue_and_long_wait_are_rejected() throws Exception {
+    RequestScheduler scheduler = scheduler(10, 10, 1, Duration.ofMillis(100));
+    List<RequestClass> admissions = new CopyOnWriteArrayList<>();
+
+    assertEquals(RequestScheduler.Outcome.ADMITTED, scheduler.acquire(RequestClass.ADMIN));
+    Future<RequestScheduler.Outcome> waiting = acquireLater(scheduler, RequestClass.ADMIN, admissions);
+    assertTrue(scheduler.awaitQueued(RequestClass.ADMIN, 1, 5, TimeUnit.SECONDS));
+
+    assertEquals(RequestScheduler.Outcome.QUEUE_FULL, scheduler.acquire(RequestClass.ADMIN));
+    assertEquals(RequestScheduler.Outcome.TIMED_OUT, waiting.get(5, TimeUnit.SECONDS));
+    assertEquals(0, scheduler.queued(RequestClass.ADMIN));
+    assertEquals(1, scheduler.running(RequestClass.ADMIN));
+    assertEquals(2, scheduler.rejected(RequestClass.ADMIN));
+    assertEquals(0, scheduler.rejected(RequestClass.INTERACTIVE));
+  }
+
+  @Test
+  public void test_interrupted_waiter_leaves_the_queue() throws Exception {
+    RequestScheduler scheduler = scheduler(10, 10, 10, Duration.ofSeconds(10));
+    List<RequestClass> admissions = new CopyOnWriteArrayList<>();
+
+    scheduler.acquire(RequestClass.ADMIN);
+    Future<RequestScheduler.Outcome> waiting = acquireLater(scheduler, RequestClass.ADMIN, admissions);
+    assertTrue(scheduler.awaitQueued(RequestClass.ADMIN, 1, 5, TimeUnit.SECONDS));
+
+    waiting.cancel(true);
+    assertTrue(scheduler.awaitQueued(RequestClass.ADMIN, 0, 5, TimeUnit.SECONDS));
+    scheduler.release(RequestClass.ADMIN);
+    assertEquals(0, scheduler.running(RequestClass.ADMIN));
+    assertEquals(List.of(), admissions);
+  }
+
+  @Test
+  public void test_limits_are_required_for_every_class() {
+    assertThrows(IllegalArgumentException.class, () -> new RequestScheduler(1,
+        Map.of(RequestClass.INTERACTIVE, new RequestScheduler.Limits(1, 1)), Duration.ofSeconds(1)));
+  }
+
+  @Test
+  public void test_metrics_are_tagged_by_class() throws Exception {
+    RequestScheduler scheduler = scheduler(10, 10, 0, Duration.ofSeconds(1));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    scheduler.bindTo(registry);
+
+    scheduler.acquire(RequestClass.ADMIN);
+    scheduler.acquire(RequestClass.ADMIN);
+
+    assertEquals(1.0, registry.get("app.requests.running").tag("class", "admin").gauge().value());
+    assertEquals(0.0, registry.get("app.requests.queued").tag("class", "admin").gauge().value());
+    assertEquals(1.0, registry.get("app.requests.rejected").tag("class", "admin").functionCounter().count());
+    assertEquals(0.0, registry.get("app.requests.running").tag("class", "interactive").gauge().value());
+  }
+}
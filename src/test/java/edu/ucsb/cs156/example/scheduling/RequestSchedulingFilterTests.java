@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+
+public class RequestSchedulingFilterTests {
+
+  RequestClassifier classifier;
+  RequestScheduler scheduler;
+  RequestSchedulingFilter filter;
+
+  @BeforeEach
+  void setup() {
+    GrantedAuthoritiesService grantedAuthoritiesService = mock(GrantedAuthoritiesService.class);
+    when(grantedAuthoritiesService.getGrantedAuthorities())
+        .thenAnswer(invocation -> SecurityContextHolder.getContext().getAuthentication().getAuthorities());
+    classifier = new RequestClassifier(grantedAuthoritiesService);
+    RequestScheduler.Limits limits = new RequestScheduler.Limits(1, 0);
+    scheduler = new RequestScheduler(10, Map.of(
+        RequestClass.INTERACTIVE, limits,
+        RequestClass.WRITE, limits,
+        RequestClass.ADMIN, limits), Duration.ofSeconds(1));
+    filter = new RequestSchedulingFilter(classifier, scheduler);
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private void loginAs(String... roles) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", "pw", roles));
+  }
+
+  @Test
+  public void test_requests_are_classified_by_endpoint_and_role() {
+    assertNull(classifier.classify(new MockHttpServletRequest("GET", "/")));
+    assertNull(classifier.classify(new MockHttpServletRequest("GET", "/oauth2/authorization/google")));
+    assertEquals(RequestClass.INTERACTIVE, classifier.classify(new MockHttpServletRequest("GET", "/api/currentUser")));
+    assertEquals(RequestClass.WRITE, classifier.classify(new MockHttpServletRequest("POST", "/api/books/post")));
+    assertEquals(RequestClass.ADMIN, classifier.classify(new MockHttpServletRequest("GET", "/api/admin/users")));
+
+    loginAs("ROLE_USER");
+    assertEquals(RequestClass.WRITE, classifier.classify(new MockHttpServletRequest("PUT", "/api/books")));
+    assertEquals(RequestClass.INTERACTIVE, classifier.classify(new MockHttpServletRequest("GET", "/api/books/all")));
+
+    loginAs("ROLE_USER", "ROLE_ADMIN");
+    assertEquals(RequestClass.ADMIN, classifier.classify(new MockHttpServletRequest("DELETE", "/api/books")));
+    assertEquals(RequestClass.INTERACTIVE, classifier.classify(new MockHttpServletRequest("GET", "/api/books/all")));
+  }
+
+  @Test
+  public void test_admitted_request_runs_and_releases_its_slot() throws Exception {
+    AtomicInteger runningInChain = new AtomicInteger(-1);
+    FilterChain chain = mock(FilterChain.class);
+    doAnswer(invocation -> {
+      runningInChain.set(scheduler.running(RequestClass.INTERACTIVE));
+      return null;
+    }).when(chain).doFilter(any(), any());
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books/all"), response, chain);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(1, runningInChain.get());
+    assertEquals(0, scheduler.running(RequestClass.INTERACTIVE));
+  }
+
+  @Test
+  public void test_saturated_class_gets_503() throws Exception {
+    scheduler.acquire(RequestClass.ADMIN);
+    FilterChain chain = mock(FilterChain.class);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/admin/users"), response, chain);
+
+    verify(chain, never()).doFilter(any(), any());
+    assertEquals(503, response.getStatus());
+    assertEquals("1", response.getHeader("Retry-After"));
+    assertEquals("{\"type\":\"ServerBusy\",\"message\":\"Too many admin requests, please retry\"}",
+        response.getContentAsString());
+    assertEquals(1, scheduler.running(RequestClass.ADMIN));
+  }
+
+  @Test
+  public void test_unscheduled_requests_pass_through() throws Exception {
+    for (RequestClass requestClass : List.of(RequestClass.values())) {
+      scheduler.acquire(requestClass);
+    }
+    FilterChain chain = mock(FilterChain.class);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/index.html"), response, chain);
+
+    verify(chain).doFilter(any(), any());
+    assertEquals(200, response.getStatus());
+  }
+}
@@ -0,0 +1,201 @@
+package edu.ucsb.cs156.example.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+
+import edu.ucsb.cs156.example.entities.SessionRecord;
+import edu.ucsb.cs156.example.repositories.SessionRecordRepository;
+
+@DataJpaTest(showSql = false)
+class DatabaseSessionRepositoryTests {
+
+  @Autowired
+  SessionRecordRepository sessionRecordRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  DatabaseSessionRepository sessions;
+
+  @BeforeEach
+  void setup() {
+    sessions = new DatabaseSessionRepository();
+    sessions.sessionRecordRepository = sessionRecordRepository;
+    sessions.jdbcTemplate = jdbcTemplate;
+  }
+
+  private SessionRecord row(String id) {
+    entityManager.flush();
+    entityManager.clear();
+    return sessionRecordRepository.findBySessionId(id).orElse(null);
+  }
+
+  @Test
+  void test_saved_session_is_found_with_its_attributes() {
+    DatabaseSession session = sessions.createSession();
+    session.setAttribute("greeting", "hello");
+    session.setAttribute("numbers", List.of(1, 2, 3));
+    sessions.save(session);
+    entityManager.flush();
+    entityManager.clear();
+
+    DatabaseSession found = sessions.findById(session.getId());
+
+    assertEquals("hello", found.getAttribute("greeting"));
+    assertEquals(List.of(1, 2, 3), found.getAttribute("numbers"));
+    assertEquals(Duration.ofSeconds(1800), found.getMaxInactiveInterval());
+    assertEquals(session.getCreationTime().toEpochMilli(), found.getCreationTime().toEpochMilli());
+  }
+
+  @Test
+  void test_access_only_is_batched_until_flush() {
+    DatabaseSession session = sessions.createSession();
+    sessions.save(session);
+    long saved = row(session.getId()).getLastAccessedTime();
+
+    DatabaseSession found = sessions.findById(session.getId());
+    sessions.save(found);
+    assertEquals(0, sessions.pendingTouchCount());
+
+    Instant later = found.getLastAccessedTime().plusSeconds(60);
+    found.setLastAccessedTime(later);
+    sessions.save(found);
+
+    assertEquals(1, sessions.pendingTouchCount());
+    assertEquals(saved, row(session.getId()).getLastAccessedTime());
+    // this node already sees the newer access time
+    assertEquals(later.toEpochMilli(), sessions.findById(session.getId()).getLastAccessedTime().toEpochMilli());
+
+    sessions.flushTouches();
+
+    assertEquals(0, sessions.pendingTouchCount());
+    SessionRecord record = row(session.getId());
+    assertEquals(later.toEpochMilli(), record.getLastAccessedTime());
+    assertEquals(later.plusSeconds(1800).toEpochMilli(), record.getExpiryTime());
+  }
+
+  @Test
+  void test_changed_id_is_written_immediately() {
+    DatabaseSession session = sessions.createSession();
+    sessions.save(session);
+    String oldId = session.getId();
+
+    DatabaseSession found = sessions.findById(oldId);
+    String newId = found.changeSessionId();
+    sessions.save(found);
+
+    assertNull(row(oldId));
+    assertEquals(session.getPrimaryId(), row(newId).getPrimaryId());
+  }
+
+  @Test
+  void test_sweeper_deletes_only_expired_sessions() {
+    DatabaseSession stale = sessions.createSession();
+    stale.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+    sessions.save(stale);
+    DatabaseSession fresh = sessions.createSession();
+    sessions.save(fresh);
+    entityManager.flush();
+
+    sessions.sweepExpired();
+
+    assertNull(row(stale.getId()));
+    assertTrue(row(fresh.getId()) != null);
+
+    sessions.clock = Clock.fixed(Instant.now().plus(Duration.ofHours(1)), ZoneOffset.UTC);
+    sessions.sweepExpired();
+    assertNull(row(fresh.getId()));
+  }
+
+  @Test
+  void test_expired_or_unreadable_sessions_are_not_returned() {
+    DatabaseSession stale = sessions.createSession();
+    stale.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+    sessions.save(stale);
+    assertNull(sessions.findById(stale.getId()));
+
+    DatabaseSession broken = sessions.createSession();
+    sessions.save(broken);
+    SessionRecord record = row(broken.getId());
+    record.setAttributeBytes(new byte[] { 1, 2, 3 });
+    sessionRecordRepository.save(record);
+    entityManager.flush();
+
+    assertNull(sessions.findById(broken.getId()));
+    assertNull(row(broken.getId()));
+    assertNull(sessions.findById("no-such-session"));
+  }
+
+  @Test
+  void test_attributes_are_deflated() {
+    DatabaseSession session = sessions.createSession();
+    session.setAttribute("padding", "x".repeat(10_000));
+    sessions.save(session);
+
+    assertTrue(row(session.getId()).getAttributeBytes().length < 1_000);
+    assertFalse(sessions.findById(session.getId()).getAttributeNames().isEmpty());
+  }
+
+  static class Gadget implements Serializable {
+  }
+
+  @Test
+  void test_security_context_survives_the_filter() throws Exception {
+    OidcIdToken idToken = new OidcIdToken("token", Instant.now(), Instant.now().plusSeconds(3600),
+        Map.of("sub", "1234", "email", "cgaucho@ucsb.edu"));
+    List<GrantedAuthority> authorities = List.of(new OidcUserAuthority(idToken), new SimpleGrantedAuthority("ROLE_ADMIN"));
+    SecurityContextImpl context = new SecurityContextImpl(new OAuth2AuthenticationToken(
+        new DefaultOidcUser(authorities, idToken, "email"), authorities, "google"));
+
+    Map<String, Object> read = DatabaseSessionRepository.deserialize(
+        DatabaseSessionRepository.serialize(Map.of("SPRING_SECURITY_CONTEXT", context)));
+
+    assertEquals(context, read.get("SPRING_SECURITY_CONTEXT"));
+  }
+
+  @Test
+  void test_other_classes_are_refused() {
+    byte[] bytes = DatabaseSessionRepository.serialize(Map.of("gadget", new Gadget()));
+
+    assertThrows(InvalidClassException.class, () -> DatabaseSessionRepository.deserialize(bytes));
+  }
+
+  @Test
+  void test_attributes_that_inflate_too_far_are_refused() {
+    byte[] bytes = DatabaseSessionRepository.serialize(
+        Map.of("padding", "x".repeat(DatabaseSessionRepository.MAX_ATTRIBUTE_BYTES + 1)));
+
+    assertTrue(bytes.length < 10_000);
+    assertThrows(IOException.class, () -> DatabaseSessionRepository.deserialize(bytes));
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SessionTokenCodecTests {
+
+  static final String SECRET = "0123456789abcdef0123456789abcdef";
+  static final Instant NOW = Instant.parse("2023-05-01T12:00:00Z");
+
+  SessionTokenCodec codec = new SessionTokenCodec(SECRET, Clock.fixed(NOW, ZoneOffset.UTC));
+
+  static SessionToken token(long expiresAt) {
+    return SessionToken.builder()
+        .userId(7L)
+        .email("cgaucho@ucsb.edu")
+        .provider("google")
+        .roles(List.of("ROLE_USER", "ROLE_ADMIN"))
+        .issuedAt(NOW.getEpochSecond())
+        .expiresAt(expiresAt)
+        .build();
+  }
+
+  @Test
+  void test_encode_then_decode_round_trips() {
+    SessionToken token = token(NOW.getEpochSecond() + 60);
+    assertEquals(token, codec.decode(codec.encode(token)).get());
+  }
+
+  @Test
+  void test_sign_then_verify_round_trips() {
+    byte[] payload = "hello".getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(payload, codec.verify(codec.sign(payload, NOW.plusSeconds(60))).get());
+  }
+
+  @Test
+  void test_expired_tokens_are_rejected() {
+    assertTrue(codec.decode(codec.encode(token(NOW.getEpochSecond()))).isEmpty());
+  }
+
+  @Test
+  void test_tampered_tokens_are_rejected() {
+    String encoded = codec.encode(token(NOW.getEpochSecond() + 60));
+    String[] parts = encoded.split("\\.");
+
+    // extending the expiry invalidates the signature
+    assertTrue(codec.decode(parts[0] + "." + (NOW.getEpochSecond() + 6000) + "." + parts[2]).isEmpty());
+
+    SessionTokenCodec otherSecret = new SessionTokenCodec(
+        "another secret that is long enough", Clock.fixed(NOW, ZoneOffset.UTC));
+    assertTrue(otherSecret.decode(encoded).isEmpty());
+  }
+
+  @Test
+  void test_malformed_values_are_rejected() {
+    assertTrue(codec.decode(null).isEmpty());
+    assertTrue(codec.decode("").isEmpty());
+    assertTrue(codec.decode("abc").isEmpty());
+    assertTrue(codec.decode("abc.def").isEmpty());
+    assertTrue(codec.decode("!!.123.!!").isEmpty());
+    assertTrue(codec.decode(codec.sign("not json".getBytes(StandardCharsets.UTF_8), NOW.plusSeconds(60))).isEmpty());
+  }
+
+  @Test
+  void test_short_secrets_are_refused() {
+    assertThrows(IllegalArgumentException.class, () -> new SessionTokenCodec("too short"));
+    assertThrows(IllegalArgumentException.class, () -> new SessionTokenCodec(null));
+  }
+}
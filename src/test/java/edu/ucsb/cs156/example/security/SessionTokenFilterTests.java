@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.example.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+
+class SessionTokenFilterTests {
+
+  static final Instant NOW = Instant.parse("2023-05-01T12:00:00Z");
+  static final Duration TTL = Duration.ofHours(8);
+  static final Duration MAX_LIFETIME = Duration.ofDays(7);
+
+  SessionTokenCodec codec = new SessionTokenCodec(SessionTokenCodecTests.SECRET, Clock.fixed(NOW, ZoneOffset.UTC));
+  GrantedAuthoritiesService grantedAuthoritiesService = mock(GrantedAuthoritiesService.class);
+  SessionTokenFilter filter = new SessionTokenFilter(codec, TTL, MAX_LIFETIME, grantedAuthoritiesService);
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private Authentication authenticationSeenBy(MockHttpServletRequest request, MockHttpServletResponse response)
+      throws Exception {
+    Authentication[] seen = new Authentication[1];
+    filter.doFilter(request, response, new MockFilterChain() {
+      @Override
+      public void doFilter(javax.servlet.ServletRequest req, javax.servlet.ServletResponse res) {
+        seen[0] = SecurityContextHolder.getContext().getAuthentication();
+      }
+    });
+    return seen[0];
+  }
+
+  @Test
+  void test_valid_cookie_authenticates_request() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SessionTokenFilter.COOKIE_NAME,
+        codec.encode(SessionTokenCodecTests.token(NOW.plus(TTL).getEpochSecond()))));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    OAuth2AuthenticationToken authentication = (OAuth2AuthenticationToken) authenticationSeenBy(request, response);
+
+    assertEquals("google", authentication.getAuthorizedClientRegistrationId());
+    assertEquals("cgaucho@ucsb.edu", authentication.getPrincipal().getAttribute("email"));
+    assertEquals(7L, (Long) authentication.getPrincipal().getAttribute("id"));
+    assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    // a fresh token is not reissued
+    assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+  }
+
+  private MockHttpServletRequest requestWith(SessionToken token) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SessionTokenFilter.COOKIE_NAME, codec.encode(token)));
+    return request;
+  }
+
+  @Test
+  void test_token_past_half_its_lifetime_is_renewed() throws Exception {
+    when(grantedAuthoritiesService.refreshRoles("cgaucho@ucsb.edu", List.of("ROLE_USER", "ROLE_ADMIN")))
+        .thenReturn(List.of("ROLE_USER", "ROLE_ADMIN", "ROLE_MEMBER"));
+    SessionToken old = SessionTokenCodecTests.token(NOW.plus(Duration.ofHours(1)).getEpochSecond());
+    old.setIssuedAt(NOW.minus(Duration.ofHours(7)).getEpochSecond());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    authenticationSeenBy(requestWith(old), response);
+
+    String renewed = response.getCookie(SessionTokenFilter.COOKIE_NAME).getValue();
+    SessionToken token = codec.decode(renewed).get();
+    assertEquals(NOW.plus(TTL).getEpochSecond(), token.getExpiresAt());
+    // still the time of the login
+    assertEquals(old.getIssuedAt(), token.getIssuedAt());
+    assertEquals(List.of("ROLE_USER", "ROLE_ADMIN", "ROLE_MEMBER"), token.getRoles());
+    assertTrue(response.getHeader(HttpHeaders.SET_COOKIE).contains("HttpOnly"));
+  }
+
+  @Test
+  void test_renewal_drops_roles_that_no_longer_apply() throws Exception {
+    when(grantedAuthoritiesService.refreshRoles("cgaucho@ucsb.edu", List.of("ROLE_USER", "ROLE_ADMIN")))
+        .thenReturn(List.of("ROLE_USER", "ROLE_MEMBER"));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    Authentication authentication = authenticationSeenBy(
+        requestWith(SessionTokenCodecTests.token(NOW.plus(Duration.ofHours(1)).getEpochSecond())), response);
+
+    assertEquals(Set.of("ROLE_USER", "ROLE_MEMBER"), authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    SessionToken token = codec.decode(response.getCookie(SessionTokenFilter.COOKIE_NAME).getValue()).get();
+    assertEquals(List.of("ROLE_USER", "ROLE_MEMBER"), token.getRoles());
+  }
+
+  @Test
+  void test_renewal_stops_at_the_maximum_lifetime() throws Exception {
+    when(grantedAuthoritiesService.refreshRoles("cgaucho@ucsb.edu", List.of("ROLE_USER", "ROLE_ADMIN")))
+        .thenReturn(List.of("ROLE_USER", "ROLE_ADMIN"));
+    SessionToken old = SessionTokenCodecTests.token(NOW.plus(Duration.ofHours(1)).getEpochSecond());
+    old.setIssuedAt(NOW.minus(MAX_LIFETIME).plus(Duration.ofHours(2)).getEpochSecond());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    authenticationSeenBy(requestWith(old), response);
+
+    SessionToken token = codec.decode(response.getCookie(SessionTokenFilter.COOKIE_NAME).getValue()).get();
+    assertEquals(NOW.plus(Duration.ofHours(2)).getEpochSecond(), token.getExpiresAt());
+
+    // that token cannot be renewed again
+    response = new MockHttpServletResponse();
+    assertNotNull(authenticationSeenBy(requestWith(token), response));
+    assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+  }
+
+  @Test
+  void test_missing_or_invalid_cookie_leaves_request_anonymous() throws Exception {
+    assertNull(authenticationSeenBy(new MockHttpServletRequest(), new MockHttpServletResponse()));
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SessionTokenFilter.COOKIE_NAME, "forged.123.token"));
+    assertNull(authenticationSeenBy(request, new MockHttpServletResponse()));
+  }
+}
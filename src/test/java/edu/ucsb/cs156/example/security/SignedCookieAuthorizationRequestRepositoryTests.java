@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+class SignedCookieAuthorizationRequestRepositoryTests {
+
+  static final Instant NOW = Instant.parse("2023-05-01T12:00:00Z");
+
+  SignedCookieAuthorizationRequestRepository repository = new SignedCookieAuthorizationRequestRepository(
+      new SessionTokenCodec(SessionTokenCodecTests.SECRET, Clock.fixed(NOW, ZoneOffset.UTC)));
+
+  static OAuth2AuthorizationRequest authorizationRequest() {
+    return OAuth2AuthorizationRequest.authorizationCode()
+        .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+        .clientId("client-id")
+        .redirectUri("http://localhost:8080/login/oauth2/code/google")
+        .scopes(Set.of("email", "profile"))
+        .state("some-state")
+        .attributes(attributes -> attributes.put("registration_id", "google"))
+        .build();
+  }
+
+  @Test
+  void test_saved_request_is_loaded_from_the_cookie() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    repository.saveAuthorizationRequest(authorizationRequest(), request, response);
+
+    Cookie cookie = response.getCookie(SignedCookieAuthorizationRequestRepository.COOKIE_NAME);
+    MockHttpServletRequest callback = new MockHttpServletRequest();
+    callback.setCookies(cookie);
+    MockHttpServletResponse callbackResponse = new MockHttpServletResponse();
+
+    OAuth2AuthorizationRequest loaded = repository.removeAuthorizationRequest(callback, callbackResponse);
+
+    assertEquals("some-state", loaded.getState());
+    assertEquals(Set.of("email", "profile"), loaded.getScopes());
+    assertEquals("google", loaded.getAttribute("registration_id"));
+    assertEquals(0, callbackResponse.getCookie(SignedCookieAuthorizationRequestRepository.COOKIE_NAME).getMaxAge());
+  }
+
+  @Test
+  void test_missing_or_forged_cookie_loads_nothing() {
+    assertNull(repository.loadAuthorizationRequest(new MockHttpServletRequest()));
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SignedCookieAuthorizationRequestRepository.COOKIE_NAME, "forged.123.value"));
+    assertNull(repository.loadAuthorizationRequest(request));
+  }
+}
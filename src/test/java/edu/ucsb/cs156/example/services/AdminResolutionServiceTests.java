@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class AdminResolutionServiceTests {
+
+  AdminResolutionService adminResolution;
+  UserRepository userRepository;
+  AtomicLong now = new AtomicLong(0);
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    adminResolution = new AdminResolutionService();
+    adminResolution.userRepository = userRepository;
+    adminResolution.adminEmails = List.of(" Phtcon@UCSB.edu", "");
+    adminResolution.nanoClock = now::get;
+    adminResolution.normalizeConfiguredAdmins();
+
+    when(userRepository.findAdminEmails()).thenReturn(List.of("DbAdmin@ucsb.edu"));
+  }
+
+  @Test
+  void test_configured_admins_are_normalized() {
+    assertTrue(adminResolution.isConfiguredAdmin("phtcon@ucsb.edu"));
+    assertTrue(adminResolution.isAdmin("PHTCON@ucsb.edu "));
+    assertFalse(adminResolution.isConfiguredAdmin("dbadmin@ucsb.edu"));
+    assertFalse(adminResolution.isConfiguredAdmin(null));
+    assertFalse(adminResolution.isConfiguredAdmin(""));
+  }
+
+  @Test
+  void test_configured_admins_do_not_touch_the_database() {
+    assertTrue(adminResolution.isAdmin("phtcon@ucsb.edu"));
+    verify(userRepository, times(0)).findAdminEmails();
+  }
+
+  @Test
+  void test_database_admins_are_cached() {
+    assertTrue(adminResolution.isAdmin("dbadmin@ucsb.edu"));
+    assertFalse(adminResolution.isAdmin("student@ucsb.edu"));
+    assertFalse(adminResolution.isAdmin(null));
+    verify(userRepository, times(1)).findAdminEmails();
+  }
+
+  @Test
+  void test_database_admins_are_reloaded_after_ttl() {
+    adminResolution.isAdmin("student@ucsb.edu");
+    now.set(TimeUnit.SECONDS.toNanos(adminResolution.cacheTtlSeconds));
+    adminResolution.isAdmin("student@ucsb.edu");
+    verify(userRepository, times(2)).findAdminEmails();
+  }
+
+  @Test
+  void test_user_updates_patch_the_cached_set() {
+    adminResolution.isAdmin("student@ucsb.edu");
+
+    adminResolution.onUserUpdated(new UserUpdatedEvent(User.builder().email("Student@ucsb.edu").admin(true).build()));
+    adminResolution.onUserUpdated(new UserUpdatedEvent(User.builder().email("dbadmin@ucsb.edu").admin(false).build()));
+
+    assertTrue(adminResolution.isAdmin("student@ucsb.edu"));
+    assertFalse(adminResolution.isAdmin("dbadmin@ucsb.edu"));
+    verify(userRepository, times(1)).findAdminEmails();
+  }
+
+  @Test
+  void test_user_updates_before_first_load_are_ignored() {
+    adminResolution.onUserUpdated(new UserUpdatedEvent(User.builder().email("student@ucsb.edu").admin(true).build()));
+    assertFalse(adminResolution.isAdmin("student@ucsb.edu"));
+  }
+}
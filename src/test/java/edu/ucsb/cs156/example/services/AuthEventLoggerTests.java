@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AuthEventLoggerTests {
+
+  AuthEventLogger authEventLogger;
+  AtomicInteger detailsBuilt = new AtomicInteger();
+
+  @BeforeEach
+  void setup() {
+    authEventLogger = new AuthEventLogger();
+    authEventLogger.sampleEvery = 10;
+    authEventLogger.writer = Runnable::run;
+  }
+
+  private Map<String, ?> details() {
+    detailsBuilt.incrementAndGet();
+    return Map.of("email", "cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void test_every_event_is_counted() {
+    for (int i = 0; i < 25; i++) {
+      authEventLogger.event(AuthEventLogger.OAUTH_LOGIN, this::details);
+    }
+    authEventLogger.event(AuthEventLogger.CURRENT_USER, this::details);
+
+    assertEquals(Map.of(AuthEventLogger.CURRENT_USER, 1L, AuthEventLogger.OAUTH_LOGIN, 25L),
+        authEventLogger.getCounts());
+  }
+
+  @Test
+  void test_details_are_only_built_for_sampled_events() {
+    for (int i = 0; i < 25; i++) {
+      authEventLogger.event(AuthEventLogger.OAUTH_LOGIN, this::details);
+    }
+    // events 1, 11 and 21
+    assertEquals(3, detailsBuilt.get());
+  }
+
+  @Test
+  void test_events_are_dropped_when_the_writer_falls_behind() throws Exception {
+    AuthEventLogger threaded = new AuthEventLogger();
+    threaded.sampleEvery = 1;
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      threaded.event(AuthEventLogger.OAUTH_LOGIN, () -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return Map.of();
+      });
+      for (int i = 0; i < 2000; i++) {
+        threaded.event(AuthEventLogger.OAUTH_LOGIN, this::details);
+      }
+      // at most 1000 lines wait in the queue; the rest are dropped without blocking the caller
+      assertTrue(threaded.getDropped() >= 1000);
+      assertEquals(2001L, threaded.getCounts().get(AuthEventLogger.OAUTH_LOGIN));
+    } finally {
+      release.countDown();
+      threaded.stop();
+    }
+  }
+
+  @Test
+  void test_format() {
+    Map<String, Object> details = new LinkedHashMap<>();
+    details.put("email", "cgaucho@ucsb.edu");
+    details.put("roles", List.of("ROLE_USER"));
+    assertEquals("event=oauth.login email=cgaucho@ucsb.edu roles=[ROLE_USER]",
+        AuthEventLogger.format(AuthEventLogger.OAUTH_LOGIN, details));
+  }
+}
@@ -0,0 +1,313 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import edu.ucsb.cs156.example.models.Avatar;
+import edu.ucsb.cs156.example.tracing.Span;
+import edu.ucsb.cs156.example.tracing.Tracer;
+
+public class AvatarServiceTests {
+
+  @TempDir
+  Path cacheDir;
+
+  HttpServer origin;
+  Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+  Map<String, String> traceparents = new ConcurrentHashMap<>();
+  volatile CountDownLatch slowOrigin = new CountDownLatch(0);
+
+  @BeforeEach
+  void startOrigin() throws IOException {
+    origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    origin.setExecutor(Executors.newCachedThreadPool());
+    origin.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+      String traceparent = exchange.getRequestHeaders().getFirst("traceparent");
+      if (traceparent != null) {
+        traceparents.put(path, traceparent);
+      }
+      try {
+        slowOrigin.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      byte[] body;
+      int status = 200;
+      long length = -1;
+      if (path.startsWith("/redirect")) {
+        int port = origin.getAddress().getPort();
+        exchange.getResponseHeaders().set("Location",
+            path.equals("/redirect-home") ? "/photoR.jpg" : "http://localhost:" + port + "/photoX.jpg");
+        body = new byte[0];
+        status = 302;
+      } else if (path.startsWith("/huge")) {
+        body = new byte[AvatarService.MAX_SOURCE_BYTES + 1];
+        // chunked, so that the client only finds out while reading
+        length = path.equals("/huge-chunked") ? 0 : body.length;
+      } else if (path.startsWith("/photo")) {
+        body = png(400, 300, path.hashCode());
+      } else if (path.equals("/text")) {
+        body = "not a picture".getBytes();
+      } else {
+        body = new byte[0];
+        status = 404;
+      }
+      exchange.sendResponseHeaders(status, length >= 0 ? length : body.length == 0 ? -1 : body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      } catch (IOException e) {
+        // the client gave up on a body that was too large
+      }
+    });
+    origin.start();
+  }
+
+  @AfterEach
+  void stopOrigin() {
+    origin.stop(0);
+  }
+
+  private AvatarService service(long maxCacheBytes) throws IOException {
+    AvatarService avatars = new AvatarService();
+    avatars.cacheDir = cacheDir.toString();
+    avatars.maxCacheBytes = maxCacheBytes;
+    avatars.origin = "http://127.0.0.1:" + origin.getAddress().getPort();
+    avatars.openCache();
+    return avatars;
+  }
+
+  private static byte[] png(int width, int height, int seed) throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setColor(new Color(seed));
+    g.fillRect(0, 0, width, height);
+    g.setColor(new Color(~seed));
+    g.fillOval(width / 4, height / 4, width / 2, height / 2);
+    g.dispose();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return out.toByteArray();
+  }
+
+  private static BufferedImage decode(Avatar avatar) throws IOException {
+    return ImageIO.read(new ByteArrayInputStream(avatar.getBytes()));
+  }
+
+  private int hitCount(String path) {
+    AtomicInteger count = hits.get(path);
+    return count == null ? 0 : count.get();
+  }
+
+  private long filesInCache() throws IOException {
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void test_sizes_are_snapped_to_the_ones_we_render() {
+    assertEquals(32, AvatarService.snapSize(1));
+    assertEquals(32, AvatarService.snapSize(32));
+    assertEquals(96, AvatarService.snapSize(33));
+    assertEquals(256, AvatarService.snapSize(200));
+    assertEquals(256, AvatarService.snapSize(5000));
+  }
+
+  @Test
+  public void test_picture_is_resized_and_served_from_cache() throws IOException {
+    AvatarService avatars = service(10_000_000);
+
+    Avatar first = avatars.getAvatar("https://lh3.googleusercontent.com/photo1.jpg", 90);
+    Avatar second = avatars.getAvatar("https://lh3.googleusercontent.com/photo1.jpg", 96);
+
+    BufferedImage image = decode(first);
+    assertEquals(96, image.getWidth());
+    assertEquals(72, image.getHeight());
+    assertEquals(first.getHash(), second.getHash());
+    assertArrayEquals(first.getBytes(), second.getBytes());
+    assertEquals(1, hitCount("/photo1.jpg"));
+
+    Avatar small = avatars.getAvatar("https://lh3.googleusercontent.com/photo1.jpg", 32);
+    assertEquals(32, decode(small).getWidth());
+    assertTrue(!small.getHash().equals(first.getHash()));
+    assertEquals(2, hitCount("/photo1.jpg"));
+    assertEquals(2, avatars.size());
+    assertEquals(1, avatars.getHits());
+    assertEquals(2, avatars.getMisses());
+  }
+
+  @Test
+  public void test_cache_survives_restart() throws IOException {
+    Avatar before = service(10_000_000).getAvatar("https://lh3.googleusercontent.com/photo2.jpg", 256);
+
+    AvatarService restarted = service(10_000_000);
+    assertEquals(1, restarted.size());
+    Avatar after = restarted.getAvatar("https://lh3.googleusercontent.com/photo2.jpg", 256);
+
+    assertEquals(before.getHash(), after.getHash());
+    assertEquals(1, hitCount("/photo2.jpg"));
+  }
+
+  @Test
+  public void test_least_recently_used_pictures_are_evicted() throws IOException {
+    AvatarService avatars = service(1);
+
+    avatars.getAvatar("https://lh3.googleusercontent.com/photoA.jpg", 96);
+    long oneAvatar = avatars.getTotalBytes();
+    avatars.maxCacheBytes = oneAvatar * 5 / 2;
+    avatars.getAvatar("https://lh3.googleusercontent.com/photoB.jpg", 96);
+    avatars.getAvatar("https://lh3.googleusercontent.com/photoA.jpg", 96);
+    avatars.getAvatar("https://lh3.googleusercontent.com/photoC.jpg", 96);
+
+    assertEquals(2, avatars.size());
+    assertEquals(2, filesInCache());
+    assertTrue(avatars.getTotalBytes() <= avatars.maxCacheBytes);
+
+    // A was used more recently than B, so B was evicted
+    avatars.getAvatar("https://lh3.googleusercontent.com/photoA.jpg", 96);
+    assertEquals(1, hitCount("/photoA.jpg"));
+    avatars.getAvatar("https://lh3.googleusercontent.com/photoB.jpg", 96);
+    assertEquals(2, hitCount("/photoB.jpg"));
+  }
+
+  @Test
+  public void test_concurrent_misses_share_one_fetch() throws Exception {
+    AvatarService avatars = service(10_000_000);
+    slowOrigin = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Avatar>> results = Stream.generate(() -> pool.submit(
+          () -> avatars.getAvatar("https://lh3.googleusercontent.com/photoD.jpg", 96)))
+          .limit(4)
+          .toList();
+      Thread.sleep(200);
+      slowOrigin.countDown();
+      for (Future<Avatar> result : results) {
+        assertEquals(96, decode(result.get()).getWidth());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, hitCount("/photoD.jpg"));
+  }
+
+  @Test
+  public void test_origin_failures_are_io_exceptions() throws IOException {
+    AvatarService avatars = service(10_000_000);
+
+    assertThrows(IOException.class, () -> avatars.getAvatar("https://lh3.googleusercontent.com/missing", 96));
+    assertThrows(IOException.class, () -> avatars.getAvatar("https://lh3.googleusercontent.com/text", 96));
+    assertEquals(0, avatars.size());
+    assertEquals(0, filesInCache());
+  }
+
+  @Test
+  public void test_unreadable_cache_is_retried_only_once() throws IOException {
+    AvatarService avatars = spy(service(10_000_000));
+    doThrow(new IOException("Permission denied")).when(avatars).readCached(any());
+
+    IOException thrown = assertThrows(IOException.class,
+        () -> avatars.getAvatar("https://lh3.googleusercontent.com/photoU.jpg", 96));
+
+    assertEquals("Permission denied", thrown.getMessage());
+    assertEquals(2, hitCount("/photoU.jpg"));
+    assertEquals(0, avatars.size());
+  }
+
+  @Test
+  public void test_redirects_are_only_followed_to_allowed_hosts() throws IOException {
+    AvatarService avatars = service(10_000_000);
+
+    assertEquals(96, decode(avatars.getAvatar("https://lh3.googleusercontent.com/redirect-home", 96)).getWidth());
+    assertEquals(1, hitCount("/photoR.jpg"));
+
+    assertThrows(IOException.class, () -> avatars.getAvatar("https://lh3.googleusercontent.com/redirect-away", 96));
+    assertEquals(0, hitCount("/photoX.jpg"));
+    assertEquals(1, avatars.size());
+  }
+
+  @Test
+  public void test_oversized_pictures_are_refused() throws IOException {
+    AvatarService avatars = service(100_000_000);
+
+    IOException declared = assertThrows(IOException.class,
+        () -> avatars.getAvatar("https://lh3.googleusercontent.com/huge", 96));
+    IOException streamed = assertThrows(IOException.class,
+        () -> avatars.getAvatar("https://lh3.googleusercontent.com/huge-chunked", 96));
+
+    assertTrue(declared.getMessage().contains("larger than"));
+    assertTrue(streamed.getMessage().contains("larger than"));
+    assertEquals(0, avatars.size());
+    assertEquals(0, filesInCache());
+  }
+
+  @Test
+  public void test_only_allowed_hosts_are_fetched_without_an_origin() throws IOException {
+    AvatarService avatars = service(10_000_000);
+    avatars.origin = "";
+
+    assertEquals("https://lh3.googleusercontent.com/a/photo.jpg",
+        avatars.sourceUri("https://lh3.googleusercontent.com/a/photo.jpg").toString());
+    assertThrows(IOException.class, () -> avatars.sourceUri("http://lh3.googleusercontent.com/photo.jpg"));
+    assertThrows(IOException.class, () -> avatars.sourceUri("https://evilgoogleusercontent.com/photo.jpg"));
+    assertThrows(IOException.class, () -> avatars.sourceUri("https://169.254.169.254/latest/meta-data"));
+    assertThrows(IOException.class, () -> avatars.sourceUri("not a url"));
+    assertThrows(IOException.class, () -> avatars.checkAllowed(URI.create("http://127.0.0.1/photo.jpg")));
+  }
+
+  @Test
+  public void test_trace_context_is_sent_to_the_origin() throws IOException {
+    AvatarService avatars = service(10_000_000);
+    List<Span> spans = new ArrayList<>();
+    Span request = new Tracer(spans::add, 1.0).startSpan("GET /api/users/{id}/avatar", Span.Kind.SERVER, null);
+    try {
+      avatars.getAvatar("https://lh3.googleusercontent.com/photo9.jpg", 96);
+    } finally {
+      request.end();
+    }
+
+    Span fetch = spans.get(0);
+    assertEquals("AvatarService.fetch", fetch.getName());
+    assertEquals(request.getContext().spanId(), fetch.getParentSpanId());
+    assertEquals(fetch.getContext().traceparent(), traceparents.get("/photo9.jpg"));
+    assertEquals(200, fetch.getAttributes().get("http.status_code"));
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.ucsb.cs156.example.models.JfrRecordingStatus;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderServiceTests {
+
+  @TempDir
+  Path dir;
+
+  FlightRecorderService service;
+
+  @BeforeEach
+  void setup() {
+    service = new FlightRecorderService();
+    service.dir = dir.toString();
+  }
+
+  @AfterEach
+  void teardown() {
+    service.close();
+  }
+
+  @Test
+  public void test_start_snapshot_and_stop() throws Exception {
+    assertFalse(service.status().getDownloadable());
+    assertNull(service.recordingFile());
+
+    JfrRecordingStatus started = service.start("default");
+    assertTrue(started.getRunning());
+    assertEquals("default", started.getSettings());
+    assertNotNull(started.getStartTime());
+    assertThrows(IllegalStateException.class, () -> service.start("profile"));
+
+    Path snapshot = service.recordingFile();
+    assertTrue(RecordingFile.readAllEvents(snapshot).size() > 0);
+
+    JfrRecordingStatus stopped = service.stop();
+    assertFalse(stopped.getRunning());
+    assertTrue(stopped.getDownloadable());
+    assertNotNull(stopped.getStopTime());
+    assertNotNull(stopped.getStartTime());
+
+    Path file = service.recordingFile();
+    assertTrue(Files.size(file) > 0);
+    // the snapshot was replaced
+    try (var files = Files.list(dir)) {
+      assertEquals(1, files.count());
+    }
+    assertThrows(IllegalStateException.class, () -> service.stop());
+  }
+
+  @Test
+  public void test_unknown_settings_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> service.start("everything"));
+  }
+}
@@ -1,8 +1,11 @@
 package edu.ucsb.cs156.example.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -41,4 +44,16 @@ class GrantedAuthoritiesServiceTests {
     assertTrue(grantedAuthorities.size() > 0 );
   }
 
+  @Test
+  void test_refreshRoles_looks_up_admin_and_member_roles_again() {
+    when(userRepository.findAdminEmails()).thenReturn(List.of("admin@ucsb.edu"));
+
+    assertEquals(List.of("ROLE_USER", "SCOPE_email", "ROLE_ADMIN", "ROLE_MEMBER"),
+        grantedAuthoritiesService.refreshRoles("admin@ucsb.edu", List.of("ROLE_USER", "SCOPE_email")));
+    assertEquals(List.of("ROLE_USER", "ROLE_MEMBER"),
+        grantedAuthoritiesService.refreshRoles("demoted@ucsb.edu", List.of("ROLE_USER", "ROLE_ADMIN")));
+    assertEquals(List.of("ROLE_USER"),
+        grantedAuthoritiesService.refreshRoles("someone@gmail.com", List.of("ROLE_USER", "ROLE_MEMBER")));
+  }
+
 }
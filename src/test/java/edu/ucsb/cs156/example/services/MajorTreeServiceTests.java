@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Major;
+import edu.ucsb.cs156.example.models.DepartmentMajors;
+import edu.ucsb.cs156.example.repositories.MajorRepository;
+
+class MajorTreeServiceTests {
+
+  MajorTreeService majorTree;
+  MajorRepository majorRepository;
+  ObjectMapper mapper = new ObjectMapper();
+
+  Major cmpsc = Major.builder().id(1L).name("Computer Science").department("CS").degreePursued("B.S.").build();
+  Major compe = Major.builder().id(2L).name("Computer Engineering").department("COE").degreePursued("B.S.").build();
+  Major csPhd = Major.builder().id(3L).name("Computer Science").department("CS").degreePursued("Ph.D.").build();
+  Major cre = Major.builder().id(4L).name("Creative Studies").department("CS").degreePursued("B.S.").build();
+
+  @BeforeEach
+  void setup() {
+    majorRepository = mock(MajorRepository.class);
+    majorTree = new MajorTreeService();
+    majorTree.majorRepository = majorRepository;
+    majorTree.mapper = mapper;
+
+    when(majorRepository.findAll()).thenReturn(Arrays.asList(cmpsc, compe, csPhd, cre));
+  }
+
+  @Test
+  void test_tree_is_grouped_and_sorted() throws Exception {
+    List<DepartmentMajors> expected = List.of(
+        new DepartmentMajors("COE", Map.of("B.S.", List.of(compe))),
+        new DepartmentMajors("CS", Map.of("B.S.", List.of(cmpsc, cre), "Ph.D.", List.of(csPhd))));
+
+    assertEquals(expected, majorTree.buildTree());
+    assertEquals(mapper.writeValueAsString(majorTree.buildTree()), new String(majorTree.treeJson()));
+  }
+
+  @Test
+  void test_tree_is_cached_until_invalidated() throws Exception {
+    byte[] first = majorTree.treeJson();
+    assertSame(first, majorTree.treeJson());
+    verify(majorRepository, times(1)).findAll();
+
+    majorTree.invalidate();
+    majorTree.treeJson();
+    majorTree.treeJson();
+    verify(majorRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_majors_added_through_other_nodes_are_picked_up_after_the_ttl() throws Exception {
+    AtomicLong now = new AtomicLong();
+    majorTree.nanoClock = now::get;
+    byte[] first = majorTree.treeJson();
+    Major math = Major.builder().id(5L).name("Mathematics").department("MATH").degreePursued("B.S.").build();
+    when(majorRepository.findAll()).thenReturn(Arrays.asList(cmpsc, compe, csPhd, cre, math));
+
+    now.set(TimeUnit.SECONDS.toNanos(59));
+    assertSame(first, majorTree.treeJson());
+
+    now.set(TimeUnit.SECONDS.toNanos(60));
+    assertTrue(new String(majorTree.treeJson()).contains("Mathematics"));
+    majorTree.treeJson();
+    verify(majorRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_invalidate_during_rebuild_is_not_lost() throws Exception {
+    when(majorRepository.findAll()).thenAnswer(invocation -> {
+      // a write lands while the tree is being read
+      majorTree.invalidate();
+      return List.of(cmpsc);
+    });
+
+    majorTree.treeJson();
+    majorTree.treeJson();
+    verify(majorRepository, times(2)).findAll();
+  }
+}
@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+
+class RestaurantLeaderboardServiceTests {
+
+  RestaurantLeaderboardService leaderboard;
+  RestaurantRepository restaurantRepository;
+
+  @BeforeEach
+  void setup() {
+    restaurantRepository = mock(RestaurantRepository.class);
+    leaderboard = new RestaurantLeaderboardService();
+    leaderboard.restaurantRepository = restaurantRepository;
+
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        Restaurant.builder().id(1L).name("Taco Bell").cuisine("Mexican").roachCounter(69).build(),
+        Restaurant.builder().id(2L).name("McDonalds").cuisine("American").roachCounter(699).build(),
+        Restaurant.builder().id(3L).name("Chipotle").cuisine("Mexican").roachCounter(5).build(),
+        Restaurant.builder().id(4L).name("In-N-Out").cuisine("American").roachCounter(69).build()));
+  }
+
+  private static List<Long> ids(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getId).collect(Collectors.toList());
+  }
+
+  @Test
+  void test_top_orders_by_roachCounter_then_id() {
+    assertEquals(List.of(2L, 1L, 4L, 3L), ids(leaderboard.top(20, null)));
+    assertEquals(List.of(2L, 1L), ids(leaderboard.top(2, null)));
+  }
+
+  @Test
+  void test_top_filters_by_cuisine_ignoring_case() {
+    assertEquals(List.of(1L, 3L), ids(leaderboard.top(20, "mexican")));
+    assertEquals(List.of(), ids(leaderboard.top(20, "Thai")));
+  }
+
+  @Test
+  void test_table_is_only_read_once() {
+    leaderboard.top(20, null);
+    leaderboard.top(20, "Mexican");
+    verify(restaurantRepository, times(1)).findAll();
+  }
+
+  @Test
+  void test_update_moves_restaurant() {
+    leaderboard.top(20, null);
+
+    leaderboard.update(Restaurant.builder().id(3L).name("Chipotle").cuisine("American").roachCounter(1000).build());
+
+    assertEquals(List.of(3L, 2L, 1L, 4L), ids(leaderboard.top(20, null)));
+    assertEquals(List.of(1L), ids(leaderboard.top(20, "Mexican")));
+    assertEquals(List.of(3L, 2L, 4L), ids(leaderboard.top(20, "American")));
+  }
+
+  @Test
+  void test_update_adds_new_restaurant() {
+    leaderboard.top(20, null);
+
+    leaderboard.update(Restaurant.builder().id(5L).name("Subway").cuisine("Sandwiches").roachCounter(70).build());
+
+    assertEquals(List.of(2L, 5L, 1L, 4L, 3L), ids(leaderboard.top(20, null)));
+  }
+
+  @Test
+  void test_remove() {
+    leaderboard.top(20, null);
+
+    leaderboard.remove(2L);
+    leaderboard.remove(42L);
+
+    assertEquals(List.of(1L, 4L, 3L), ids(leaderboard.top(20, null)));
+    assertEquals(List.of(4L), ids(leaderboard.top(20, "American")));
+  }
+
+  @Test
+  void test_writes_before_first_read_are_picked_up_by_load() {
+    leaderboard.update(Restaurant.builder().id(9L).name("Ignored").cuisine("Mexican").roachCounter(9999).build());
+    leaderboard.remove(1L);
+
+    // nothing was loaded yet, so the first read sees exactly what findAll returns
+    assertEquals(List.of(2L, 1L, 4L, 3L), ids(leaderboard.top(20, null)));
+  }
+
+  @Test
+  void test_writes_through_other_nodes_are_picked_up_after_the_ttl() {
+    AtomicLong now = new AtomicLong();
+    leaderboard.nanoClock = now::get;
+    leaderboard.top(20, null);
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        Restaurant.builder().id(1L).name("Taco Bell").cuisine("Mexican").roachCounter(69).build(),
+        Restaurant.builder().id(5L).name("Subway").cuisine("Sandwiches").roachCounter(700).build()));
+
+    now.set(TimeUnit.SECONDS.toNanos(59));
+    assertEquals(List.of(2L, 1L, 4L, 3L), ids(leaderboard.top(20, null)));
+
+    now.set(TimeUnit.SECONDS.toNanos(60));
+    assertEquals(List.of(5L, 1L), ids(leaderboard.top(20, null)));
+    assertEquals(List.of(), ids(leaderboard.top(20, "American")));
+    verify(restaurantRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_n_is_clamped() {
+    assertEquals(0, leaderboard.top(-1, null).size());
+    assertEquals(4, leaderboard.top(RestaurantLeaderboardService.MAX_ENTRIES + 1, null).size());
+  }
+}
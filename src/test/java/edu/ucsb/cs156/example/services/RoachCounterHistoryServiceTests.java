@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.RoachCounterPoint;
+
+class RoachCounterHistoryServiceTests {
+
+  static final Instant START = Instant.parse("2022-01-03T00:00:00Z");
+
+  RoachCounterHistoryService history;
+
+  @BeforeEach
+  void setup() {
+    history = new RoachCounterHistoryService();
+    history.recentPoints = 4;
+    history.archiveBuckets = 3;
+    history.archiveBucketSeconds = 3600;
+  }
+
+  void recordAt(long id, int roachCounter, long secondsAfterStart) {
+    history.clock = Clock.fixed(START.plusSeconds(secondsAfterStart), ZoneOffset.UTC);
+    history.record(id, roachCounter);
+  }
+
+  static RoachCounterPoint point(long secondsAfterStart, int roachCounter) {
+    return new RoachCounterPoint(START.plusSeconds(secondsAfterStart), roachCounter);
+  }
+
+  @Test
+  void test_unknown_restaurant_has_empty_history() {
+    assertEquals(List.of(), history.history(1L, null, null, 0));
+  }
+
+  @Test
+  void test_recent_points_are_kept_exactly() {
+    recordAt(1L, 1, 0);
+    recordAt(1L, 2, 10);
+    recordAt(1L, 3, 10);
+    recordAt(2L, 99, 20);
+
+    assertEquals(List.of(point(0, 1), point(10, 2), point(10, 3)), history.history(1L, null, null, 0));
+    assertEquals(List.of(point(20, 99)), history.history(2L, null, null, 0));
+  }
+
+  @Test
+  void test_clock_going_backwards_keeps_series_ordered() {
+    recordAt(1L, 1, 100);
+    recordAt(1L, 2, 50);
+
+    assertEquals(List.of(point(100, 1), point(100, 2)), history.history(1L, null, null, 0));
+  }
+
+  @Test
+  void test_old_points_are_downsampled_into_archive() {
+    // two points in hour 0, one in hour 1, then four recent points in hour 5
+    recordAt(1L, 1, 60);
+    recordAt(1L, 2, 120);
+    recordAt(1L, 3, 3600 + 60);
+    recordAt(1L, 4, 5 * 3600);
+    recordAt(1L, 5, 5 * 3600 + 1);
+    recordAt(1L, 6, 5 * 3600 + 2);
+    recordAt(1L, 7, 5 * 3600 + 3);
+
+    assertEquals(List.of(
+        point(0, 2),
+        point(3600, 3),
+        point(5 * 3600, 4),
+        point(5 * 3600 + 1, 5),
+        point(5 * 3600 + 2, 6),
+        point(5 * 3600 + 3, 7)), history.history(1L, null, null, 0));
+  }
+
+  @Test
+  void test_archive_drops_oldest_bucket_when_full() {
+    for (int hour = 0; hour < 8; hour++) {
+      recordAt(1L, hour, hour * 3600L);
+    }
+
+    // 4 recent points (hours 4..7), archive keeps the 3 newest buckets (hours 1..3)
+    assertEquals(List.of(
+        point(1 * 3600, 1),
+        point(2 * 3600, 2),
+        point(3 * 3600, 3),
+        point(4 * 3600, 4),
+        point(5 * 3600, 5),
+        point(6 * 3600, 6),
+        point(7 * 3600, 7)), history.history(1L, null, null, 0));
+  }
+
+  @Test
+  void test_from_and_to_are_inclusive() {
+    recordAt(1L, 1, 0);
+    recordAt(1L, 2, 10);
+    recordAt(1L, 3, 20);
+    recordAt(1L, 4, 30);
+
+    assertEquals(List.of(point(10, 2), point(20, 3)),
+        history.history(1L, START.plusSeconds(10), START.plusSeconds(20), 0));
+  }
+
+  @Test
+  void test_step_keeps_last_value_per_step() {
+    recordAt(1L, 1, 0);
+    recordAt(1L, 2, 59);
+    recordAt(1L, 3, 60);
+    recordAt(1L, 4, 200);
+
+    assertEquals(List.of(point(0, 2), point(60, 3), point(180, 4)), history.history(1L, null, null, 60));
+  }
+
+  @Test
+  void test_forget() {
+    recordAt(1L, 1, 0);
+    history.forget(1L);
+    assertEquals(List.of(), history.history(1L, null, null, 0));
+  }
+}
@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.jdbc.CountingDataSource;
+import edu.ucsb.cs156.example.models.RuntimeInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RuntimeInfoCollectorTests {
+
+  StaticListableBeanFactory beans;
+  SimpleMeterRegistry registry;
+  HikariDataSource hikari;
+  RuntimeInfoCollector collector;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    hikari = new HikariDataSource();
+    hikari.setJdbcUrl("jdbc:h2:mem:runtimeinfo");
+    hikari.setMaximumPoolSize(2);
+
+    beans = new StaticListableBeanFactory();
+    collector = new RuntimeInfoCollector();
+    collector.meterRegistry = beans.getBeanProvider(MeterRegistry.class);
+    collector.dataSource = beans.getBeanProvider(DataSource.class);
+    collector.currentUserService = beans.getBeanProvider(CurrentUserService.class);
+    collector.avatarService = beans.getBeanProvider(AvatarService.class);
+  }
+
+  @AfterEach
+  void teardown() {
+    hikari.close();
+  }
+
+  @Test
+  public void test_jvm_numbers_are_sampled_without_optional_beans() {
+    RuntimeInfo info = collector.getLatest();
+
+    assertTrue(info.getHeapUsedBytes() > 0);
+    assertTrue(info.getNonHeapUsedBytes() > 0);
+    assertTrue(info.getLiveThreads() > 0);
+    assertFalse(info.getGarbageCollectors().isEmpty());
+    assertNull(info.getDbActiveConnections());
+    assertEquals(Map.of(), info.getCaches());
+    assertEquals(0, info.getRequestsTotal());
+    // served from the sample, not recomputed
+    assertSame(info, collector.getLatest());
+  }
+
+  @Test
+  public void test_pool_caches_and_throughput_are_sampled() throws Exception {
+    beans.addBean("meterRegistry", registry);
+    beans.addBean("dataSource", new CountingDataSource(hikari));
+    AvatarService avatars = mock(AvatarService.class);
+    when(avatars.getHits()).thenReturn(3L);
+    when(avatars.getMisses()).thenReturn(1L);
+    beans.addBean("avatars", avatars);
+
+    collector.sample();
+    Timer.builder("http.server.requests").tag("uri", "/api/a").register(registry).record(java.time.Duration.ofMillis(1));
+    Timer.builder("http.server.requests").tag("uri", "/api/b").register(registry).record(java.time.Duration.ofMillis(1));
+    RuntimeInfo info;
+    try (Connection connection = hikari.getConnection()) {
+      Thread.sleep(10);
+      collector.sample();
+      info = collector.getLatest();
+    }
+
+    assertEquals(1, info.getDbActiveConnections());
+    assertEquals(0, info.getDbWaitingThreads());
+    assertEquals(info.getDbTotalConnections(), info.getDbActiveConnections() + info.getDbIdleConnections());
+    assertEquals(0.75, info.getCaches().get("avatars").getHitRate());
+    assertEquals(2, info.getRequestsTotal());
+    assertTrue(info.getRequestsPerSecond() > 0);
+  }
+
+  @Test
+  public void test_cache_stats() {
+    assertEquals(0.0, RuntimeInfoCollector.cacheStats(0, 0).getHitRate());
+    assertEquals(0.9, RuntimeInfoCollector.cacheStats(9, 1).getHitRate());
+  }
+}
@@ -0,0 +1,193 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.Schools;
+import edu.ucsb.cs156.example.models.GradeRange;
+import edu.ucsb.cs156.example.repositories.SchoolsRepository;
+
+class SchoolsIndexServiceTests {
+
+  SchoolsIndexService schoolsIndex;
+  SchoolsRepository schoolsRepository;
+
+  @BeforeEach
+  void setup() {
+    schoolsRepository = mock(SchoolsRepository.class);
+    schoolsIndex = new SchoolsIndexService();
+    schoolsIndex.schoolsRepository = schoolsRepository;
+
+    when(schoolsRepository.findAll()).thenReturn(Arrays.asList(
+        Schools.builder().id(1L).name("Isla Vista Elementary").district("Goleta Union").gradeRange("K-6").build(),
+        Schools.builder().id(2L).name("Goleta Valley Junior High").district("Santa Barbara Unified").gradeRange("7-8").build(),
+        Schools.builder().id(3L).name("Dos Pueblos High").district("Santa Barbara Unified").gradeRange("9-12").build(),
+        Schools.builder().id(4L).name("Anacapa School").district("Private").gradeRange("7-12").build(),
+        Schools.builder().id(5L).name("Mystery School").district("Private").gradeRange("all of them").build()));
+  }
+
+  private static List<Long> ids(List<Schools> schools) {
+    return schools.stream().map(Schools::getId).collect(Collectors.toList());
+  }
+
+  @Test
+  void test_servingGrade() {
+    assertEquals(List.of(1L), ids(schoolsIndex.servingGrade(0, null)));
+    assertEquals(List.of(2L, 4L), ids(schoolsIndex.servingGrade(7, null)));
+    assertEquals(List.of(3L, 4L), ids(schoolsIndex.servingGrade(12, "")));
+    assertEquals(List.of(), ids(schoolsIndex.servingGrade(13, null)));
+  }
+
+  @Test
+  void test_servingGrade_filters_by_district_ignoring_case() {
+    assertEquals(List.of(2L), ids(schoolsIndex.servingGrade(7, "santa barbara unified ")));
+    assertEquals(List.of(), ids(schoolsIndex.servingGrade(7, "Goleta Union")));
+  }
+
+  @Test
+  void test_table_is_only_read_once() {
+    schoolsIndex.servingGrade(7, null);
+    schoolsIndex.servingGrade(8, null);
+    verify(schoolsRepository, times(1)).findAll();
+  }
+
+  @Test
+  void test_update_and_remove() {
+    schoolsIndex.servingGrade(7, null);
+
+    schoolsIndex.update(Schools.builder().id(1L).name("Isla Vista School").district("Goleta Union").gradeRange("K-8").build());
+    schoolsIndex.update(Schools.builder().id(6L).name("La Cumbre Junior High").district("Santa Barbara Unified").gradeRange("6-8").build());
+    schoolsIndex.remove(4L);
+    schoolsIndex.remove(42L);
+
+    assertEquals(List.of(1L, 2L, 6L), ids(schoolsIndex.servingGrade(7, null)));
+    assertEquals(List.of(3L), ids(schoolsIndex.servingGrade(12, null)));
+  }
+
+  @Test
+  void test_writes_before_first_read_are_picked_up_by_load() {
+    schoolsIndex.update(Schools.builder().id(9L).name("Ignored").district("Private").gradeRange("7").build());
+    schoolsIndex.remove(2L);
+
+    assertEquals(List.of(2L, 4L), ids(schoolsIndex.servingGrade(7, null)));
+  }
+
+  @Test
+  void test_writes_through_other_nodes_are_picked_up_after_the_ttl() {
+    AtomicLong now = new AtomicLong();
+    schoolsIndex.nanoClock = now::get;
+    schoolsIndex.servingGrade(7, null);
+    when(schoolsRepository.findAll()).thenReturn(Arrays.asList(
+        Schools.builder().id(2L).name("Goleta Valley Junior High").district("Santa Barbara Unified").gradeRange("6-8").build(),
+        Schools.builder().id(6L).name("La Colina Junior High").district("Santa Barbara Unified").gradeRange("7-8").build()));
+
+    now.set(TimeUnit.SECONDS.toNanos(59));
+    assertEquals(List.of(2L, 4L), ids(schoolsIndex.servingGrade(7, null)));
+
+    now.set(TimeUnit.SECONDS.toNanos(60));
+    assertEquals(List.of(2L, 6L), ids(schoolsIndex.servingGrade(7, null)));
+    assertEquals(List.of(2L), ids(schoolsIndex.servingGrade(6, null)));
+    verify(schoolsRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_byDistrict() {
+    assertEquals(List.of(2L, 3L), ids(schoolsIndex.byDistrict("Santa Barbara Unified")));
+    assertEquals(List.of(2L, 3L), ids(schoolsIndex.byDistrict(" santa barbara UNIFIED")));
+    assertEquals(List.of(), ids(schoolsIndex.byDistrict("Nowhere")));
+  }
+
+  @Test
+  void test_districtCounts() {
+    assertEquals(Map.of("Goleta Union", 1, "Santa Barbara Unified", 2, "Private", 2),
+        schoolsIndex.districtCounts());
+  }
+
+  @Test
+  void test_district_index_follows_writes() {
+    schoolsIndex.byDistrict("Private");
+
+    schoolsIndex.update(Schools.builder().id(4L).name("Anacapa School").district("santa barbara unified").gradeRange("7-12").build());
+    schoolsIndex.remove(5L);
+
+    assertEquals(List.of(2L, 3L, 4L), ids(schoolsIndex.byDistrict("Santa Barbara Unified")));
+    assertEquals(List.of(), ids(schoolsIndex.byDistrict("Private")));
+    assertEquals(Map.of("Goleta Union", 1, "Santa Barbara Unified", 3), schoolsIndex.districtCounts());
+    verify(schoolsRepository, times(1)).findAll();
+  }
+
+  @Test
+  void test_district_index_follows_writes_through_other_nodes_after_the_ttl() {
+    AtomicLong now = new AtomicLong();
+    schoolsIndex.nanoClock = now::get;
+    assertEquals(List.of(2L, 3L), ids(schoolsIndex.byDistrict("Santa Barbara Unified")));
+    when(schoolsRepository.findAll()).thenReturn(Arrays.asList(
+        Schools.builder().id(1L).name("Isla Vista Elementary").district("Goleta Union").gradeRange("K-6").build(),
+        Schools.builder().id(3L).name("Dos Pueblos High").district("Goleta Union").gradeRange("9-12").build()));
+
+    now.set(TimeUnit.SECONDS.toNanos(60));
+
+    assertEquals(List.of(), ids(schoolsIndex.byDistrict("Santa Barbara Unified")));
+    assertEquals(List.of(1L, 3L), ids(schoolsIndex.byDistrict("goleta union")));
+    assertEquals(Map.of("Goleta Union", 2), schoolsIndex.districtCounts());
+  }
+
+  @Test
+  void test_gradeRange_parse() {
+    assertEquals(new GradeRange(0, 5), GradeRange.parse("K-5").get());
+    assertEquals(new GradeRange(9, 12), GradeRange.parse(" 9 - 12 ").get());
+    assertEquals(new GradeRange(-1, 8), GradeRange.parse("TK-8").get());
+    assertEquals(new GradeRange(-1, 5), GradeRange.parse("Pre-K to 5th").get());
+    assertEquals(new GradeRange(6, 8), GradeRange.parse("Grades 6–8").get());
+    assertEquals(new GradeRange(7, 7), GradeRange.parse("7").get());
+    assertTrue(GradeRange.parse("k").get().contains(0));
+    assertFalse(GradeRange.parse("9-12").get().contains(8));
+    assertTrue(GradeRange.parse(null).isEmpty());
+    assertTrue(GradeRange.parse("12-9").isEmpty());
+    assertTrue(GradeRange.parse("9-13").isEmpty());
+    assertTrue(GradeRange.parse("elementary").isEmpty());
+  }
+
+  @Test
+  void test_interval_tree_matches_linear_scan() {
+    Random random = new Random(156);
+    List<IntervalTree.Interval<Integer>> intervals = new ArrayList<>();
+    List<int[]> bounds = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int low = random.nextInt(14) - 1;
+      int high = low + random.nextInt(13 - low);
+      intervals.add(new IntervalTree.Interval<>(low, high, i));
+      bounds.add(new int[] { low, high });
+    }
+    IntervalTree<Integer> tree = new IntervalTree<>(intervals);
+
+    for (int grade = -2; grade <= 13; grade++) {
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < bounds.size(); i++) {
+        if (bounds.get(i)[0] <= grade && grade <= bounds.get(i)[1]) {
+          expected.add(i);
+        }
+      }
+      List<Integer> actual = tree.stab(grade);
+      actual.sort(null);
+      assertEquals(expected, actual);
+    }
+  }
+}
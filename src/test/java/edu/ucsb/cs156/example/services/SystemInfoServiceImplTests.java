@@ -1,5 +1,6 @@
 package edu.ucsb.cs156.example.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -10,9 +11,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import edu.ucsb.cs156.example.models.RuntimeInfo;
 import edu.ucsb.cs156.example.models.SystemInfo;
 
 // The unit under test relies on property values
@@ -27,6 +30,9 @@ class SystemInfoServiceImplTests  {
   @Autowired
   private SystemInfoService systemInfoService;
 
+  @MockBean
+  private RuntimeInfoCollector runtimeInfoCollector;
+
   @Test
   void test_getSystemInfo() {
     SystemInfo si = systemInfoService.getSystemInfo();
@@ -34,4 +40,11 @@ class SystemInfoServiceImplTests  {
     assertTrue(si.getShowSwaggerUILink());
   }
 
+  @Test
+  void test_getSystemInfo_includes_latest_runtime_sample() {
+    RuntimeInfo runtime = RuntimeInfo.builder().liveThreads(42).build();
+    when(runtimeInfoCollector.getLatest()).thenReturn(runtime);
+    assertEquals(runtime, systemInfoService.getSystemInfo().getRuntime());
+  }
+
 }
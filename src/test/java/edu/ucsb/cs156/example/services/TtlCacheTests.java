@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TtlCacheTests {
+
+  AtomicLong now = new AtomicLong(0);
+  TtlCache<String, String> cache = new TtlCache<>(2, 100, now::get);
+  AtomicInteger loads = new AtomicInteger();
+
+  String load(String key) {
+    loads.incrementAndGet();
+    return key.toUpperCase();
+  }
+
+  @Test
+  void test_getOrLoad_loads_once() {
+    assertEquals("A", cache.getOrLoad("a", this::load));
+    assertEquals("A", cache.getOrLoad("a", this::load));
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  void test_entries_expire() {
+    cache.getOrLoad("a", this::load);
+    now.set(99);
+    assertEquals("A", cache.get("a"));
+    now.set(100);
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void test_least_recently_used_entry_is_evicted() {
+    cache.getOrLoad("a", this::load);
+    cache.getOrLoad("b", this::load);
+    cache.get("a");
+    cache.getOrLoad("c", this::load);
+
+    assertEquals("A", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("C", cache.get("c"));
+  }
+
+  @Test
+  void test_invalidate() {
+    cache.getOrLoad("a", this::load);
+    cache.getOrLoad("b", this::load);
+    cache.invalidate("a");
+    assertNull(cache.get("a"));
+    assertEquals("B", cache.get("b"));
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void test_value_loaded_during_invalidation_is_not_cached() {
+    String loaded = cache.getOrLoad("a", key -> {
+      cache.invalidate(key);
+      return "stale";
+    });
+    assertEquals("stale", loaded);
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  void test_null_is_not_cached() {
+    assertNull(cache.getOrLoad("a", key -> null));
+    assertEquals(0, cache.size());
+  }
+}
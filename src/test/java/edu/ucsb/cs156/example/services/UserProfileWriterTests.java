@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class UserProfileWriterTests {
+
+  static final Instant NOW = Instant.parse("2023-05-01T12:00:00Z");
+
+  UserProfileWriter writer;
+  UserRepository userRepository;
+  ApplicationEventPublisher eventPublisher;
+
+  User cgaucho;
+  User ldelplaya;
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    writer = new UserProfileWriter();
+    writer.userRepository = userRepository;
+    writer.eventPublisher = eventPublisher;
+    writer.clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    cgaucho = User.builder().id(1L).email("cgaucho@ucsb.edu").fullName("Chris Gaucho").build();
+    ldelplaya = User.builder().id(2L).email("ldelplaya@ucsb.edu").fullName("Laurie Del Playa").build();
+
+    when(userRepository.findAllByEmailIn(any())).thenAnswer(invocation -> {
+      Collection<String> emails = invocation.getArgument(0);
+      return List.of(cgaucho, ldelplaya).stream()
+          .filter(u -> emails.contains(u.getEmail()))
+          .collect(Collectors.toList());
+    });
+  }
+
+  private static OAuth2User profile(String email, String name) {
+    return new DefaultOAuth2User(
+        Set.of(new SimpleGrantedAuthority("ROLE_USER")),
+        Map.of("email", email, "name", name, "picture", "https://example.org/" + name, "email_verified", true),
+        "email");
+  }
+
+  @Test
+  void test_logins_are_coalesced_per_email() {
+    writer.recordLogin(profile("cgaucho@ucsb.edu", "Chris"));
+    writer.recordLogin(profile("cgaucho@ucsb.edu", "Christopher"));
+
+    assertEquals(1, writer.pendingCount());
+
+    writer.flush();
+
+    assertEquals(0, writer.pendingCount());
+    assertEquals("Christopher", cgaucho.getFullName());
+    assertEquals("https://example.org/Christopher", cgaucho.getPictureUrl());
+    assertTrue(cgaucho.getEmailVerified());
+    assertEquals(NOW, cgaucho.getLastLogin());
+    verify(userRepository, times(1)).saveAll(List.of(cgaucho));
+    verify(eventPublisher, times(1)).publishEvent(new UserUpdatedEvent(cgaucho));
+  }
+
+  @Test
+  void test_flush_writes_in_batches() {
+    writer.batchSize = 1;
+    writer.recordLogin(profile("cgaucho@ucsb.edu", "Chris"));
+    writer.recordLogin(profile("ldelplaya@ucsb.edu", "Laurie"));
+
+    writer.flush();
+
+    verify(userRepository, times(2)).findAllByEmailIn(any());
+    verify(userRepository, times(1)).saveAll(List.of(cgaucho));
+    verify(userRepository, times(1)).saveAll(List.of(ldelplaya));
+    assertEquals(NOW, ldelplaya.getLastLogin());
+    assertFalse(ldelplaya.getAdmin());
+  }
+
+  @Test
+  void test_unknown_users_and_missing_emails_are_skipped() {
+    writer.recordLogin(new DefaultOAuth2User(
+        Set.of(new SimpleGrantedAuthority("ROLE_USER")), Map.of("sub", "123"), "sub"));
+    assertEquals(0, writer.pendingCount());
+
+    writer.recordLogin(profile("nobody@ucsb.edu", "Nobody"));
+    writer.flush();
+
+    verify(userRepository, times(1)).saveAll(List.of());
+    verify(eventPublisher, times(0)).publishEvent(any());
+  }
+
+  @Test
+  void test_failed_flush_is_requeued() {
+    when(userRepository.saveAll(any())).thenThrow(new RuntimeException("database is down"));
+    writer.recordLogin(profile("cgaucho@ucsb.edu", "Chris"));
+
+    assertThrows(RuntimeException.class, () -> writer.flush());
+    assertEquals(1, writer.pendingCount());
+
+    // a newer login arriving before the retry wins over the failed one
+    writer.recordLogin(profile("cgaucho@ucsb.edu", "Christopher"));
+    doReturn(List.of()).when(userRepository).saveAll(any());
+    writer.flush();
+
+    assertEquals(0, writer.pendingCount());
+    assertEquals("Christopher", cgaucho.getFullName());
+  }
+}
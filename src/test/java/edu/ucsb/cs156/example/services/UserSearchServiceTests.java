@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSearchResults;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class UserSearchServiceTests {
+
+  UserSearchService userSearch;
+  UserRepository userRepository;
+
+  static User user(long id, String email, String fullName, String familyName) {
+    return User.builder().id(id).email(email).fullName(fullName).familyName(familyName).build();
+  }
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    userSearch = new UserSearchService();
+    userSearch.userRepository = userRepository;
+
+    when(userRepository.findAll()).thenReturn(List.of(
+        user(1L, "cgaucho@ucsb.edu", "Chris Gaucho", "Gaucho"),
+        user(2L, "ldelplaya@ucsb.edu", "Laurie Del Playa", "Del Playa"),
+        user(3L, "jose.nunez@ucsb.edu", "José Núñez", "Núñez"),
+        user(4L, "gaucho.fan@gmail.com", "Gary Fan", "Fan")));
+  }
+
+  private static List<Long> ids(UserSearchResults results) {
+    return results.getUsers().stream().map(User::getId).collect(Collectors.toList());
+  }
+
+  @Test
+  void test_prefix_matches_email_full_name_and_family_name() {
+    assertEquals(List.of(1L), ids(userSearch.search("cgau", 20, null)));
+    assertEquals(List.of(2L), ids(userSearch.search("laurie d", 20, null)));
+    assertEquals(List.of(2L), ids(userSearch.search("del pl", 20, null)));
+    assertEquals(List.of(), ids(userSearch.search("playa", 20, null)));
+  }
+
+  @Test
+  void test_case_accents_and_spaces_are_ignored() {
+    assertEquals(List.of(3L), ids(userSearch.search("  NUNEZ ", 20, null)));
+    assertEquals(List.of(3L), ids(userSearch.search("jose   n", 20, null)));
+  }
+
+  @Test
+  void test_user_matching_several_terms_is_returned_once() {
+    // user 1 by family name "gaucho", user 4 by email "gaucho.fan@..."
+    assertEquals(List.of(1L, 4L), ids(userSearch.search("gaucho", 20, null)));
+    // user 1 matches both "cgaucho@ucsb.edu" and "chris gaucho"
+    assertEquals(List.of(1L), ids(userSearch.search("c", 20, null)));
+  }
+
+  @Test
+  void test_paging_with_after() {
+    List<Long> seen = new ArrayList<>();
+    String after = null;
+    int pages = 0;
+    do {
+      UserSearchResults page = userSearch.search("", 1, after);
+      seen.addAll(ids(page));
+      after = page.getNext();
+      pages++;
+    } while (after != null);
+
+    assertEquals(4, pages);
+    assertEquals(List.of(1L, 2L, 4L, 3L), seen);
+  }
+
+  @Test
+  void test_last_page_has_no_next() {
+    UserSearchResults results = userSearch.search("", 4, null);
+    assertEquals(4, results.getUsers().size());
+    assertNull(results.getNext());
+    // an unreadable cursor starts from the beginning
+    assertEquals(List.of(1L, 2L, 4L, 3L), ids(userSearch.search("", 20, "not base64!")));
+  }
+
+  @Test
+  void test_updates_replace_old_terms() {
+    userSearch.search("", 20, null);
+
+    userSearch.onUserUpdated(new UserUpdatedEvent(user(1L, "cgaucho@ucsb.edu", "Christine Storke", "Storke")));
+    userSearch.onUserUpdated(new UserUpdatedEvent(user(5L, "new@ucsb.edu", "New Student", "Student")));
+
+    assertEquals(List.of(1L), ids(userSearch.search("storke", 20, null)));
+    assertEquals(List.of(4L), ids(userSearch.search("gaucho", 20, null)));
+    assertEquals(List.of(5L), ids(userSearch.search("new", 20, null)));
+    assertEquals(5, userSearch.size());
+    verify(userRepository, times(1)).findAll();
+  }
+
+  @Test
+  void test_limit_is_clamped() {
+    assertEquals(1, userSearch.search("", 0, null).getUsers().size());
+    assertEquals(4, userSearch.search("", UserSearchService.MAX_LIMIT + 1, null).getUsers().size());
+  }
+
+  @Test
+  void test_users_added_or_removed_through_other_nodes_are_picked_up_after_the_ttl() {
+    AtomicLong now = new AtomicLong();
+    userSearch.nanoClock = now::get;
+    assertEquals(List.of(1L, 4L), ids(userSearch.search("gau", 20, null)));
+    when(userRepository.findAll()).thenReturn(List.of(
+        user(1L, "cgaucho@ucsb.edu", "Chris Gaucho", "Gaucho"),
+        user(5L, "gauchita@ucsb.edu", "Gabi Gauchita", "Gauchita")));
+
+    now.set(TimeUnit.SECONDS.toNanos(59));
+    assertEquals(List.of(1L, 4L), ids(userSearch.search("gau", 20, null)));
+
+    now.set(TimeUnit.SECONDS.toNanos(60));
+    assertEquals(List.of(5L, 1L), ids(userSearch.search("gau", 20, null)));
+    assertEquals(List.of(), ids(userSearch.search("gary", 20, null)));
+    assertEquals(2, userSearch.size());
+  }
+}
@@ -3,6 +3,8 @@ package edu.ucsb.cs156.example.testconfig;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
+import edu.ucsb.cs156.example.services.AdminResolutionService;
+import edu.ucsb.cs156.example.services.AuthEventLogger;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 
@@ -18,4 +20,14 @@ public class TestConfig {
     public GrantedAuthoritiesService grantedAuthoritiesService() {
         return new GrantedAuthoritiesService();
     }
+
+    @Bean
+    public AuthEventLogger authEventLogger() {
+        return new AuthEventLogger();
+    }
+
+    @Bean
+    public AdminResolutionService adminResolutionService() {
+        return new AdminResolutionService();
+    }
 }
@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TraceContextTests {
+
+  @Test
+  public void test_traceparent_round_trips() {
+    String header = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+    TraceContext context = TraceContext.parse(header);
+
+    assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.traceId());
+    assertEquals("00f067aa0ba902b7", context.spanId());
+    assertTrue(context.sampled());
+    assertEquals(header, context.traceparent());
+    assertFalse(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00").sampled());
+  }
+
+  @Test
+  public void test_later_versions_may_add_fields() {
+    TraceContext context = TraceContext.parse("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-03-extra");
+    assertEquals("00f067aa0ba902b7", context.spanId());
+    assertTrue(context.sampled());
+  }
+
+  @Test
+  public void test_malformed_headers_are_ignored() {
+    assertNull(TraceContext.parse(null));
+    assertNull(TraceContext.parse("garbage"));
+    assertNull(TraceContext.parse("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+    assertNull(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+    assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+    assertNull(TraceContext.parse("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+    assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"));
+  }
+
+  @Test
+  public void test_new_ids_are_lowercase_hex() {
+    assertTrue(TraceContext.newTraceId().matches("[0-9a-f]{32}"));
+    assertTrue(TraceContext.newSpanId().matches("[0-9a-f]{16}"));
+  }
+}
@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TracingFilterTests {
+
+  List<Span> exported = new ArrayList<>();
+
+  private TracingFilter filter(double sampleRatio) {
+    return new TracingFilter(new Tracer(exported::add, sampleRatio));
+  }
+
+  private static final FilterChain HANDLER = (request, response) -> {
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books");
+    Span handler = Span.start("BooksController.allBooks");
+    Span query = Span.start("BookRepository.findAll");
+    query.end();
+    handler.end();
+  };
+
+  @Test
+  public void test_request_starts_a_trace_with_child_spans() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter(1.0).doFilter(new MockHttpServletRequest("GET", "/api/books"), response, HANDLER);
+
+    assertEquals(List.of("BookRepository.findAll", "BooksController.allBooks", "GET /api/books"),
+        exported.stream().map(Span::getName).toList());
+    Span query = exported.get(0);
+    Span handler = exported.get(1);
+    Span server = exported.get(2);
+    assertEquals(Span.Kind.SERVER, server.getKind());
+    assertNull(server.getParentSpanId());
+    assertEquals(server.getContext().spanId(), handler.getParentSpanId());
+    assertEquals(handler.getContext().spanId(), query.getParentSpanId());
+    assertEquals(server.getContext().traceId(), query.getContext().traceId());
+    assertEquals("/api/books", server.getAttributes().get("http.route"));
+    assertEquals(200, server.getAttributes().get("http.status_code"));
+    assertEquals(server.getContext().traceparent(), response.getHeader(TracingFilter.TRACERESPONSE));
+    assertNull(Span.current());
+  }
+
+  @Test
+  public void test_incoming_traceparent_is_continued() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+    request.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+
+    filter(0.0).doFilter(request, new MockHttpServletResponse(), HANDLER);
+
+    Span server = exported.get(2);
+    assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", server.getContext().traceId());
+    assertEquals("00f067aa0ba902b7", server.getParentSpanId());
+  }
+
+  @Test
+  public void test_unsampled_traces_are_propagated_but_not_exported() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+    request.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter(1.0).doFilter(request, response, HANDLER);
+
+    assertTrue(exported.isEmpty());
+    assertTrue(response.getHeader(TracingFilter.TRACERESPONSE).startsWith("00-4bf92f3577b34da6a3ce929d0e0e4736-"));
+    assertTrue(response.getHeader(TracingFilter.TRACERESPONSE).endsWith("-00"));
+  }
+
+  @Test
+  public void test_exceptions_mark_the_span_as_an_error() {
+    FilterChain failing = (request, response) -> {
+      throw new IllegalStateException("boom");
+    };
+
+    assertThrows(IllegalStateException.class,
+        () -> filter(1.0).doFilter(new MockHttpServletRequest("POST", "/api/books"), new MockHttpServletResponse(),
+            failing));
+
+    Span server = exported.get(0);
+    assertEquals("POST", server.getName());
+    assertTrue(server.isError());
+    assertEquals(500, server.getAttributes().get("http.status_code"));
+    assertEquals("boom", server.getAttributes().get("exception.message"));
+    assertNull(Span.current());
+  }
+
+  @Test
+  public void test_spans_outside_a_request_are_noops() {
+    Span span = Span.start("ScheduledJob.run");
+    assertTrue(span.isNoop());
+    assertNull(Span.current());
+    span.setAttribute("ignored", 1);
+    span.end();
+    assertTrue(exported.isEmpty());
+  }
+
+  @Test
+  public void test_spans_are_written_as_json() throws Exception {
+    filter(1.0).doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(), HANDLER);
+    JsonLinesSpanExporter exporter = new JsonLinesSpanExporter(new ObjectMapper(), Map.of("service.name", "team02"));
+
+    Map<String, Object> json = exporter.toJson(exported.get(2));
+
+    assertEquals(exported.get(2).getContext().traceId(), json.get("traceId"));
+    assertFalse(json.containsKey("parentSpanId"));
+    assertEquals("SERVER", json.get("kind"));
+    assertEquals("OK", json.get("status"));
+    assertEquals((long) json.get("startTimeUnixNano") + exported.get(2).getDurationNanos(), json.get("endTimeUnixNano"));
+    assertEquals(Map.of("service.name", "team02"), json.get("resource"));
+    exporter.export(exported.get(2));
+  }
+}